@@ -30,7 +30,7 @@ public class ApplicationFrame extends JFrame {
     public ApplicationFrame(String title) throws HeadlessException {
         //Calls super() and sets size constraints and close operation
         super(title);
-        this.setSize(new Dimension(350, 400));
+        this.setSize(new Dimension(820, 430));
         this.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
         this.setResizable(false);
 
@@ -47,7 +47,7 @@ public class ApplicationFrame extends JFrame {
 
     /**
      * Creates {@link InfoPanel}, {@link InputPanel},
-     * {@link OutputPanel}, {@link ControlPanel} and adds it to the mainPanel
+     * {@link OutputPanel} next to a {@link ReportPanel}, {@link ControlPanel} and adds it to the mainPanel
      *
      * @param mainPanel Panel to add every other panel to
      */
@@ -55,11 +55,18 @@ public class ApplicationFrame extends JFrame {
         InfoPanel infoPanel = new InfoPanel("Coffee Bean and Tea Leaf", "Jarrod Burges");
         InputPanel inputPanel = new InputPanel();
         OutputPanel outputPanel = new OutputPanel();
-        ControlPanel controlPanel = new ControlPanel(inputPanel, outputPanel, this);
+        ReportPanel reportPanel = new ReportPanel();
+        ControlPanel controlPanel = new ControlPanel(inputPanel, outputPanel, reportPanel, this);
+
+        //OutputPanel and ReportPanel share a row
+        JPanel resultsPanel = new JPanel(new GridLayout(1, 2, 10, 0));
+        resultsPanel.setBackground(Color.white);
+        resultsPanel.add(outputPanel);
+        resultsPanel.add(reportPanel);
 
         mainPanel.add(infoPanel);
         mainPanel.add(inputPanel);
-        mainPanel.add(outputPanel);
+        mainPanel.add(resultsPanel);
         mainPanel.add(controlPanel);
     }
 }
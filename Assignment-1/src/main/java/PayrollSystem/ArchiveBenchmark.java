@@ -0,0 +1,136 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Converts a {@link PayrollLedger} into a {@link PayrollArchive} and measures the conversion, the compression
+ * ratio, a full history scan of both files and random lookups of one employee's history. The scan totals of the
+ * archive are checked against the ledger's, so a lossy archive fails the benchmark.
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public final class ArchiveBenchmark {
+
+    private static final int SCAN_ITERATIONS = 5;
+    private static final int LOOKUPS = 10_000;
+
+    private ArchiveBenchmark() {
+    }
+
+    /**
+     * Archives a ledger and benchmarks reading it back.
+     *
+     * @param ledgerPath ledger file
+     * @param archivePath archive file to create
+     * @return printable results
+     * @throws IOException a file cannot be read or written
+     * @throws IllegalStateException the archive doesn't hold the same pay as the ledger
+     */
+    public static String run(Path ledgerPath, Path archivePath) throws IOException {
+        try (LedgerReader ledger = new LedgerReader(ledgerPath)) {
+            long start = System.nanoTime();
+            long records = ArchiveWriter.fromLedger(ledger, archivePath);
+            long writeNanos = System.nanoTime() - start;
+
+            long ledgerBytes = Files.size(ledgerPath);
+            long archiveBytes = Files.size(archivePath);
+            StringBuilder builder = new StringBuilder();
+            builder.append(String.format("records=%d ledger=%.1fMiB archive=%.1fMiB ratio=%.1fx bytes/record=%.2f%n",
+                    records, ledgerBytes / 1048576.0, archiveBytes / 1048576.0,
+                    ledgerBytes / (double) Math.max(archiveBytes, 1), archiveBytes / (double) Math.max(records, 1)));
+            builder.append(String.format("write=%.3fs (%.0f records/sec, %.0f MiB/s of ledger)%n", writeNanos / 1e9,
+                    records / seconds(writeNanos), ledgerBytes / 1048576.0 / seconds(writeNanos)));
+
+            long[] ledgerTotals = new long[3];
+            long ledgerNanos = Long.MAX_VALUE;
+            for (int i = 0; i < SCAN_ITERATIONS; i++) {
+                start = System.nanoTime();
+                scanLedger(ledger, ledgerTotals);
+                ledgerNanos = Math.min(ledgerNanos, System.nanoTime() - start);
+            }
+
+            try (ArchiveReader archive = new ArchiveReader(archivePath)) {
+                ArchiveReader.Rows rows = new ArchiveReader.Rows();
+                long[] archiveTotals = new long[3];
+                long archiveNanos = Long.MAX_VALUE;
+                for (int i = 0; i < SCAN_ITERATIONS; i++) {
+                    start = System.nanoTime();
+                    scanArchive(archive, rows, archiveTotals);
+                    archiveNanos = Math.min(archiveNanos, System.nanoTime() - start);
+                }
+                if (archive.size() != records || archiveTotals[0] != ledgerTotals[0]
+                        || archiveTotals[1] != ledgerTotals[1] || archiveTotals[2] != ledgerTotals[2]) {
+                    throw new IllegalStateException("Archive totals differ from the ledger.");
+                }
+                builder.append(String.format("scan ledger=%.3fs (%.0f records/sec) archive=%.3fs "
+                                + "(%.0f records/sec, %.0f MiB/s read)%n",
+                        ledgerNanos / 1e9, records / seconds(ledgerNanos), archiveNanos / 1e9,
+                        records / seconds(archiveNanos), archiveBytes / 1048576.0 / seconds(archiveNanos)));
+
+                Random random = new Random(42);
+                long found = 0;
+                start = System.nanoTime();
+                for (int i = 0; i < LOOKUPS && records > 0; i++) {
+                    archive.readEmployee(ledger.getEmployeeId((long) (random.nextDouble() * records)), rows);
+                    found += rows.size();
+                }
+                long lookupNanos = System.nanoTime() - start;
+                builder.append(String.format("lookup=%.1fus per employee (%.1f periods each)",
+                        lookupNanos / 1e3 / LOOKUPS, found / (double) LOOKUPS));
+            }
+
+            builder.append(System.lineSeparator()).append("grossPay=");
+            MoneyFormat.append(builder, ledgerTotals[2]);
+            return builder.toString();
+        }
+    }
+
+    private static void scanLedger(LedgerReader ledger, long[] totals) {
+        long regularPay = 0;
+        long overtimePay = 0;
+        long grossPay = 0;
+        for (long i = 0; i < ledger.size(); i++) {
+            regularPay += ledger.getRegularPay(i);
+            overtimePay += ledger.getOvertimePay(i);
+            grossPay += ledger.getGrossPay(i);
+        }
+        totals[0] = regularPay;
+        totals[1] = overtimePay;
+        totals[2] = grossPay;
+    }
+
+    private static void scanArchive(ArchiveReader archive, ArchiveReader.Rows rows, long[] totals)
+            throws IOException {
+        long regularPay = 0;
+        long overtimePay = 0;
+        long grossPay = 0;
+        for (int block = 0; block < archive.blocks(); block++) {
+            archive.readBlock(block, rows);
+            for (int row = 0; row < rows.size(); row++) {
+                regularPay += rows.getRegularPay(row);
+                overtimePay += rows.getOvertimePay(row);
+                grossPay += rows.getGrossPay(row);
+            }
+        }
+        totals[0] = regularPay;
+        totals[1] = overtimePay;
+        totals[2] = grossPay;
+    }
+
+    private static double seconds(long nanos) {
+        return Math.max(nanos / 1e9, 1e-9);
+    }
+}
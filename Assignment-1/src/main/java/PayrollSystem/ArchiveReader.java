@@ -0,0 +1,337 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Reads a {@link PayrollArchive} file one block at a time. The index is loaded when the archive is opened, so
+ * finding an employee's history only reads the blocks that hold it. Blocks are decoded into reusable
+ * {@link Rows}, so a full history scan allocates nothing per block.
+ * <p>A reader keeps one block buffer and is not safe to share between threads.</p>
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public class ArchiveReader implements Closeable {
+
+    /**
+     * Decoded rows, one array per column.
+     */
+    public static final class Rows {
+        private long[][] columns = new long[PayrollArchive.COLUMNS][PayrollArchive.BLOCK_ROWS];
+        private int size;
+
+        public int size() {
+            return size;
+        }
+
+        public long getEmployeeId(int row) {
+            return columns[PayrollArchive.EMPLOYEE_ID][row];
+        }
+
+        public int getPeriod(int row) {
+            return (int) columns[PayrollArchive.PERIOD][row];
+        }
+
+        /**
+         * @param row index of a row
+         * @return hours worked in hundredths of an hour
+         */
+        public long getHoursWorked(int row) {
+            return columns[PayrollArchive.HOURS_WORKED][row];
+        }
+
+        /**
+         * @param row index of a row
+         * @return hourly pay in cents
+         */
+        public long getHourlyPay(int row) {
+            return columns[PayrollArchive.HOURLY_PAY][row];
+        }
+
+        /**
+         * @param row index of a row
+         * @return regular pay in cents
+         */
+        public long getRegularPay(int row) {
+            return columns[PayrollArchive.REGULAR_PAY][row];
+        }
+
+        /**
+         * @param row index of a row
+         * @return overtime pay in cents
+         */
+        public long getOvertimePay(int row) {
+            return columns[PayrollArchive.OVERTIME_PAY][row];
+        }
+
+        /**
+         * @param row index of a row
+         * @return gross pay in cents
+         */
+        public long getGrossPay(int row) {
+            return columns[PayrollArchive.GROSS_PAY][row];
+        }
+
+        /**
+         * Makes room for more rows, keeping the ones already decoded.
+         */
+        private void ensureCapacity(int capacity) {
+            if (capacity > columns[0].length) {
+                long[][] grown = new long[PayrollArchive.COLUMNS][Math.max(capacity, columns[0].length * 2)];
+                for (int column = 0; column < PayrollArchive.COLUMNS; column++) {
+                    System.arraycopy(columns[column], 0, grown[column], 0, size);
+                }
+                columns = grown;
+            }
+        }
+    }
+
+    private final FileChannel channel;
+    private final CRC32C crc = new CRC32C();
+    private final long records;
+    private final int blocks;
+
+    /**
+     * Index of every block.
+     */
+    private final long[] blockOffsets;
+    private final long[] firstEmployeeIds;
+    private final long[] lastEmployeeIds;
+    private final int[] blockLengths;
+
+    private byte[] block = new byte[0];
+
+    /**
+     * Zigzag differences of the column being decoded.
+     */
+    private final long[] deltas = new long[PayrollArchive.BLOCK_ROWS];
+
+    /**
+     * Opens an archive and loads its index.
+     *
+     * @param path archive file
+     * @throws IOException file cannot be read, is not an archive, or its index is corrupt
+     */
+    public ArchiveReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < PayrollArchive.HEADER_SIZE + PayrollArchive.FOOTER_SIZE) {
+                throw new IOException("Not a payroll archive.");
+            }
+            PayrollArchive.checkHeader(readFully(0, PayrollArchive.HEADER_SIZE));
+
+            ByteBuffer footer = readFully(size - PayrollArchive.FOOTER_SIZE, PayrollArchive.FOOTER_SIZE);
+            if (footer.getLong(24) != PayrollArchive.MAGIC) {
+                throw new IOException("Payroll archive is incomplete, it was not closed after writing.");
+            }
+            long indexOffset = footer.getLong(0);
+            records = footer.getLong(8);
+            blocks = footer.getInt(16);
+            long indexLength = (long) blocks * PayrollArchive.INDEX_ENTRY_SIZE;
+            if (blocks < 0 || indexOffset < PayrollArchive.HEADER_SIZE
+                    || indexOffset + indexLength != size - PayrollArchive.FOOTER_SIZE) {
+                throw new IOException("Payroll archive index is corrupt.");
+            }
+
+            ByteBuffer index = readFully(indexOffset, (int) indexLength);
+            crc.update(index.duplicate());
+            if ((int) crc.getValue() != footer.getInt(20)) {
+                throw new IOException("Payroll archive index is corrupt.");
+            }
+            blockOffsets = new long[blocks];
+            firstEmployeeIds = new long[blocks];
+            lastEmployeeIds = new long[blocks];
+            blockLengths = new int[blocks];
+            for (int i = 0; i < blocks; i++) {
+                blockOffsets[i] = index.getLong();
+                firstEmployeeIds[i] = index.getLong();
+                lastEmployeeIds[i] = index.getLong();
+                blockLengths[i] = index.getInt();
+                index.getInt();
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return number of rows in the archive
+     */
+    public long size() {
+        return records;
+    }
+
+    /**
+     * @return number of blocks in the archive
+     */
+    public int blocks() {
+        return blocks;
+    }
+
+    /**
+     * Decodes one block, replacing the rows held by rows.
+     *
+     * @param blockIndex index of the block
+     * @param rows rows to decode into
+     * @throws IOException block cannot be read or its checksum doesn't match
+     */
+    public void readBlock(int blockIndex, Rows rows) throws IOException {
+        rows.size = 0;
+        appendBlock(blockIndex, rows, Long.MIN_VALUE);
+    }
+
+    /**
+     * Decodes every period of one employee, replacing the rows held by rows.
+     *
+     * @param employeeId id of the employee
+     * @param rows rows to decode into, empty if the employee is not in the archive
+     * @throws IOException a block cannot be read or its checksum doesn't match
+     */
+    public void readEmployee(long employeeId, Rows rows) throws IOException {
+        rows.size = 0;
+        //first block whose last employee is not before the one looked for
+        int low = 0;
+        int high = blocks;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (lastEmployeeIds[middle] < employeeId) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        //an employee's history can continue into the following blocks
+        for (int i = low; i < blocks && firstEmployeeIds[i] <= employeeId; i++) {
+            appendBlock(i, rows, employeeId);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Decodes a block after the rows already held, keeping only one employee's rows unless employeeId is
+     * Long.MIN_VALUE.
+     */
+    private void appendBlock(int blockIndex, Rows rows, long employeeId) throws IOException {
+        int length = blockLengths[blockIndex];
+        if (block.length < length + PayrollArchive.PACKING_SLACK) {
+            block = new byte[length + PayrollArchive.PACKING_SLACK];
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(block, 0, length).order(PayrollArchive.BYTE_ORDER);
+        long offset = blockOffsets[blockIndex];
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Payroll archive is truncated at block " + blockIndex + ".");
+            }
+        }
+        //packed values are read 8 bytes at a time, up to the slack past the block
+        buffer.limit(block.length);
+        crc.reset();
+        crc.update(block, 0, length - 4);
+        if ((int) crc.getValue() != buffer.getInt(length - 4)) {
+            throw new IOException("Payroll archive block " + blockIndex + " is corrupt.");
+        }
+
+        int blockRows = buffer.getInt(0);
+        if (blockRows < 0 || blockRows > PayrollArchive.BLOCK_ROWS) {
+            throw new IOException("Payroll archive block " + blockIndex + " is corrupt.");
+        }
+        int start = rows.size;
+        rows.ensureCapacity(start + blockRows);
+        int position = PayrollArchive.BLOCK_HEADER_SIZE;
+        for (int column = 0; column < PayrollArchive.COLUMNS; column++) {
+            int end = position + buffer.getInt(4 + column * 4);
+            int width = buffer.get(PayrollArchive.WIDTHS + column) & 0xFF;
+            if (end < position || end > length - 4 || (width != PayrollArchive.VARINT && (width > Long.SIZE
+                    || PayrollArchive.packedSize(blockRows, width) != end - position))) {
+                throw new IOException("Payroll archive block " + blockIndex + " is corrupt.");
+            }
+
+            if (width == PayrollArchive.VARINT) {
+                int row = 0;
+                while (position < end && row < blockRows) {
+                    //inlined varint decode
+                    long value = 0;
+                    int shift = 0;
+                    byte b;
+                    do {
+                        b = block[position++];
+                        value |= (long) (b & 0x7F) << shift;
+                        shift += 7;
+                    } while (b < 0);
+                    deltas[row++] = value;
+                }
+                if (row != blockRows || position != end) {
+                    throw new IOException("Payroll archive block " + blockIndex + " is corrupt.");
+                }
+            } else {
+                PayrollArchive.unpack(buffer, position, deltas, blockRows, width);
+                position = end;
+            }
+
+            long[] values = rows.columns[column];
+            if (column == PayrollArchive.GROSS_PAY) {
+                long[] regularPay = rows.columns[PayrollArchive.REGULAR_PAY];
+                long[] overtimePay = rows.columns[PayrollArchive.OVERTIME_PAY];
+                for (int row = 0; row < blockRows; row++) {
+                    values[start + row] = PayrollArchive.unzigzag(deltas[row]) + regularPay[start + row]
+                            + overtimePay[start + row];
+                }
+            } else {
+                long previous = 0;
+                for (int row = 0; row < blockRows; row++) {
+                    previous += PayrollArchive.unzigzag(deltas[row]);
+                    values[start + row] = previous;
+                }
+            }
+        }
+        rows.size = start + blockRows;
+
+        if (employeeId != Long.MIN_VALUE) {
+            //keeps only the employee's rows, which are contiguous
+            long[] ids = rows.columns[PayrollArchive.EMPLOYEE_ID];
+            int from = start;
+            while (from < rows.size && ids[from] < employeeId) {
+                from++;
+            }
+            int to = from;
+            while (to < rows.size && ids[to] == employeeId) {
+                to++;
+            }
+            for (long[] values : rows.columns) {
+                System.arraycopy(values, from, values, start, to - from);
+            }
+            rows.size = start + to - from;
+        }
+    }
+
+    private ByteBuffer readFully(long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(PayrollArchive.BYTE_ORDER);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Payroll archive is truncated.");
+            }
+        }
+        return buffer.flip();
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Writes a {@link PayrollArchive} file. Rows are collected column by column into one block, which is encoded and
+ * written once full. The index and footer are written by {@link #close()}, so an archive is only readable once
+ * it has been closed.
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public class ArchiveWriter implements Closeable {
+
+    private final FileChannel channel;
+    private final CRC32C crc = new CRC32C();
+
+    /**
+     * Rows of the block being filled, one array per column.
+     */
+    private final long[][] columns = new long[PayrollArchive.COLUMNS][PayrollArchive.BLOCK_ROWS];
+    private int blockRows;
+
+    /**
+     * Zigzag differences of the column being encoded.
+     */
+    private final long[] deltas = new long[PayrollArchive.BLOCK_ROWS];
+
+    /**
+     * Encoded block, large enough for the longest varint of every value.
+     */
+    private final byte[] block = new byte[PayrollArchive.BLOCK_HEADER_SIZE
+            + PayrollArchive.COLUMNS * PayrollArchive.BLOCK_ROWS * PayrollArchive.MAX_VARINT_SIZE + 4
+            + PayrollArchive.PACKING_SLACK];
+    private final ByteBuffer blockBuffer = ByteBuffer.wrap(block).order(PayrollArchive.BYTE_ORDER);
+
+    /**
+     * Index entries of the blocks written so far.
+     */
+    private ByteBuffer index = ByteBuffer.allocate(64 * PayrollArchive.INDEX_ENTRY_SIZE)
+            .order(PayrollArchive.BYTE_ORDER);
+    private int blocks;
+    private long records;
+    private long position = PayrollArchive.HEADER_SIZE;
+
+    private long lastEmployeeId = Long.MIN_VALUE;
+    private int lastPeriod = Integer.MIN_VALUE;
+
+    /**
+     * Creates an archive, replacing any file at the path.
+     *
+     * @param path archive file
+     * @throws IOException file cannot be created
+     */
+    public ArchiveWriter(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        try {
+            writeFully(PayrollArchive.createHeader(), 0);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Converts a ledger into an archive. The ledger's records are sorted by employee and period with a
+     * {@link LedgerSort} first, which needs two ints of heap per record.
+     *
+     * @param ledger open ledger
+     * @param archive archive file to create
+     * @return number of records archived
+     * @throws IOException archive cannot be written
+     * @throws IllegalArgumentException the ledger has more records than can be sorted in memory
+     */
+    public static long fromLedger(LedgerReader ledger, Path archive) throws IOException {
+        if (ledger.size() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Ledger has too many records to archive at once: " + ledger.size());
+        }
+        int records = (int) ledger.size();
+        int[] order = LedgerSort.sort(null, records, ledger::getPeriod, true);
+        order = LedgerSort.sort(order, records, ledger::getEmployeeId, true);
+
+        try (ArchiveWriter writer = new ArchiveWriter(archive)) {
+            for (int record : order) {
+                writer.append(ledger.getEmployeeId(record), ledger.getPeriod(record), ledger.getHoursWorked(record),
+                        ledger.getHourlyPay(record), ledger.getRegularPay(record), ledger.getOvertimePay(record),
+                        ledger.getGrossPay(record));
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Appends one row. Rows must be ordered by employee id and then by period.
+     *
+     * @param employeeId id of the employee
+     * @param period pay period the row belongs to
+     * @param hoursWorked hours worked in hundredths of an hour
+     * @param hourlyPay hourly pay in cents
+     * @param regularPay regular pay in cents
+     * @param overtimePay overtime pay in cents
+     * @param grossPay gross pay in cents
+     * @throws IOException a full block cannot be written
+     * @throws IllegalArgumentException the row comes before the previous one
+     */
+    public void append(long employeeId, int period, long hoursWorked, long hourlyPay, long regularPay,
+                       long overtimePay, long grossPay) throws IOException {
+        if (employeeId < lastEmployeeId || (employeeId == lastEmployeeId && period < lastPeriod)) {
+            throw new IllegalArgumentException("Archive rows must be ordered by employee and period.");
+        }
+        lastEmployeeId = employeeId;
+        lastPeriod = period;
+
+        columns[PayrollArchive.EMPLOYEE_ID][blockRows] = employeeId;
+        columns[PayrollArchive.PERIOD][blockRows] = period;
+        columns[PayrollArchive.HOURS_WORKED][blockRows] = hoursWorked;
+        columns[PayrollArchive.HOURLY_PAY][blockRows] = hourlyPay;
+        columns[PayrollArchive.REGULAR_PAY][blockRows] = regularPay;
+        columns[PayrollArchive.OVERTIME_PAY][blockRows] = overtimePay;
+        columns[PayrollArchive.GROSS_PAY][blockRows] = grossPay;
+        records++;
+        if (++blockRows == PayrollArchive.BLOCK_ROWS) {
+            writeBlock();
+        }
+    }
+
+    /**
+     * @return number of rows appended
+     */
+    public long size() {
+        return records;
+    }
+
+    /**
+     * Writes the last block, the index and the footer, and forces the archive to disk.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (blockRows > 0) {
+                writeBlock();
+            }
+            index.flip();
+            crc.reset();
+            crc.update(index.duplicate());
+            long indexOffset = position;
+            writeFully(index, position);
+            position += index.limit();
+
+            ByteBuffer footer = ByteBuffer.allocate(PayrollArchive.FOOTER_SIZE).order(PayrollArchive.BYTE_ORDER);
+            footer.putLong(indexOffset).putLong(records).putInt(blocks).putInt((int) crc.getValue())
+                    .putLong(PayrollArchive.MAGIC).flip();
+            writeFully(footer, position);
+            channel.force(false);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Encodes the current block column by column and adds it to the index. Each column is bit packed or written
+     * as varints, whichever takes fewer bytes.
+     */
+    private void writeBlock() throws IOException {
+        int offset = PayrollArchive.BLOCK_HEADER_SIZE;
+        blockBuffer.putInt(0, blockRows);
+        blockBuffer.put(PayrollArchive.WIDTHS + PayrollArchive.COLUMNS, (byte) 0);
+        for (int column = 0; column < PayrollArchive.COLUMNS; column++) {
+            long[] values = columns[column];
+            long previous = 0;
+            long bits = 0;
+            long varintBytes = 0;
+            for (int row = 0; row < blockRows; row++) {
+                long delta;
+                if (column == PayrollArchive.GROSS_PAY) {
+                    delta = values[row] - columns[PayrollArchive.REGULAR_PAY][row]
+                            - columns[PayrollArchive.OVERTIME_PAY][row];
+                } else {
+                    delta = values[row] - previous;
+                    previous = values[row];
+                }
+                long encoded = PayrollArchive.zigzag(delta);
+                deltas[row] = encoded;
+                bits |= encoded;
+                varintBytes += PayrollArchive.varintSize(encoded);
+            }
+
+            int start = offset;
+            int width = Long.SIZE - Long.numberOfLeadingZeros(bits);
+            if (PayrollArchive.packedSize(blockRows, width) <= varintBytes) {
+                offset = PayrollArchive.pack(blockBuffer, offset, deltas, blockRows, width);
+            } else {
+                width = PayrollArchive.VARINT;
+                for (int row = 0; row < blockRows; row++) {
+                    offset = PayrollArchive.putVarint(block, offset, deltas[row]);
+                }
+            }
+            blockBuffer.putInt(4 + column * 4, offset - start);
+            blockBuffer.put(PayrollArchive.WIDTHS + column, (byte) width);
+        }
+        crc.reset();
+        crc.update(block, 0, offset);
+        blockBuffer.putInt(offset, (int) crc.getValue());
+        int length = offset + 4;
+        writeFully(ByteBuffer.wrap(block, 0, length), position);
+
+        if (index.remaining() < PayrollArchive.INDEX_ENTRY_SIZE) {
+            index = ByteBuffer.allocate(index.capacity() * 2).order(PayrollArchive.BYTE_ORDER)
+                    .put(index.flip());
+        }
+        index.putLong(position).putLong(columns[PayrollArchive.EMPLOYEE_ID][0])
+                .putLong(columns[PayrollArchive.EMPLOYEE_ID][blockRows - 1]).putInt(length).putInt(blockRows);
+        position += length;
+        blocks++;
+        blockRows = 0;
+    }
+
+    private void writeFully(ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            offset += channel.write(buffer, offset);
+        }
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Represents the Application's headless entry point for batch payroll runs. Unlike {@link Main} it never creates a
+ * GUI so it can run on servers without a display.
+ * <pre>
+ * run &lt;timesheet&gt; &lt;output&gt; [policy]   streams a CSV/TSV timesheet through {@link BatchPayroll}
+ * wal &lt;timesheet&gt; &lt;output&gt; [rows] [millis]   like run, resumable through a {@link PayrollWal}
+ * walbench &lt;timesheet&gt; [rows] [millis]  compares run with and without the write-ahead log
+ * punches &lt;events&gt; &lt;output&gt; [policy]   pays weeks of punch events with {@link PunchPayroll}
+ * parallel &lt;timesheet&gt; [threads]   totals pay per department with {@link ParallelPayroll}
+ * shard &lt;timesheet&gt; [workers] [shards]   like parallel, across {@link ShardCoordinator} worker processes
+ * worker &lt;port&gt; [threads]          runs a {@link ShardWorker}, started by shard
+ * validate &lt;timesheet&gt;             lists the rows {@link PayrollValidator} rejects and why
+ * correct &lt;timesheet&gt; &lt;corrections&gt;  applies corrections with {@link IncrementalPayroll}
+ * ledger &lt;timesheet&gt; &lt;ledger&gt; &lt;period&gt;   appends computed rows to a {@link PayrollLedger}
+ * audit &lt;ledger&gt; [record]           verifies and totals a ledger, or prints one record
+ * archive &lt;ledger&gt; &lt;archive&gt;       compresses a ledger into a {@link PayrollArchive} and benchmarks it
+ * history &lt;archive&gt; &lt;employeeId&gt;   prints one employee's periods from an archive
+ * serve [port] [policy]           serves the payroll math over HTTP with {@link PayrollServer}
+ * load &lt;port&gt; [requests] [threads]   load tests a running server with {@link PayrollLoadTest}
+ * bench [rows]                     runs the {@link PayrollBenchmark} kernels
+ * </pre>
+ * Starting the JVM with {@code -Dpayroll.metrics=file} writes the {@link PayrollMetrics} of the command to the file
+ * once it is done, for a monitoring scraper that reads text files.
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public class BatchMain {
+
+    /**
+     * Default group commit of the wal commands: at most 4096 rows or 10 milliseconds per commit.
+     */
+    private static final int GROUP_ROWS = 4096;
+    private static final long GROUP_MILLIS = 10;
+
+    /**
+     * System property naming the file {@link PayrollMetrics#writeDump} is written to after a command.
+     */
+    static final String METRICS_PROPERTY = "payroll.metrics";
+
+    /**
+     * Runs the batch command given on the command line and prints its report.
+     * @param args command followed by its arguments
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            usage();
+            return;
+        }
+
+        try {
+            switch (args[0]) {
+                case "run":
+                    requireArgs(args, 3);
+                    OvertimePolicy policy = args.length > 3 ? OvertimePolicy.load(Paths.get(args[3]))
+                            : OvertimePolicy.DEFAULT;
+                    BatchReport report = BatchPayroll.run(Paths.get(args[1]), Paths.get(args[2]), policy,
+                            MoneyMath.DEFAULT_ROUNDING, null);
+                    StringBuilder statistics = new StringBuilder();
+                    report.appendStatistics(statistics);
+                    System.out.println(statistics.append(report));
+                    break;
+                case "wal":
+                    requireArgs(args, 3);
+                    Path output = Paths.get(args[2]);
+                    System.out.println(BatchPayroll.runWithWal(Paths.get(args[1]), output,
+                            output.resolveSibling(output.getFileName() + ".wal"), OvertimePolicy.DEFAULT,
+                            MoneyMath.DEFAULT_ROUNDING, args.length > 3 ? Integer.parseInt(args[3]) : GROUP_ROWS,
+                            TimeUnit.MILLISECONDS.toNanos(args.length > 4 ? Long.parseLong(args[4]) : GROUP_MILLIS)));
+                    break;
+                case "walbench":
+                    requireArgs(args, 2);
+                    walBenchmark(Paths.get(args[1]), args.length > 2 ? Integer.parseInt(args[2]) : GROUP_ROWS,
+                            args.length > 3 ? Long.parseLong(args[3]) : GROUP_MILLIS);
+                    break;
+                case "punches":
+                    requireArgs(args, 3);
+                    BatchReport punchReport = PunchPayroll.run(Paths.get(args[1]), Paths.get(args[2]),
+                            args.length > 3 ? OvertimePolicy.load(Paths.get(args[3])) : OvertimePolicy.DEFAULT,
+                            MoneyMath.DEFAULT_ROUNDING);
+                    StringBuilder weeks = new StringBuilder();
+                    punchReport.appendStatistics(weeks);
+                    System.out.println(weeks.append(punchReport));
+                    break;
+                case "parallel":
+                    requireArgs(args, 2);
+                    int threads = args.length > 2 ? Integer.parseInt(args[2])
+                            : Runtime.getRuntime().availableProcessors();
+                    System.out.println(ParallelPayroll.run(Paths.get(args[1]), threads));
+                    break;
+                case "shard":
+                    requireArgs(args, 2);
+                    int workers = args.length > 2 ? Integer.parseInt(args[2])
+                            : Runtime.getRuntime().availableProcessors();
+                    int shards = args.length > 3 ? Integer.parseInt(args[3])
+                            : workers * ShardCoordinator.SHARDS_PER_WORKER;
+                    System.out.println(ShardCoordinator.run(Paths.get(args[1]), workers, shards,
+                            MoneyMath.DEFAULT_ROUNDING));
+                    break;
+                case "worker":
+                    requireArgs(args, 2);
+                    ShardWorker.run(Integer.parseInt(args[1]), args.length > 2 ? Integer.parseInt(args[2]) : 1);
+                    break;
+                case "validate":
+                    requireArgs(args, 2);
+                    System.out.println(PayrollValidator.validate(Paths.get(args[1]), MoneyMath.DEFAULT_ROUNDING));
+                    break;
+                case "correct":
+                    requireArgs(args, 3);
+                    System.out.println(IncrementalPayroll.run(Paths.get(args[1]), Paths.get(args[2])));
+                    break;
+                case "ledger":
+                    requireArgs(args, 4);
+                    System.out.println(BatchPayroll.appendToLedger(Paths.get(args[1]), Paths.get(args[2]),
+                            Integer.parseInt(args[3]), MoneyMath.DEFAULT_ROUNDING));
+                    break;
+                case "audit":
+                    requireArgs(args, 2);
+                    System.out.println(args.length > 2
+                            ? LedgerAudit.record(Paths.get(args[1]), Long.parseLong(args[2]))
+                            : LedgerAudit.run(Paths.get(args[1])));
+                    break;
+                case "archive":
+                    requireArgs(args, 3);
+                    System.out.println(ArchiveBenchmark.run(Paths.get(args[1]), Paths.get(args[2])));
+                    break;
+                case "history":
+                    requireArgs(args, 3);
+                    System.out.println(history(Paths.get(args[1]), Long.parseLong(args[2])));
+                    break;
+                case "serve":
+                    PayrollServer server = new PayrollServer(
+                            args.length > 1 ? Integer.parseInt(args[1]) : PayrollServer.DEFAULT_PORT,
+                            args.length > 2 ? OvertimePolicy.load(Paths.get(args[2])) : OvertimePolicy.DEFAULT,
+                            MoneyMath.DEFAULT_ROUNDING);
+                    Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+                    server.start();
+                    System.out.println("Serving payroll on http://127.0.0.1:" + server.getPort() + " with "
+                            + server.getThreadKind() + " threads");
+                    break;
+                case "load":
+                    requireArgs(args, 2);
+                    System.out.println(PayrollLoadTest.run(Integer.parseInt(args[1]),
+                            args.length > 2 ? Integer.parseInt(args[2]) : 100_000,
+                            args.length > 3 ? Integer.parseInt(args[3]) : 16));
+                    break;
+                case "bench":
+                    PayrollBenchmark.run(args.length > 1 ? Integer.parseInt(args[1]) : 1 << 20);
+                    break;
+                default:
+                    usage();
+            }
+            String metrics = System.getProperty(METRICS_PROPERTY);
+            if (metrics != null) {
+                PayrollMetrics.writeDump(Paths.get(metrics));
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            usage();
+            System.exit(2);
+        } catch (IOException e) {
+            System.err.println("Batch run failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs a timesheet without and then with a {@link PayrollWal} next to it and compares their throughput.
+     *
+     * @param input timesheet file
+     * @param groupRows most rows in one group commit
+     * @param groupMillis longest time a row waits for its commit
+     * @throws IOException a file cannot be read or written
+     */
+    private static void walBenchmark(Path input, int groupRows, long groupMillis) throws IOException {
+        Path output = input.resolveSibling(input.getFileName() + ".bench.csv");
+        try {
+            BatchReport plain = BatchPayroll.run(input, output);
+            BatchReport logged = BatchPayroll.runWithWal(input, output,
+                    output.resolveSibling(output.getFileName() + ".wal"), OvertimePolicy.DEFAULT,
+                    MoneyMath.DEFAULT_ROUNDING, groupRows, TimeUnit.MILLISECONDS.toNanos(groupMillis));
+            System.out.println("without wal: " + plain);
+            System.out.println("with wal:    " + logged);
+            System.out.printf("wal throughput %.2fx of plain, groupRows=%d groupMillis=%d%n",
+                    logged.getRowsPerSecond() / plain.getRowsPerSecond(), groupRows, groupMillis);
+        } finally {
+            Files.deleteIfExists(output);
+        }
+    }
+
+    /**
+     * Formats every period of one employee stored in a {@link PayrollArchive}.
+     *
+     * @param path archive file
+     * @param employeeId id of the employee
+     * @return printable rows, one per period
+     * @throws IOException archive cannot be read
+     */
+    private static String history(Path path, long employeeId) throws IOException {
+        try (ArchiveReader reader = new ArchiveReader(path)) {
+            ArchiveReader.Rows rows = new ArchiveReader.Rows();
+            reader.readEmployee(employeeId, rows);
+            StringBuilder builder = new StringBuilder();
+            builder.append("employeeId=").append(employeeId).append(" periods=").append(rows.size());
+            for (int row = 0; row < rows.size(); row++) {
+                builder.append(System.lineSeparator()).append("period=").append(rows.getPeriod(row));
+                builder.append(" hoursWorked=");
+                MoneyFormat.append(builder, rows.getHoursWorked(row)).append(" hourlyPay=");
+                MoneyFormat.append(builder, rows.getHourlyPay(row)).append(" regularPay=");
+                MoneyFormat.append(builder, rows.getRegularPay(row)).append(" overtimePay=");
+                MoneyFormat.append(builder, rows.getOvertimePay(row)).append(" grossPay=");
+                MoneyFormat.append(builder, rows.getGrossPay(row));
+            }
+            return builder.toString();
+        }
+    }
+
+    /**
+     * Checks that a command was given enough arguments.
+     *
+     * @param args command line arguments including the command
+     * @param count minimum number of arguments including the command
+     */
+    private static void requireArgs(String[] args, int count) {
+        if (args.length < count) {
+            throw new IllegalArgumentException("Missing arguments for " + args[0] + ".");
+        }
+    }
+
+    private static void usage() {
+        System.err.println("Usage: BatchMain <command> [arguments]");
+        System.err.println("  run <timesheet> <output> [policy]   compute every row, optionally under a policy file");
+        System.err.println("  wal <timesheet> <output> [rows] [millis]   like run, resumable after a crash");
+        System.err.println("  walbench <timesheet> [rows] [millis]   compare run with and without the write-ahead log");
+        System.err.println("  punches <events> <output> [policy]     pay weeks of time ordered punch in/out events");
+        System.err.println("  parallel <timesheet> [threads]   total pay per department across every core");
+        System.err.println("  shard <timesheet> [workers] [shards]   like parallel, across worker processes");
+        System.err.println("  worker <port> [threads]          compute shards for a shard run, started by shard");
+        System.err.println("  validate <timesheet>             list the rejected rows of a timesheet and why");
+        System.err.println("  correct <timesheet> <corrections>   recompute only the corrected employees");
+        System.err.println("  ledger <timesheet> <ledger> <period>   append computed rows to a binary ledger");
+        System.err.println("  audit <ledger> [record]          verify and total a ledger, or print one record");
+        System.err.println("  archive <ledger> <archive>       compress a ledger into a history archive");
+        System.err.println("  history <archive> <employeeId>   print one employee's periods from an archive");
+        System.err.println("  serve [port] [policy]           serve the payroll math over HTTP on localhost");
+        System.err.println("  load <port> [requests] [threads]   load test a running payroll server");
+        System.err.println("  bench [rows]                     benchmark the payroll kernels");
+    }
+}
@@ -0,0 +1,408 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Headless payroll computation that streams a timesheet through {@link MoneyMath} one row at a time. Every input
+ * row produces one output row of {@code employee, regularPay, overtimePay, grossPay, error} using the input's
+ * delimiter, where error is empty for computed rows. Rows are validated with the same rules as
+ * {@link ControlPanel} by {@link PayrollValidator}. Hours and rates are parsed straight to fixed point and pay is written with
+ * {@link MoneyFormat}, so no objects are created per row.
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public final class BatchPayroll {
+
+    /**
+     * Size of the output buffer in bytes.
+     */
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Longest result row after the employee name: four delimiters, three amounts and the line feed.
+     */
+    static final int ROW_LENGTH = 3 * MoneyFormat.MAX_LENGTH + 5;
+
+    /**
+     * Number of rows between calls to a {@link Progress}, a power of two.
+     */
+    static final int PROGRESS_ROWS = 1 << 12;
+
+    /**
+     * Number of rows between two {@link Progress#isCancelled()} checks, a power of two.
+     */
+    static final int CANCEL_ROWS = 1 << 6;
+
+    /**
+     * Receives the progress of a run and can cancel it.
+     */
+    public interface Progress {
+
+        /**
+         * Called every {@link #PROGRESS_ROWS} rows and once after the last row.
+         *
+         * @param report counts and pay totals so far
+         * @param bytesRead bytes of the timesheet consumed so far
+         * @return true to continue, false to cancel the run
+         */
+        boolean update(BatchReport report, long bytesRead);
+
+        /**
+         * Called every {@link #CANCEL_ROWS} rows so a cancelled run stops writing within a block of rows rather
+         * than at the next {@link #update(BatchReport, long)}.
+         *
+         * @return true to cancel the run
+         */
+        default boolean isCancelled() {
+            return false;
+        }
+    }
+
+    private BatchPayroll() {
+    }
+
+    /**
+     * Computes pay for every row of a timesheet file and writes the results to another file.
+     *
+     * @param input CSV or TSV timesheet file
+     * @param output file to write results to, replaced if it exists
+     * @return {@link BatchReport} of the run
+     * @throws IOException either file cannot be read or written
+     */
+    public static BatchReport run(Path input, Path output) throws IOException {
+        return run(input, output, MoneyMath.DEFAULT_ROUNDING);
+    }
+
+    /**
+     * Computes pay for every row of a timesheet file and writes the results to another file.
+     *
+     * @param input CSV or TSV timesheet file
+     * @param output file to write results to, replaced if it exists
+     * @param roundingMode how to round fractions of a cent
+     * @return {@link BatchReport} of the run
+     * @throws IOException either file cannot be read or written
+     */
+    public static BatchReport run(Path input, Path output, RoundingMode roundingMode) throws IOException {
+        return run(input, output, roundingMode, null);
+    }
+
+    /**
+     * Computes pay for every row of a timesheet file and writes the results to another file, reporting progress
+     * as it goes. A cancelled run leaves the rows computed so far in the output.
+     *
+     * @param input CSV or TSV timesheet file
+     * @param output file to write results to, replaced if it exists
+     * @param roundingMode how to round fractions of a cent
+     * @param progress {@link Progress} to report to, or null
+     * @return {@link BatchReport} of the run
+     * @throws IOException either file cannot be read or written
+     */
+    public static BatchReport run(Path input, Path output, RoundingMode roundingMode, Progress progress)
+            throws IOException {
+        return run(input, output, OvertimePolicy.DEFAULT, roundingMode, progress);
+    }
+
+    /**
+     * Computes pay for every row of a timesheet file under an {@link OvertimePolicy} and writes the results to
+     * another file, reporting progress as it goes. Each row's hours are treated as a week's total.
+     *
+     * @param input CSV or TSV timesheet file
+     * @param output file to write results to, replaced if it exists
+     * @param policy {@link OvertimePolicy} to pay overtime by
+     * @param roundingMode how to round fractions of a cent
+     * @param progress {@link Progress} to report to, or null
+     * @return {@link BatchReport} of the run
+     * @throws IOException either file cannot be read or written
+     */
+    public static BatchReport run(Path input, Path output, OvertimePolicy policy, RoundingMode roundingMode,
+                                  Progress progress) throws IOException {
+        BatchReport report = new BatchReport();
+        BatchReport.resetPeakHeap();
+        PayrollMetrics.RunEvent event = PayrollMetrics.beginRun("run", input);
+        long start = System.nanoTime();
+
+        try (TimesheetReader reader = TimesheetReader.open(input);
+             OutputStream out = new BufferedOutputStream(Files.newOutputStream(output), OUTPUT_BUFFER_SIZE)) {
+            process(reader, out, report, policy, roundingMode, progress);
+        }
+
+        report.finish(System.nanoTime() - start, BatchReport.measurePeakHeap());
+        PayrollMetrics.endRun(event, report.getRows(), report.getRejectedRows(), report.getGrossPay());
+        return report;
+    }
+
+    /**
+     * Computes pay for every row of a timesheet file through a {@link PayrollWal}, so a run that dies part way can be
+     * run again and continue after the last group commit. Rows are committed once {@code groupRows} rows are
+     * buffered or the oldest buffered row has waited {@code groupNanos}. The output file is only written once every
+     * row is committed, after which the log is deleted.
+     *
+     * @param input CSV or TSV timesheet file
+     * @param output file to write results to, replaced if it exists
+     * @param wal write-ahead log file, resumed if it exists
+     * @param policy {@link OvertimePolicy} to pay overtime by
+     * @param roundingMode how to round fractions of a cent
+     * @param groupRows most rows in one commit
+     * @param groupNanos longest time a computed row waits for its commit
+     * @return {@link BatchReport} of the run, counting the rows of the run it resumed
+     * @throws IOException a file cannot be read or written, or the log belongs to another timesheet, policy or
+     *                     rounding mode
+     */
+    public static BatchReport runWithWal(Path input, Path output, Path wal, OvertimePolicy policy,
+                                         RoundingMode roundingMode, int groupRows, long groupNanos)
+            throws IOException {
+        if (groupRows < 1) {
+            throw new IllegalArgumentException("A group commit needs at least one row.");
+        }
+        BatchReport report = new BatchReport();
+        BatchReport.resetPeakHeap();
+        PayrollMetrics.RunEvent event = PayrollMetrics.beginRun("wal", input);
+        long start = System.nanoTime();
+
+        try (PayrollWal log = PayrollWal.open(wal, input, policy, roundingMode)) {
+            boolean resumed = !log.isEmpty();
+            if (resumed) {
+                log.restore(report);
+            }
+            try (TimesheetReader reader = resumed
+                    ? TimesheetReader.open(input, log.getInputOffset(), log.getRowNumber(), log.getDelimiter())
+                    : TimesheetReader.open(input)) {
+                OutputStream frame = log.getFrame();
+                byte[] row = new byte[ROW_LENGTH];
+                int frameRows = 0;
+                long frameStart = 0;
+                while (reader.next()) {
+                    if (!resumed && report.getRows() == 0) {
+                        writeHeader(frame, reader.getDelimiter());
+                    }
+                    writeRow(reader, frame, row, report, policy, roundingMode);
+                    if (frameRows++ == 0) {
+                        frameStart = System.nanoTime();
+                    }
+                    //the clock is only read every 64 rows
+                    if (frameRows == groupRows
+                            || ((frameRows & 63) == 0 && System.nanoTime() - frameStart >= groupNanos)) {
+                        log.commit(frameRows, reader, report);
+                        frameRows = 0;
+                    }
+                }
+                if (frameRows > 0) {
+                    log.commit(frameRows, reader, report);
+                }
+            }
+            log.checkpoint(output);
+            report.finish(System.nanoTime() - start, BatchReport.measurePeakHeap());
+        }
+        Files.delete(wal);
+        PayrollMetrics.endRun(event, report.getRows(), report.getRejectedRows(), report.getGrossPay());
+        return report;
+    }
+
+    /**
+     * Computes pay for every row of a timesheet file and appends the valid rows to a {@link PayrollLedger}. Rows are
+     * given the id of their employee's name in the ledger's {@link EmployeeIndex}, and employees new to the ledger
+     * are added to it, so ids don't depend on the order of the timesheet's rows.
+     *
+     * @param input CSV or TSV timesheet file
+     * @param ledger ledger file to append to, created if it doesn't exist
+     * @param period pay period to record the rows under
+     * @param roundingMode how to round fractions of a cent
+     * @return {@link BatchReport} of the run
+     * @throws IOException the timesheet cannot be read or the ledger written
+     */
+    public static BatchReport appendToLedger(Path input, Path ledger, int period, RoundingMode roundingMode)
+            throws IOException {
+        BatchReport report = new BatchReport();
+        BatchReport.resetPeakHeap();
+        PayrollMetrics.RunEvent event = PayrollMetrics.beginRun("ledger", input);
+        long start = System.nanoTime();
+
+        Path employeesPath = PayrollLedger.employeesPath(ledger);
+        EmployeeIndex employees = EmployeeIndex.load(employeesPath);
+        try (TimesheetReader reader = TimesheetReader.open(input);
+             LedgerWriter writer = new LedgerWriter(ledger)) {
+            while (reader.next()) {
+                boolean sampled = PayrollMetrics.isSampled(reader.getRowNumber());
+                long time = sampled ? System.nanoTime() : 0;
+                int errors = validate(reader, roundingMode);
+                if (sampled) {
+                    time = PayrollMetrics.record(PayrollMetrics.VALIDATE, time);
+                }
+                PayrollMetrics.countRow(errors);
+                if (errors != 0) {
+                    report.addRow(reader.getRowNumber(), errors);
+                    continue;
+                }
+
+                long hoursWorked = reader.getHoursWorkedHundredths();
+                long hourlyPay = reader.getHourlyPayCents();
+                long regularPay = MoneyMath.getRegularPayCents(hoursWorked, hourlyPay, roundingMode);
+                long overtimePay = MoneyMath.getOvertimePayCents(hoursWorked, hourlyPay, roundingMode);
+                long grossPay = MoneyMath.getGrossPayCents(regularPay, overtimePay);
+                if (sampled) {
+                    time = PayrollMetrics.record(PayrollMetrics.COMPUTE, time);
+                }
+                //ledger records are binary, so there is nothing to format
+                writer.append(reader.indexEmployee(employees), period, (int) hoursWorked, hourlyPay, regularPay,
+                        overtimePay, grossPay);
+                if (sampled) {
+                    PayrollMetrics.record(PayrollMetrics.OUTPUT, time);
+                }
+                report.addRow(reader.getRowNumber(), 0);
+                int department = reader.indexDepartment(report.getDepartmentIndex());
+                report.addPay(department, regularPay, overtimePay, grossPay);
+            }
+            employees.save(employeesPath);
+        }
+
+        report.finish(System.nanoTime() - start, BatchReport.measurePeakHeap());
+        PayrollMetrics.endRun(event, report.getRows(), report.getRejectedRows(), report.getGrossPay());
+        return report;
+    }
+
+    /**
+     * Computes pay for every remaining row of a reader and writes a result row for each.
+     *
+     * @param reader timesheet rows to compute
+     * @param out stream to write result rows to
+     * @param report {@link BatchReport} to count rows in
+     * @param policy {@link OvertimePolicy} to pay overtime by
+     * @param roundingMode how to round fractions of a cent
+     * @param progress {@link Progress} to report to, or null
+     * @throws IOException reader or stream failed
+     */
+    static void process(TimesheetReader reader, OutputStream out, BatchReport report, OvertimePolicy policy,
+                        RoundingMode roundingMode, Progress progress) throws IOException {
+        byte[] row = new byte[ROW_LENGTH];
+        boolean headerWritten = false;
+        while (reader.next()) {
+            long rows = report.getRows();
+            if (progress != null && (rows & (CANCEL_ROWS - 1)) == 0 && (progress.isCancelled() || rows > 0
+                    && (rows & (PROGRESS_ROWS - 1)) == 0 && !progress.update(report, reader.getBytesRead()))) {
+                report.cancel();
+                return;
+            }
+
+            if (!headerWritten) {
+                writeHeader(out, reader.getDelimiter());
+                headerWritten = true;
+            }
+            writeRow(reader, out, row, report, policy, roundingMode);
+        }
+        if (progress != null) {
+            progress.update(report, reader.getBytesRead());
+        }
+    }
+
+    /**
+     * Computes the current row of a reader and writes its result row, timing its stages in {@link PayrollMetrics}
+     * if it is a sampled row.
+     *
+     * @param reader reader positioned on a row
+     * @param out stream to write the result row to
+     * @param row scratch buffer of {@link #ROW_LENGTH} bytes
+     * @param report {@link BatchReport} to count the row in
+     * @param policy {@link OvertimePolicy} to pay overtime by
+     * @param roundingMode how to round fractions of a cent
+     * @throws IOException stream failed
+     */
+    private static void writeRow(TimesheetReader reader, OutputStream out, byte[] row, BatchReport report,
+                                 OvertimePolicy policy, RoundingMode roundingMode) throws IOException {
+        boolean sampled = PayrollMetrics.isSampled(reader.getRowNumber());
+        long time = sampled ? System.nanoTime() : 0;
+        int errors = validate(reader, roundingMode);
+        if (sampled) {
+            time = PayrollMetrics.record(PayrollMetrics.VALIDATE, time);
+        }
+        PayrollMetrics.countRow(errors);
+
+        byte delimiter = reader.getDelimiter();
+        if (errors != 0) {
+            reader.writeEmployeeName(out);
+            out.write(delimiter);
+            out.write(delimiter);
+            out.write(delimiter);
+            out.write(delimiter);
+            writeAscii(out, PayrollValidator.message(errors));
+            out.write('\n');
+            report.addRow(reader.getRowNumber(), errors);
+            return;
+        }
+
+        long hoursWorked = reader.getHoursWorkedHundredths();
+        long hourlyPay = reader.getHourlyPayCents();
+        long regularPay = policy.getRegularPayCents(hoursWorked, hourlyPay, roundingMode);
+        long overtimePay = policy.getOvertimePayCents(hoursWorked, hourlyPay, roundingMode);
+        long grossPay = MoneyMath.getGrossPayCents(regularPay, overtimePay);
+        if (sampled) {
+            time = PayrollMetrics.record(PayrollMetrics.COMPUTE, time);
+        }
+
+        //the whole row after the name is formatted first so it goes out in one write
+        row[0] = delimiter;
+        int length = MoneyFormat.format(regularPay, row, 1);
+        row[length++] = delimiter;
+        length = MoneyFormat.format(overtimePay, row, length);
+        row[length++] = delimiter;
+        length = MoneyFormat.format(grossPay, row, length);
+        row[length++] = delimiter;
+        row[length++] = '\n';
+        if (sampled) {
+            time = PayrollMetrics.record(PayrollMetrics.FORMAT, time);
+        }
+
+        reader.writeEmployeeName(out);
+        out.write(row, 0, length);
+        if (sampled) {
+            PayrollMetrics.record(PayrollMetrics.OUTPUT, time);
+        }
+        report.addRow(reader.getRowNumber(), 0);
+        int department = reader.indexDepartment(report.getDepartmentIndex());
+        report.addPay(department, regularPay, overtimePay, grossPay);
+    }
+
+    /**
+     * Parses and validates the current row of a reader with {@link PayrollValidator}.
+     *
+     * @param reader reader positioned on a row
+     * @param roundingMode how to round digits past the second decimal place
+     * @return error bits of the row, 0 if it can be computed
+     */
+    private static int validate(TimesheetReader reader, RoundingMode roundingMode) {
+        if (!reader.parseFixed(roundingMode)) {
+            return PayrollValidator.MALFORMED;
+        }
+        return PayrollValidator.check(reader.getHoursWorkedHundredths(), reader.getHourlyPayCents());
+    }
+
+    private static void writeHeader(OutputStream out, byte delimiter) throws IOException {
+        String[] columns = {"employee", "regularPay", "overtimePay", "grossPay", "error"};
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                out.write(delimiter);
+            }
+            writeAscii(out, columns[i]);
+        }
+        out.write('\n');
+    }
+
+    private static void writeAscii(OutputStream out, String text) throws IOException {
+        out.write(text.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents the outcome of a headless payroll run: how many rows were computed or rejected, totals and
+ * {@link PayrollStatistics} per department, how long it took and the peak heap used while it ran.
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public class BatchReport {
+
+    private long rows;
+    private long rejectedRows;
+    private long elapsedNanos;
+    private long peakHeapBytes;
+    private long regularPay;
+    private long overtimePay;
+    private long grossPay;
+    private boolean cancelled;
+    private long resumedRows;
+    private final EmployeeIndex departmentIndex = new EmployeeIndex(16);
+    private final PayrollTotals departmentTotals = new PayrollTotals(16);
+    private final PayrollStatistics statistics = new PayrollStatistics(16);
+    private final ValidationReport validation = new ValidationReport();
+
+    /**
+     * Resets the peak usage of every heap memory pool so {@link #measurePeakHeap()} only covers the current run.
+     */
+    static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * Sums the peak usage of every heap memory pool since the last {@link #resetPeakHeap()}. Pools peak at different
+     * times so this is an upper bound on the real peak.
+     *
+     * @return peak heap usage in bytes
+     */
+    static long measurePeakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    /**
+     * Counts a row and records why it was rejected.
+     *
+     * @param rowNumber 1 based row number
+     * @param errors {@link PayrollValidator} error bits of the row, 0 if it was computed
+     */
+    void addRow(long rowNumber, int errors) {
+        rows++;
+        validation.addRows(1);
+        if (errors != 0) {
+            rejectedRows++;
+            validation.add(rowNumber, errors);
+        }
+    }
+
+    void addPay(int department, long regularPay, long overtimePay, long grossPay) {
+        this.regularPay += regularPay;
+        this.overtimePay += overtimePay;
+        this.grossPay += grossPay;
+        departmentTotals.add(department, regularPay, overtimePay, grossPay);
+        statistics.add(department, overtimePay, grossPay);
+    }
+
+    /**
+     * @return index that assigns departments the ids passed to {@link #addPay}
+     */
+    EmployeeIndex getDepartmentIndex() {
+        return departmentIndex;
+    }
+
+    /**
+     * Continues the counts and totals of an earlier run, see {@link PayrollWal}, including its count of each
+     * rejection reason. Department totals and statistics only cover the rows computed after this.
+     */
+    void resume(long rows, long rejectedRows, long[] errorCounts, long regularPay, long overtimePay,
+                long grossPay) {
+        this.rows = rows;
+        this.rejectedRows = rejectedRows;
+        this.regularPay = regularPay;
+        this.overtimePay = overtimePay;
+        this.grossPay = grossPay;
+        this.resumedRows = rows;
+        validation.resume(rows, rejectedRows, errorCounts);
+    }
+
+    void cancel() {
+        cancelled = true;
+    }
+
+    void finish(long elapsedNanos, long peakHeapBytes) {
+        this.elapsedNanos = elapsedNanos;
+        this.peakHeapBytes = peakHeapBytes;
+    }
+
+    /**
+     * @return the rows rejected by {@link PayrollValidator} and why, the rows rejected before a resume are counted
+     * but not kept
+     */
+    public ValidationReport getValidation() {
+        return validation;
+    }
+
+    /**
+     * @return number of data rows read, including rejected rows
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * @return number of rows that were malformed or failed validation
+     */
+    public long getRejectedRows() {
+        return rejectedRows;
+    }
+
+    /**
+     * @return total regular pay of the computed rows in cents
+     */
+    public long getRegularPay() {
+        return regularPay;
+    }
+
+    /**
+     * @return total overtime pay of the computed rows in cents
+     */
+    public long getOvertimePay() {
+        return overtimePay;
+    }
+
+    /**
+     * @return total gross pay of the computed rows in cents
+     */
+    public long getGrossPay() {
+        return grossPay;
+    }
+
+    /**
+     * @return department names in order of first appearance, indexed like {@link #getDepartmentTotals()}
+     */
+    public List<String> getDepartments() {
+        List<String> departments = new ArrayList<>(departmentIndex.size());
+        for (int i = 0; i < departmentIndex.size(); i++) {
+            departments.add(departmentIndex.getName(i));
+        }
+        return departments;
+    }
+
+    /**
+     * @return pay totals of the computed rows per department
+     */
+    public PayrollTotals getDepartmentTotals() {
+        return departmentTotals;
+    }
+
+    /**
+     * @return gross pay percentiles and overtime share of the computed rows per department
+     */
+    public PayrollStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Appends the table of gross pay percentiles and overtime share per department.
+     *
+     * @param builder StringBuilder to append to
+     */
+    public void appendStatistics(StringBuilder builder) {
+        statistics.appendTable(builder, getDepartments(), departmentTotals);
+    }
+
+    /**
+     * @return number of rows that were already computed by an earlier run this one resumed
+     */
+    public long getResumedRows() {
+        return resumedRows;
+    }
+
+    /**
+     * @return true if the run was cancelled before the end of the timesheet
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return wall clock time of the run in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return peak heap usage in bytes during the run
+     */
+    public long getPeakHeapBytes() {
+        return peakHeapBytes;
+    }
+
+    /**
+     * @return rows processed per second of wall clock time
+     */
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0.0 : (rows - resumedRows) * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("rows=").append(rows).append(" rejected=").append(rejectedRows);
+        if (validation.size() > 0) {
+            validation.appendCounts(builder.append(" (")).append(')');
+        }
+        builder.append(String.format("%s%s grossPay=", resumedRows > 0 ? " resumed=" + resumedRows : "",
+                cancelled ? " (cancelled)" : ""));
+        MoneyFormat.append(builder, grossPay);
+        builder.append(String.format(" elapsed=%.3fs rows/sec=%.0f peakHeap=%.1fMiB",
+                elapsedNanos / 1e9, getRowsPerSecond(), peakHeapBytes / (1024.0 * 1024.0)));
+        return builder.toString();
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import java.math.RoundingMode;
+
+/**
+ * Columnar version of the {@link MathHelper} payroll math that computes whole arrays of employees in one pass.
+ * The 40 hour split is done with min/max instead of branches, which lets the loop run on SIMD lanes.
+ * <p>When the JVM is started with {@code --add-modules jdk.incubator.vector} the double kernel uses the Vector API,
+ * otherwise a scalar loop. The choice is made once when the class loads and can be forced to the scalar loop with
+ * {@code -Dpayroll.vector=false}. Both kernels give the same results as {@link MathHelper} for valid input.</p>
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public final class ColumnarPayroll {
+
+    /**
+     * Computes pay for the range [from, to) of the given columns.
+     */
+    interface Kernel {
+        void compute(double[] hoursWorked, double[] hourlyPay, double[] regularPay, double[] overtimePay,
+                     double[] grossPay, int from, int to);
+    }
+
+    /**
+     * Largest hourly pay in cents the HALF_UP fast path of {@link #computeCents} takes without risking overflow.
+     */
+    private static final long MAX_FAST_HOURLY_PAY = Long.MAX_VALUE / (3 * MoneyMath.HOURS_IN_WEEK) - 1;
+
+    /**
+     * Plain loop kernel that is always available.
+     */
+    static final Kernel SCALAR_KERNEL = ColumnarPayroll::computeScalar;
+
+    /**
+     * Kernel selected when the class was loaded.
+     */
+    private static final Kernel KERNEL = selectKernel();
+
+    private ColumnarPayroll() {
+    }
+
+    /**
+     * Computes regular, overtime and gross pay for every employee. All arrays must be at least as long as
+     * hoursWorked.
+     *
+     * @param hoursWorked hours worked by each employee
+     * @param hourlyPay hourly pay of each employee
+     * @param regularPay filled with the regular pay of each employee
+     * @param overtimePay filled with the overtime pay of each employee
+     * @param grossPay filled with the gross pay of each employee
+     */
+    public static void compute(double[] hoursWorked, double[] hourlyPay, double[] regularPay, double[] overtimePay,
+                               double[] grossPay) {
+        compute(hoursWorked, hourlyPay, regularPay, overtimePay, grossPay, 0, hoursWorked.length);
+    }
+
+    /**
+     * Computes regular, overtime and gross pay for the employees in [from, to).
+     *
+     * @param hoursWorked hours worked by each employee
+     * @param hourlyPay hourly pay of each employee
+     * @param regularPay filled with the regular pay of each employee
+     * @param overtimePay filled with the overtime pay of each employee
+     * @param grossPay filled with the gross pay of each employee
+     * @param from first employee to compute
+     * @param to one past the last employee to compute
+     */
+    public static void compute(double[] hoursWorked, double[] hourlyPay, double[] regularPay, double[] overtimePay,
+                               double[] grossPay, int from, int to) {
+        KERNEL.compute(hoursWorked, hourlyPay, regularPay, overtimePay, grossPay, from, to);
+    }
+
+    /**
+     * Computes regular, overtime and gross pay in cents for the employees in [from, to) with {@link MoneyMath}.
+     * Valid rows rounded HALF_UP, by far the common case, skip the general rounding code and overflow checks.
+     *
+     * @param hoursWorked hours worked by each employee in hundredths of an hour
+     * @param hourlyPay hourly pay of each employee in cents
+     * @param regularPay filled with the regular pay of each employee in cents
+     * @param overtimePay filled with the overtime pay of each employee in cents
+     * @param grossPay filled with the gross pay of each employee in cents
+     * @param from first employee to compute
+     * @param to one past the last employee to compute
+     * @param roundingMode how to round fractions of a cent
+     */
+    public static void computeCents(long[] hoursWorked, long[] hourlyPay, long[] regularPay, long[] overtimePay,
+                                    long[] grossPay, int from, int to, RoundingMode roundingMode) {
+        boolean halfUp = roundingMode == RoundingMode.HALF_UP;
+        for (int i = from; i < to; i++) {
+            long hours = hoursWorked[i];
+            long rate = hourlyPay[i];
+            long regular;
+            long overtime;
+            if (halfUp && hours >= 0 && hours <= MoneyMath.HOURS_IN_WEEK && rate >= 0 && rate <= MAX_FAST_HOURLY_PAY) {
+                //non negative, so rounding half up is adding half the divisor before truncating
+                regular = (Math.min(hours, MoneyMath.REGULAR_HOURS) * rate + 50) / 100;
+                overtime = (Math.max(hours - MoneyMath.REGULAR_HOURS, 0) * rate * 3 + 100) / 200;
+            } else {
+                regular = MoneyMath.getRegularPayCents(hours, rate, roundingMode);
+                overtime = MoneyMath.getOvertimePayCents(hours, rate, roundingMode);
+            }
+            regularPay[i] = regular;
+            overtimePay[i] = overtime;
+            grossPay[i] = MoneyMath.getGrossPayCents(regular, overtime);
+        }
+    }
+
+    /**
+     * @return name of the kernel in use, for reports
+     */
+    public static String getKernelName() {
+        return KERNEL == SCALAR_KERNEL ? "scalar" : "vector";
+    }
+
+    static void computeScalar(double[] hoursWorked, double[] hourlyPay, double[] regularPay, double[] overtimePay,
+                              double[] grossPay, int from, int to) {
+        for (int i = from; i < to; i++) {
+            double hours = hoursWorked[i];
+            double rate = hourlyPay[i];
+            double regular = Math.min(hours, 40.0) * rate;
+            double overtime = Math.max(hours - 40.0, 0.0) * (1.5 * rate);
+            regularPay[i] = regular;
+            overtimePay[i] = overtime;
+            grossPay[i] = regular + overtime;
+        }
+    }
+
+    /**
+     * Uses {@link VectorPayrollKernel} if the Vector API module is in the boot layer and not disabled, otherwise
+     * {@link #SCALAR_KERNEL}.
+     */
+    private static Kernel selectKernel() {
+        if (!Boolean.parseBoolean(System.getProperty("payroll.vector", "true"))
+                || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return SCALAR_KERNEL;
+        }
+        try {
+            return (Kernel) Class.forName("PayrollSystem.VectorPayrollKernel").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return SCALAR_KERNEL;
+        }
+    }
+}
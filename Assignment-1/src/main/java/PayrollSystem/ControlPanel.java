@@ -13,6 +13,11 @@ package PayrollSystem;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionListener;
+import java.io.File;
+import java.io.IOException;
+import java.math.RoundingMode;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Represents a Control Panel for a larger frame application
@@ -33,20 +38,52 @@ public class ControlPanel extends JPanel {
      */
     private final OutputPanel outputPanel;
 
+    /**
+     * Represents a ReportPanel to display the per department statistics of an import
+     */
+    private final ReportPanel reportPanel;
+
     /**
      * Represents an ApplicationFrame to display errors found within the {@link ControlPanel#computeButtonListener()}
      */
     private final ApplicationFrame applicationFrame;
 
+    /**
+     * Represents the rounding mode used for fractions of a cent by {@link ControlPanel#computeButtonListener()}
+     */
+    private final RoundingMode roundingMode = MoneyMath.DEFAULT_ROUNDING;
+
+    /**
+     * Reusable buffer {@link MoneyFormat} writes the computed pay into before it is displayed.
+     */
+    private final StringBuilder payText = new StringBuilder(MoneyFormat.MAX_LENGTH);
+
+    /**
+     * Represents the button that starts a timesheet import and cancels it while it runs.
+     */
+    private JButton importButton;
+
+    /**
+     * Represents the import running in the background, null when no import is running.
+     */
+    private PayrollImportWorker importWorker;
+
+    /**
+     * Represents the latest single employee computation running in the background.
+     */
+    private SwingWorker<long[], Void> computeWorker;
+
     /**
      * Creates a jburges.ControlPanel with specified {@link InputPanel} and {@link OutputPanel}.
      * @param inputPanel {@link InputPanel} to be used to get input variables
      * @param outputPanel {@link OutputPanel} to be used to display output variables
+     * @param reportPanel {@link ReportPanel} to be used to display import statistics
      * @param applicationFrame Parent frame that the control panel exists in
      */
-    public ControlPanel(InputPanel inputPanel, OutputPanel outputPanel, ApplicationFrame applicationFrame) {
+    public ControlPanel(InputPanel inputPanel, OutputPanel outputPanel, ReportPanel reportPanel,
+                        ApplicationFrame applicationFrame) {
         //Calls super() and sets size constraints, color, and border
-        super(new GridLayout(1, 3));
+        super(new GridLayout(1, 6));
         this.setBackground(new Color(255, 105, 97));
         this.setPreferredSize(new Dimension(100, 50));
         this.setBorder(BorderFactory.createEmptyBorder(5,5,5,5));
@@ -55,32 +92,49 @@ public class ControlPanel extends JPanel {
         //to be used by computeButton
         this.inputPanel = inputPanel;
         this.outputPanel = outputPanel;
+        this.reportPanel = reportPanel;
         this.applicationFrame = applicationFrame;
 
         createAndAddButtons();
     }
 
     /**
-     * Creates and adds three buttons to this class: Clear, Compute, and Quit. Every button has its own ActionListener:
+     * Creates and adds six buttons to this class: Clear, Compute, Import, View, Metrics, and Quit. Every button has
+     * its own ActionListener:
      * {@link ControlPanel#clearButtonListener()}
      * {@link ControlPanel#computeButtonListener()}
+     * {@link ControlPanel#importButtonListener()}
+     * {@link ControlPanel#viewButtonListener()}
+     * {@link ControlPanel#metricsButtonListener()}
      * {@link ControlPanel#quitButtonListener()}
      */
     private void createAndAddButtons() {
         JButton clearButton = new JButton("Clear");
         JButton computeButton = new JButton("Compute");
+        importButton = new JButton("Import");
+        JButton viewButton = new JButton("View");
+        JButton metricsButton = new JButton("Metrics");
         JButton quitButton = new JButton("Quit");
 
         clearButton.setPreferredSize(new Dimension(25, 25));
         computeButton.setPreferredSize(new Dimension(25, 25));
+        importButton.setPreferredSize(new Dimension(25, 25));
+        viewButton.setPreferredSize(new Dimension(25, 25));
+        metricsButton.setPreferredSize(new Dimension(25, 25));
         quitButton.setPreferredSize(new Dimension(25, 25));
 
         clearButton.addActionListener(clearButtonListener());
         computeButton.addActionListener(computeButtonListener());
+        importButton.addActionListener(importButtonListener());
+        viewButton.addActionListener(viewButtonListener());
+        metricsButton.addActionListener(metricsButtonListener());
         quitButton.addActionListener(quitButtonListener());
 
         this.add(clearButton, BorderLayout.WEST);
         this.add(computeButton, BorderLayout.CENTER);
+        this.add(importButton, BorderLayout.CENTER);
+        this.add(viewButton, BorderLayout.CENTER);
+        this.add(metricsButton, BorderLayout.CENTER);
         this.add(quitButton, BorderLayout.EAST);
     }
 
@@ -95,6 +149,8 @@ public class ControlPanel extends JPanel {
         outputPanel.getRegularPayLabel().setText("");
         outputPanel.getOvertimePayLabel().setText("");
         outputPanel.getGrossPayLabel().setText("");
+        outputPanel.getImportProgressBar().setValue(0);
+        reportPanel.clear();
 
         //Repaints both panels so the changes made above are now seen by the user
         inputPanel.repaint();
@@ -116,56 +172,190 @@ public class ControlPanel extends JPanel {
 
     /**
      * Returns a new ActionListener with an override of actionPerformed event that upon evoked will
-     * gather the variables from an jburges.InputPanel's JFormattedTextField and JTextField and pass them to {@link MathHelper} to compute.
-     * Those are then sent to an jburges.OutputPanel's JLabel and displayed. jburges.InputPanel and OutPanel then are redrawn.
+     * gather the variables from an jburges.InputPanel's JFormattedTextField and JTextField and pass them to {@link MoneyMath} to compute.
+     * Validation and math run on a background SwingWorker and the results are then sent to an jburges.OutputPanel's
+     * JLabel and displayed. A newer computation cancels one that hasn't finished yet.
      *
      * @return ActionListener
      * @see InputPanel
      * @see OutputPanel
-     * @see MathHelper
+     * @see MoneyMath
      */
     private ActionListener computeButtonListener() {
         return actionEvent -> {
-            //sets outputPanel's employee label to whatever is in inputPanel's employeeName field
-            outputPanel.getEmployeeNameLabel()
-                    .setText(inputPanel.getEmployeeNameTextField().getText());
-
+            //Swing components are only read on the Event Dispatch Thread
+            String employeeName = inputPanel.getEmployeeNameTextField().getText();
             double hoursWorked = ((Number)inputPanel.getHoursWorkedTextField().getValue()).doubleValue();
             double hourlyPayRate = ((Number)inputPanel.getHourlyPayRateTextField().getValue()).doubleValue();
 
-            if (hoursWorked < 0) {
-                JOptionPane.showMessageDialog(applicationFrame, "Hours worked cannot be negative.");
-                clearPanels();
-                return;
+            if (computeWorker != null) {
+                computeWorker.cancel(false);
             }
+            computeWorker = new SwingWorker<long[], Void>() {
+                private String error;
+
+                @Override
+                protected long[] doInBackground() {
+                    PayrollMetrics.ComputeEvent event = PayrollMetrics.beginCompute("gui");
+                    long time = System.nanoTime();
+
+                    //Converts to hundredths of an hour and cents so the pay is exact, and checks them with the same
+                    //PayrollValidator rules as batch runs
+                    long hoursWorkedHundredths = 0;
+                    long hourlyPayCents = 0;
+                    int errors;
+                    try {
+                        hoursWorkedHundredths = MoneyMath.toFixed(hoursWorked, 2, roundingMode);
+                        hourlyPayCents = MoneyMath.toFixed(hourlyPayRate, 2, roundingMode);
+                        errors = PayrollValidator.check(hoursWorkedHundredths, hourlyPayCents);
+                    } catch (ArithmeticException | NumberFormatException e) {
+                        //too large for fixed point, or not a finite number
+                        errors = PayrollValidator.MALFORMED;
+                    }
+                    time = PayrollMetrics.record(PayrollMetrics.VALIDATE, time);
+                    if (errors != 0) {
+                        error = PayrollValidator.message(errors);
+                        PayrollMetrics.endCompute(event, hoursWorkedHundredths, hourlyPayCents, 0, errors);
+                        return null;
+                    }
+
+                    long regularPay = MoneyMath.getRegularPayCents(hoursWorkedHundredths, hourlyPayCents, roundingMode);
+                    long overtimePay = MoneyMath.getOvertimePayCents(hoursWorkedHundredths, hourlyPayCents, roundingMode);
+                    long grossPay = MoneyMath.getGrossPayCents(regularPay, overtimePay);
+                    PayrollMetrics.record(PayrollMetrics.COMPUTE, time);
+                    PayrollMetrics.endCompute(event, hoursWorkedHundredths, hourlyPayCents, grossPay, 0);
+                    return new long[] {regularPay, overtimePay, grossPay};
+                }
+
+                @Override
+                protected void done() {
+                    if (isCancelled()) {
+                        return;
+                    }
+                    try {
+                        long[] pay = get();
+                        if (error != null) {
+                            JOptionPane.showMessageDialog(applicationFrame, error);
+                            clearPanels();
+                            return;
+                        }
+                        showPay(employeeName, pay[0], pay[1], pay[2]);
+                    } catch (ExecutionException e) {
+                        JOptionPane.showMessageDialog(applicationFrame, "Pay cannot be computed: "
+                                + e.getCause().getMessage());
+                        clearPanels();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            };
+            computeWorker.execute();
+        };
+    }
+
+    /**
+     * Displays computed pay in the outputPanel.
+     *
+     * @param employeeName name of the employee
+     * @param regularPay regular pay in cents
+     * @param overtimePay overtime pay in cents
+     * @param grossPay gross pay in cents
+     */
+    private void showPay(String employeeName, long regularPay, long overtimePay, long grossPay) {
+        long time = System.nanoTime();
+        String regularPayText = formatPay(regularPay);
+        String overtimePayText = formatPay(overtimePay);
+        String grossPayText = formatPay(grossPay);
+        time = PayrollMetrics.record(PayrollMetrics.FORMAT, time);
+
+        //sets outputPanel's employee label to whatever was in inputPanel's employeeName field
+        outputPanel.getEmployeeNameLabel().setText(employeeName);
+        outputPanel.getRegularPayLabel().setText(regularPayText);
+        outputPanel.getOvertimePayLabel().setText(overtimePayText);
+        outputPanel.getGrossPayLabel().setText(grossPayText);
 
-            if (hourlyPayRate < 0) {
-                JOptionPane.showMessageDialog(applicationFrame, "Hourly rate cannot be negative.");
-                clearPanels();
+        inputPanel.repaint();
+        outputPanel.repaint();
+        PayrollMetrics.record(PayrollMetrics.OUTPUT, time);
+    }
+
+    /**
+     * Returns a new ActionListener with an override of actionPerformed event that upon evoked will ask for a
+     * timesheet and import it with a {@link PayrollImportWorker}, writing the computed rows next to it as
+     * name.results.csv. While an import runs the button cancels it instead.
+     *
+     * @return ActionListener
+     * @see BatchPayroll
+     */
+    private ActionListener importButtonListener() {
+        return actionEvent -> {
+            if (importWorker != null) {
+                importWorker.cancel(false);
                 return;
             }
 
-            if (24 * 7 < hoursWorked) {
-                JOptionPane.showMessageDialog(applicationFrame, "Hours worked cannot exceed hours in a week.");
-                clearPanels();
+            JFileChooser chooser = new JFileChooser();
+            if (chooser.showOpenDialog(applicationFrame) != JFileChooser.APPROVE_OPTION) {
                 return;
             }
+            File file = chooser.getSelectedFile();
+            Path input = file.toPath();
+            String name = file.getName();
+            int extension = name.lastIndexOf('.');
+            Path output = input.resolveSibling((extension > 0 ? name.substring(0, extension) : name) + ".results.csv");
 
-            //Computes and assigns regularPay and displayed to the outputPanel
-            double regularPay = MathHelper.getRegularPay(hoursWorked, hourlyPayRate);
-            outputPanel.getRegularPayLabel().setText(Double.toString(regularPay));
+            outputPanel.getImportProgressBar().setValue(0);
+            importButton.setText("Cancel");
+            importWorker = new PayrollImportWorker(input, output, roundingMode, outputPanel, reportPanel,
+                    applicationFrame, () -> {
+                        importWorker = null;
+                        importButton.setText("Import");
+                    });
+            importWorker.execute();
+        };
+    }
 
-            //Computes and assigns overtimePay and displayed to the outputPanel
-            double overtimePay = MathHelper.getOvertimePay(hoursWorked, hourlyPayRate);
-            outputPanel.getOvertimePayLabel().setText(Double.toString(overtimePay));
+    /**
+     * Returns a new ActionListener with an override of actionPerformed event that upon evoked will ask for a
+     * {@link PayrollLedger} and browse its records in a {@link ResultsFrame}.
+     *
+     * @return ActionListener
+     * @see LedgerTableModel
+     */
+    private ActionListener viewButtonListener() {
+        return actionEvent -> {
+            JFileChooser chooser = new JFileChooser();
+            if (chooser.showOpenDialog(applicationFrame) != JFileChooser.APPROVE_OPTION) {
+                return;
+            }
+            try {
+                new ResultsFrame(chooser.getSelectedFile().toPath());
+            } catch (IOException e) {
+                JOptionPane.showMessageDialog(applicationFrame, "Ledger cannot be opened: " + e.getMessage());
+            }
+        };
+    }
 
-            //Computes and assigns grossPay and displayed to the outputPanel
-            double grossPay = MathHelper.getGrossPay(regularPay, overtimePay);
-            outputPanel.getGrossPayLabel().setText(Double.toString(grossPay));
+    /**
+     * Returns a new ActionListener with an override of actionPerformed event that upon evoked will open a
+     * {@link MetricsFrame} with the row counts and stage latencies of every computation so far.
+     *
+     * @return ActionListener
+     * @see PayrollMetrics
+     */
+    private ActionListener metricsButtonListener() {
+        return actionEvent -> new MetricsFrame();
+    }
 
-            inputPanel.repaint();
-            outputPanel.repaint();
-        };
+    /**
+     * Formats cents as dollars using the reusable {@link ControlPanel#payText} buffer.
+     *
+     * @param cents amount to format
+     * @return cents formatted as dollars, e.g. 950.00
+     */
+    private String formatPay(long cents) {
+        payText.setLength(0);
+        return MoneyFormat.append(payText, cents).toString();
     }
 
     /**
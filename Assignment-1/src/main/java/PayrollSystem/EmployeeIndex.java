@@ -0,0 +1,291 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Maps employee names to dense ids 0, 1, 2... in order of first appearance, so an id doubles as the employee's row
+ * in a columnar store. Names with few distinct values, such as departments, can be indexed the same way.
+ * <p>The index is built from primitive arrays only: names are stored back to back as UTF-8 bytes in one arena and
+ * found through an open addressing table with linear probing. There is no String, boxed Integer or map entry per
+ * employee, so ten million employees take roughly their name bytes plus 20 bytes each instead of the ~100 bytes
+ * each of a {@code HashMap<String, Integer>}. Lookups can be made straight from a byte buffer without decoding the
+ * name. The arena holds at most 2 GiB of names.</p>
+ * <p>An index can be saved as a file of names, one per line in id order, so ids stay the same from run to run.
+ * Names are only ever appended to the file, like the records of the ledger it is kept with.</p>
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public final class EmployeeIndex {
+
+    /**
+     * Largest fraction of {@link #slots} that may be in use before the table doubles.
+     */
+    private static final double MAX_LOAD = 0.5;
+
+    /**
+     * Open addressing table of id + 1 for every used slot, 0 for empty slots. Its length is a power of two.
+     */
+    private int[] slots;
+
+    /**
+     * Hash of each id's name, kept so probing and resizing rarely have to compare name bytes.
+     */
+    private int[] hashes;
+
+    /**
+     * Start of each id's name in {@link #arena}, the name ends where the next one starts.
+     */
+    private int[] offsets;
+
+    private byte[] arena;
+    private int arenaSize;
+    private int size;
+
+    /**
+     * Number of names and bytes already in the file the index was loaded from or saved to.
+     */
+    private int savedNames;
+    private long savedBytes;
+
+    /**
+     * Creates an EmployeeIndex sized for the given number of employees, growing as needed.
+     *
+     * @param expectedEmployees number of employees expected
+     */
+    public EmployeeIndex(int expectedEmployees) {
+        int capacity = Math.max(16, expectedEmployees);
+        slots = new int[tableSize(capacity)];
+        hashes = new int[capacity];
+        offsets = new int[capacity + 1];
+        arena = new byte[capacity * 8];
+    }
+
+    /**
+     * Looks up a UTF-8 encoded name, adding it with the next id if it isn't indexed yet.
+     *
+     * @param bytes array holding the name
+     * @param offset start of the name in bytes
+     * @param length length of the name in bytes
+     * @return id of the name
+     */
+    public int getOrAdd(byte[] bytes, int offset, int length) {
+        int hash = hash(bytes, offset, length);
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id < 0) {
+                id = add(bytes, offset, length, hash);
+                slots[slot] = id + 1;
+                if (size > slots.length * MAX_LOAD) {
+                    rehash(slots.length * 2);
+                }
+                return id;
+            }
+            if (hashes[id] == hash && nameEquals(id, bytes, offset, length)) {
+                return id;
+            }
+        }
+    }
+
+    /**
+     * Looks up a UTF-8 encoded name.
+     *
+     * @param bytes array holding the name
+     * @param offset start of the name in bytes
+     * @param length length of the name in bytes
+     * @return id of the name, or -1 if it isn't indexed
+     */
+    public int get(byte[] bytes, int offset, int length) {
+        int hash = hash(bytes, offset, length);
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id < 0 || (hashes[id] == hash && nameEquals(id, bytes, offset, length))) {
+                return id;
+            }
+        }
+    }
+
+    /**
+     * Looks up a name, adding it with the next id if it isn't indexed yet. Encodes the name, so prefer
+     * {@link #getOrAdd(byte[], int, int)} in bulk.
+     *
+     * @param name employee name
+     * @return id of the name
+     */
+    public int getOrAdd(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        return getOrAdd(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Looks up a name. Encodes the name, so prefer {@link #get(byte[], int, int)} in bulk.
+     *
+     * @param name employee name
+     * @return id of the name, or -1 if it isn't indexed
+     */
+    public int get(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        return get(bytes, 0, bytes.length);
+    }
+
+    /**
+     * @param id id of an indexed name
+     * @return the name with that id
+     */
+    public String getName(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("Id " + id + " of " + size);
+        }
+        return new String(arena, offsets[id], offsets[id + 1] - offsets[id], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return number of indexed names, which is also the next id
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Loads an index saved by {@link #save(Path)}.
+     *
+     * @param path file of names, one per line in id order
+     * @return the loaded index, or an empty index if the file doesn't exist
+     * @throws IOException file cannot be read
+     */
+    public static EmployeeIndex load(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return new EmployeeIndex(1024);
+        }
+        byte[] bytes = Files.readAllBytes(path);
+        EmployeeIndex index = new EmployeeIndex(Math.max(1024, bytes.length / 8));
+        int start = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '\n') {
+                if (index.getOrAdd(bytes, start, i - start) != index.size - 1) {
+                    throw new IOException("Duplicate name on line " + index.size + " of " + path + ".");
+                }
+                start = i + 1;
+            }
+        }
+        //a last name without its newline was cut short by an interrupted save, the next save writes over it
+        index.savedNames = index.size;
+        index.savedBytes = start;
+        return index;
+    }
+
+    /**
+     * Appends the names added since the index was loaded or last saved to a file, one per line, creating the file
+     * if it doesn't exist.
+     *
+     * @param path file the index was loaded from
+     * @throws IOException file cannot be written
+     */
+    public void save(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.truncate(savedBytes);
+            channel.position(savedBytes);
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+            for (int id = savedNames; id < size; id++) {
+                out.write(arena, offsets[id], offsets[id + 1] - offsets[id]);
+                out.write('\n');
+            }
+            out.flush();
+            savedBytes = channel.position();
+        }
+        savedNames = size;
+    }
+
+    /**
+     * @return bytes of heap held by the index's arrays
+     */
+    public long memoryBytes() {
+        return 4L * slots.length + 4L * hashes.length + 4L * offsets.length + arena.length;
+    }
+
+    private int add(byte[] bytes, int offset, int length, int hash) {
+        if (size == hashes.length) {
+            int capacity = size * 2;
+            hashes = Arrays.copyOf(hashes, capacity);
+            offsets = Arrays.copyOf(offsets, capacity + 1);
+        }
+        if (arenaSize + length > arena.length) {
+            long capacity = Math.max((long) arena.length * 2, (long) arenaSize + length);
+            if (capacity > Integer.MAX_VALUE - 8) {
+                capacity = Integer.MAX_VALUE - 8;
+                if (arenaSize + length > capacity) {
+                    throw new IllegalStateException("Employee index is full.");
+                }
+            }
+            arena = Arrays.copyOf(arena, (int) capacity);
+        }
+
+        System.arraycopy(bytes, offset, arena, arenaSize, length);
+        arenaSize += length;
+        hashes[size] = hash;
+        offsets[size + 1] = arenaSize;
+        return size++;
+    }
+
+    private boolean nameEquals(int id, byte[] bytes, int offset, int length) {
+        int start = offsets[id];
+        return offsets[id + 1] - start == length
+                && Arrays.equals(arena, start, start + length, bytes, offset, offset + length);
+    }
+
+    /**
+     * Rebuilds {@link #slots} at a new size from the stored hashes.
+     */
+    private void rehash(int tableSize) {
+        int[] table = new int[tableSize];
+        int mask = tableSize - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = id + 1;
+        }
+        slots = table;
+    }
+
+    /**
+     * @return smallest power of two table that holds capacity names under {@link #MAX_LOAD}
+     */
+    private static int tableSize(int capacity) {
+        return Integer.highestOneBit((int) Math.min(capacity / MAX_LOAD, 1 << 30) - 1) << 1;
+    }
+
+    /**
+     * FNV-1a over the name bytes with a final mix so the low bits used for the slot are well spread.
+     */
+    private static int hash(byte[] bytes, int offset, int length) {
+        int hash = 0x811C9DC5;
+        for (int i = offset; i < offset + length; i++) {
+            hash = (hash ^ bytes[i]) * 0x01000193;
+        }
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        return hash ^ (hash >>> 13);
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import java.io.IOException;
+import java.math.RoundingMode;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps the per employee results and department totals of a payroll run so that timesheet corrections only
+ * recompute the employees they touch. Applying a correction removes the employee's previous pay from their
+ * department total and adds the new pay, so a batch of corrections costs O(corrections) instead of a full rerun.
+ * <p>Corrections use the same format as timesheets; a row for an employee that isn't known yet adds them. Rows that
+ * fail validation take the employee out of the totals until a valid correction arrives. {@link #verify()} compares
+ * the running totals with a full recompute.</p>
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public class IncrementalPayroll {
+
+    private final RoundingMode roundingMode;
+    /**
+     * Employee ids double as the employee's row in the arrays below.
+     */
+    private final EmployeeIndex employeeIndex = new EmployeeIndex(1024);
+    private final EmployeeIndex departmentIndex = new EmployeeIndex(16);
+    private final PayrollTotals totals = new PayrollTotals(16);
+
+    private int rows;
+    private long rejectedRows;
+
+    /**
+     * Inputs and results of each employee. Hours are in hundredths of an hour and money in cents.
+     */
+    private long[] hoursWorked = new long[1024];
+    private long[] hourlyPay = new long[1024];
+    private long[] regularPay = new long[1024];
+    private long[] overtimePay = new long[1024];
+    private long[] grossPay = new long[1024];
+
+    /**
+     * Department index of each employee, -1 if the employee's latest row was rejected.
+     */
+    private int[] employeeDepartments = new int[1024];
+
+    /**
+     * @param roundingMode how to round fractions of a cent
+     */
+    public IncrementalPayroll(RoundingMode roundingMode) {
+        this.roundingMode = roundingMode;
+    }
+
+    /**
+     * Loads a timesheet and applies a file of corrections to it, reporting the cost of each step and whether the
+     * incremental totals match a full recompute.
+     *
+     * @param timesheet CSV or TSV timesheet of the original run
+     * @param corrections timesheet rows that replace the original rows of the same employees
+     * @return printable report
+     * @throws IOException either file cannot be read
+     */
+    public static String run(Path timesheet, Path corrections) throws IOException {
+        IncrementalPayroll payroll = new IncrementalPayroll(MoneyMath.DEFAULT_ROUNDING);
+
+        long start = System.nanoTime();
+        long loaded = payroll.apply(timesheet);
+        long loadNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        long corrected = payroll.apply(corrections);
+        long correctNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        boolean verified = payroll.verify();
+        long verifyNanos = System.nanoTime() - start;
+
+        StringBuilder builder = new StringBuilder();
+        payroll.getTotals().appendTable(builder, payroll.getDepartments());
+        builder.append(String.format("employees=%d rejected=%d corrections=%d verified=%b%n",
+                payroll.getEmployees(), payroll.getRejectedRows(), corrected, verified));
+        builder.append(String.format("load=%.3fs (%d rows) corrections=%.3fs (%.0f ns/correction) recompute=%.3fs",
+                loadNanos / 1e9, loaded, correctNanos / 1e9, corrected == 0 ? 0.0 : (double) correctNanos / corrected,
+                verifyNanos / 1e9));
+        return builder.toString();
+    }
+
+    /**
+     * Applies every row of a timesheet file.
+     *
+     * @param path CSV or TSV timesheet file
+     * @return number of rows applied
+     * @throws IOException file cannot be read
+     */
+    public long apply(Path path) throws IOException {
+        long applied = 0;
+        try (TimesheetReader reader = TimesheetReader.open(path)) {
+            while (reader.next()) {
+                int row = reader.indexEmployee(employeeIndex);
+                int department = reader.indexDepartment(departmentIndex);
+                if (reader.parseFixed(roundingMode)) {
+                    update(row, department, reader.getHoursWorkedHundredths(), reader.getHourlyPayCents());
+                } else {
+                    update(row, department, -1, -1);
+                }
+                applied++;
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Replaces an employee's hours, rate and department, adding the employee if they are new, and updates the
+     * department totals.
+     *
+     * @param employee employee name
+     * @param department department name
+     * @param hours hours worked in hundredths of an hour
+     * @param rate hourly pay in cents
+     * @return true if the row was valid and is counted in the totals
+     */
+    public boolean update(String employee, String department, long hours, long rate) {
+        return update(employeeIndex.getOrAdd(employee), departmentIndex.getOrAdd(department), hours, rate);
+    }
+
+    /**
+     * Replaces the hours, rate and department of an employee by id.
+     *
+     * @param row employee id from {@link #employeeIndex}
+     * @param departmentRow department id from {@link #departmentIndex}
+     * @param hours hours worked in hundredths of an hour
+     * @param rate hourly pay in cents
+     * @return true if the row was valid and is counted in the totals
+     */
+    private boolean update(int row, int departmentRow, long hours, long rate) {
+        if (row == rows) {
+            addEmployee();
+        } else {
+            removeFromTotals(row);
+        }
+
+        hoursWorked[row] = hours;
+        hourlyPay[row] = rate;
+        if (PayrollValidator.check(hours, rate) != 0) {
+            employeeDepartments[row] = -1;
+            rejectedRows++;
+            return false;
+        }
+
+        employeeDepartments[row] = departmentRow;
+        regularPay[row] = MoneyMath.getRegularPayCents(hours, rate, roundingMode);
+        overtimePay[row] = MoneyMath.getOvertimePayCents(hours, rate, roundingMode);
+        grossPay[row] = MoneyMath.getGrossPayCents(regularPay[row], overtimePay[row]);
+        totals.add(departmentRow, regularPay[row], overtimePay[row], grossPay[row]);
+        return true;
+    }
+
+    /**
+     * Recomputes every employee's pay from their stored hours and rate and totals it from scratch.
+     *
+     * @return freshly computed department totals
+     */
+    public PayrollTotals recompute() {
+        PayrollTotals recomputed = new PayrollTotals(departmentIndex.size());
+        for (int row = 0; row < rows; row++) {
+            if (employeeDepartments[row] < 0 || PayrollValidator.check(hoursWorked[row], hourlyPay[row]) != 0) {
+                continue;
+            }
+            long regular = MoneyMath.getRegularPayCents(hoursWorked[row], hourlyPay[row], roundingMode);
+            long overtime = MoneyMath.getOvertimePayCents(hoursWorked[row], hourlyPay[row], roundingMode);
+            recomputed.add(employeeDepartments[row], regular, overtime, MoneyMath.getGrossPayCents(regular, overtime));
+        }
+        return recomputed;
+    }
+
+    /**
+     * @return true if the incrementally maintained totals equal a full {@link #recompute()}
+     */
+    public boolean verify() {
+        return recompute().matches(totals);
+    }
+
+    /**
+     * @return running department totals, indexed like {@link #getDepartments()}
+     */
+    public PayrollTotals getTotals() {
+        return totals;
+    }
+
+    /**
+     * @return department names by index
+     */
+    public List<String> getDepartments() {
+        List<String> departments = new ArrayList<>(departmentIndex.size());
+        for (int i = 0; i < departmentIndex.size(); i++) {
+            departments.add(departmentIndex.getName(i));
+        }
+        return departments;
+    }
+
+    /**
+     * @return number of distinct employees seen
+     */
+    public int getEmployees() {
+        return rows;
+    }
+
+    /**
+     * @return number of rows rejected by validation, including rows later corrected
+     */
+    public long getRejectedRows() {
+        return rejectedRows;
+    }
+
+    /**
+     * Takes a row's previous pay out of its department total, if it was counted.
+     */
+    private void removeFromTotals(int row) {
+        if (employeeDepartments[row] >= 0) {
+            totals.remove(employeeDepartments[row], regularPay[row], overtimePay[row], grossPay[row]);
+        }
+    }
+
+    /**
+     * Makes room for the employee the index just added as the next row.
+     */
+    private void addEmployee() {
+        if (rows == hoursWorked.length) {
+            int capacity = rows * 2;
+            hoursWorked = Arrays.copyOf(hoursWorked, capacity);
+            hourlyPay = Arrays.copyOf(hourlyPay, capacity);
+            regularPay = Arrays.copyOf(regularPay, capacity);
+            overtimePay = Arrays.copyOf(overtimePay, capacity);
+            grossPay = Arrays.copyOf(grossPay, capacity);
+            employeeDepartments = Arrays.copyOf(employeeDepartments, capacity);
+        }
+        employeeDepartments[rows] = -1;
+        rows++;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Lock-free histogram of latencies in nanoseconds. Values are counted in buckets that split every power of two into
+ * {@link #SUB_BUCKETS} linear steps, so any percentile is within 1/{@link #SUB_BUCKETS} of the true value while the
+ * whole histogram is a fixed 4 KiB of counters. Recording is one atomic increment and is safe from any number of
+ * threads.
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public final class LatencyHistogram {
+
+    /**
+     * Number of linear buckets per power of two, a power of two itself.
+     */
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Counts per bucket; values below {@link #SUB_BUCKETS} get a bucket each.
+     */
+    private final AtomicLongArray buckets = new AtomicLongArray((Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS);
+
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records one latency.
+     *
+     * @param nanos latency in nanoseconds, negative values are counted as 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        buckets.incrementAndGet(bucket(value));
+        max.accumulate(value);
+    }
+
+    /**
+     * Returns the number of latencies recorded.
+     *
+     * @return count of recorded latencies
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            count += buckets.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the largest latency recorded.
+     *
+     * @return largest latency in nanoseconds, 0 if none were recorded
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Returns an upper bound of the latency that the given fraction of recorded latencies are at or under.
+     *
+     * @param quantile fraction between 0 and 1, e.g. 0.99
+     * @return latency in nanoseconds, 0 if none were recorded
+     */
+    public long getQuantile(double quantile) {
+        long[] counts = new long[buckets.length()];
+        long total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Clears every count. Latencies recorded while resetting may or may not be kept.
+     */
+    public void reset() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0);
+        }
+        max.reset();
+    }
+
+    /**
+     * Finds the bucket of a value: values under {@link #SUB_BUCKETS} map to themselves, larger values to their
+     * power of two and the next {@link #SUB_BUCKET_BITS} bits below the highest.
+     */
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /**
+     * Returns the largest value that maps to a bucket.
+     */
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d p50=%.1fus p90=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus", getCount(),
+                getQuantile(0.5) / 1e3, getQuantile(0.9) / 1e3, getQuantile(0.99) / 1e3, getQuantile(0.999) / 1e3,
+                getMax() / 1e3);
+    }
+}
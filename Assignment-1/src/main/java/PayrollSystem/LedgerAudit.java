@@ -0,0 +1,93 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Audits a {@link PayrollLedger}: verifies every block checksum, then scans every record to total the pay columns.
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public final class LedgerAudit {
+
+    private LedgerAudit() {
+    }
+
+    /**
+     * Audits a ledger file.
+     *
+     * @param path ledger file
+     * @return printable summary of the audit
+     * @throws IOException ledger cannot be read
+     */
+    public static String run(Path path) throws IOException {
+        try (LedgerReader reader = new LedgerReader(path)) {
+            long start = System.nanoTime();
+            long corruptBlock = reader.verify();
+            long verifyNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            long regularPay = 0;
+            long overtimePay = 0;
+            long grossPay = 0;
+            for (long i = 0; i < reader.size(); i++) {
+                regularPay += reader.getRegularPay(i);
+                overtimePay += reader.getOvertimePay(i);
+                grossPay += reader.getGrossPay(i);
+            }
+            long scanNanos = System.nanoTime() - start;
+
+            double bytes = (double) reader.blocks() * PayrollLedger.BLOCK_SIZE;
+            StringBuilder builder = new StringBuilder();
+            builder.append("records=").append(reader.size()).append(" blocks=").append(reader.blocks());
+            builder.append(corruptBlock < 0 ? " checksums=ok" : " checksums=FAILED at block " + corruptBlock);
+            builder.append(System.lineSeparator()).append("regularPay=");
+            MoneyFormat.append(builder, regularPay).append(" overtimePay=");
+            MoneyFormat.append(builder, overtimePay).append(" grossPay=");
+            MoneyFormat.append(builder, grossPay).append(System.lineSeparator());
+            builder.append(String.format("verify=%.3fs (%.0f MiB/s) scan=%.3fs (%.0f records/sec)",
+                    verifyNanos / 1e9, bytes / (1024.0 * 1024.0) / Math.max(verifyNanos / 1e9, 1e-9),
+                    scanNanos / 1e9, reader.size() / Math.max(scanNanos / 1e9, 1e-9)));
+            return builder.toString();
+        }
+    }
+
+    /**
+     * Formats a single record of a ledger, read by index.
+     *
+     * @param path ledger file
+     * @param record index of the record
+     * @return printable record
+     * @throws IOException ledger cannot be read
+     * @throws IllegalArgumentException the ledger has no record with that index
+     */
+    public static String record(Path path, long record) throws IOException {
+        try (LedgerReader reader = new LedgerReader(path)) {
+            if (record < 0 || record >= reader.size()) {
+                throw new IllegalArgumentException("Record " + record + " is out of range, the ledger holds "
+                        + reader.size() + " records.");
+            }
+            StringBuilder builder = new StringBuilder();
+            builder.append("record=").append(record);
+            builder.append(" employeeId=").append(reader.getEmployeeId(record));
+            builder.append(" period=").append(reader.getPeriod(record));
+            builder.append(" hoursWorked=");
+            MoneyFormat.append(builder, reader.getHoursWorked(record)).append(" hourlyPay=");
+            MoneyFormat.append(builder, reader.getHourlyPay(record)).append(" regularPay=");
+            MoneyFormat.append(builder, reader.getRegularPay(record)).append(" overtimePay=");
+            MoneyFormat.append(builder, reader.getOvertimePay(record)).append(" grossPay=");
+            MoneyFormat.append(builder, reader.getGrossPay(record));
+            return builder.toString();
+        }
+    }
+}
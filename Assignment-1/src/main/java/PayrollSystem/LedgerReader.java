@@ -0,0 +1,193 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Reads a {@link PayrollLedger} file through memory mapped segments. Any record can be read by index without
+ * reading the ones before it, and reads go straight to the page cache without copying the file into the heap.
+ * <p>Getters take a record index and read a single field, so scanning one column only touches that column's
+ * bytes. Readers are safe to share between threads.</p>
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public class LedgerReader implements Closeable {
+
+    /**
+     * Number of blocks per mapped segment, keeping every segment under the 2 GiB limit of a single mapping.
+     */
+    private static final int SEGMENT_BLOCKS = (1 << 30) / PayrollLedger.BLOCK_SIZE;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final long blocks;
+    private final long size;
+
+    /**
+     * Opens and maps a ledger file.
+     *
+     * @param path ledger file
+     * @throws IOException file cannot be opened or is not a ledger
+     */
+    public LedgerReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(PayrollLedger.HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    throw new IOException("Not a payroll ledger.");
+                }
+            }
+            PayrollLedger.checkHeader(header);
+
+            blocks = (channel.size() - PayrollLedger.HEADER_SIZE) / PayrollLedger.BLOCK_SIZE;
+            segments = new MappedByteBuffer[(int) ((blocks + SEGMENT_BLOCKS - 1) / SEGMENT_BLOCKS)];
+            for (int i = 0; i < segments.length; i++) {
+                long firstBlock = (long) i * SEGMENT_BLOCKS;
+                long segmentBlocks = Math.min(SEGMENT_BLOCKS, blocks - firstBlock);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, PayrollLedger.blockOffset(firstBlock),
+                        segmentBlocks * PayrollLedger.BLOCK_SIZE);
+                segments[i].order(PayrollLedger.BYTE_ORDER);
+            }
+            size = blocks == 0 ? 0 : (blocks - 1) * PayrollLedger.BLOCK_RECORDS + blockRecords(blocks - 1);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return number of records in the ledger
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return number of blocks in the ledger
+     */
+    public long blocks() {
+        return blocks;
+    }
+
+    public long getEmployeeId(long record) {
+        return segment(record).getLong(offset(record) + PayrollLedger.EMPLOYEE_ID);
+    }
+
+    public int getPeriod(long record) {
+        return segment(record).getInt(offset(record) + PayrollLedger.PERIOD);
+    }
+
+    /**
+     * @param record index of a record
+     * @return hours worked in hundredths of an hour
+     */
+    public int getHoursWorked(long record) {
+        return segment(record).getInt(offset(record) + PayrollLedger.HOURS_WORKED);
+    }
+
+    /**
+     * @param record index of a record
+     * @return hourly pay in cents
+     */
+    public long getHourlyPay(long record) {
+        return segment(record).getLong(offset(record) + PayrollLedger.HOURLY_PAY);
+    }
+
+    /**
+     * @param record index of a record
+     * @return regular pay in cents
+     */
+    public long getRegularPay(long record) {
+        return segment(record).getLong(offset(record) + PayrollLedger.REGULAR_PAY);
+    }
+
+    /**
+     * @param record index of a record
+     * @return overtime pay in cents
+     */
+    public long getOvertimePay(long record) {
+        return segment(record).getLong(offset(record) + PayrollLedger.OVERTIME_PAY);
+    }
+
+    /**
+     * @param record index of a record
+     * @return gross pay in cents
+     */
+    public long getGrossPay(long record) {
+        return segment(record).getLong(offset(record) + PayrollLedger.GROSS_PAY);
+    }
+
+    /**
+     * Checks the CRC32C of every block.
+     *
+     * @return index of the first block whose checksum doesn't match, or -1 if every block is intact
+     */
+    public long verify() {
+        CRC32C crc = new CRC32C();
+        for (long block = 0; block < blocks; block++) {
+            int records = blockRecords(block);
+            if (records < 0 || records > PayrollLedger.BLOCK_RECORDS) {
+                return block;
+            }
+
+            ByteBuffer segment = segments[(int) (block / SEGMENT_BLOCKS)];
+            int start = (int) (block % SEGMENT_BLOCKS) * PayrollLedger.BLOCK_SIZE;
+            crc.reset();
+            crc.update(segment.duplicate().position(start).limit(start + records * PayrollLedger.RECORD_SIZE));
+            long expected = segment.getLong(start + PayrollLedger.BLOCK_RECORDS * PayrollLedger.RECORD_SIZE + 8);
+            if (crc.getValue() != expected) {
+                return block;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * @param block index of a block
+     * @return number of records stored in the block according to its trailer
+     */
+    private int blockRecords(long block) {
+        ByteBuffer segment = segments[(int) (block / SEGMENT_BLOCKS)];
+        int start = (int) (block % SEGMENT_BLOCKS) * PayrollLedger.BLOCK_SIZE;
+        return segment.getInt(start + PayrollLedger.BLOCK_RECORDS * PayrollLedger.RECORD_SIZE);
+    }
+
+    private ByteBuffer segment(long record) {
+        if (record < 0 || record >= size) {
+            throw new IndexOutOfBoundsException("Record " + record + " of " + size);
+        }
+        return segments[(int) (record / PayrollLedger.BLOCK_RECORDS / SEGMENT_BLOCKS)];
+    }
+
+    /**
+     * @param record index of a record
+     * @return offset of the record within its segment
+     */
+    private static int offset(long record) {
+        long block = record / PayrollLedger.BLOCK_RECORDS;
+        return (int) (block % SEGMENT_BLOCKS) * PayrollLedger.BLOCK_SIZE
+                + (int) (record % PayrollLedger.BLOCK_RECORDS) * PayrollLedger.RECORD_SIZE;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import java.util.function.IntToLongFunction;
+
+/**
+ * Sorts permutations of {@link PayrollLedger} record indexes without moving the records. The sort is a stable LSD
+ * radix sort over 8 bit digits that reads each key from the ledger on every pass, so besides the permutation it only
+ * needs a second int array of the same length.
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public final class LedgerSort {
+
+    /**
+     * Bits of the key sorted by one radix pass.
+     */
+    private static final int RADIX_BITS = 8;
+    private static final int RADIX = 1 << RADIX_BITS;
+    private static final int PASSES = Long.SIZE / RADIX_BITS;
+
+    private LedgerSort() {
+    }
+
+    /**
+     * Sorts record indexes by a key. Records with equal keys keep their order, so sorting by one key and then
+     * another orders by both.
+     *
+     * @param rows record indexes to sort, left unchanged, or null for records 0 to records - 1
+     * @param records number of records used when rows is null
+     * @param key reads a record's key, called several times per record
+     * @param ascending smallest key first when true
+     * @return sorted copy of rows
+     */
+    public static int[] sort(int[] rows, int records, IntToLongFunction key, boolean ascending) {
+        int size = rows == null ? records : rows.length;
+        int[] from = new int[size];
+        if (rows == null) {
+            for (int record = 0; record < size; record++) {
+                from[record] = record;
+            }
+        } else {
+            System.arraycopy(rows, 0, from, 0, size);
+        }
+        int[] to = new int[size];
+
+        //flipping the sign bit orders signed keys as unsigned, flipping every bit orders them descending
+        long flip = ascending ? Long.MIN_VALUE : Long.MAX_VALUE;
+
+        //one read of every key counts all digits, and passes where every key has the same digit are skipped
+        int[][] counts = new int[PASSES][RADIX];
+        for (int row = 0; row < size; row++) {
+            long value = key.applyAsLong(from[row]) ^ flip;
+            for (int pass = 0; pass < PASSES; pass++) {
+                counts[pass][(int) (value >>> (pass * RADIX_BITS)) & (RADIX - 1)]++;
+            }
+        }
+
+        for (int pass = 0; pass < PASSES; pass++) {
+            int[] count = counts[pass];
+            int shift = pass * RADIX_BITS;
+            if (size == 0 || count[(int) ((key.applyAsLong(from[0]) ^ flip) >>> shift) & (RADIX - 1)] == size) {
+                continue;
+            }
+
+            int start = 0;
+            for (int digit = 0; digit < RADIX; digit++) {
+                int digitCount = count[digit];
+                count[digit] = start;
+                start += digitCount;
+            }
+            for (int row = 0; row < size; row++) {
+                int record = from[row];
+                to[count[(int) ((key.applyAsLong(record) ^ flip) >>> shift) & (RADIX - 1)]++] = record;
+            }
+            int[] swap = from;
+            from = to;
+            to = swap;
+        }
+        return from;
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Represents a TableModel over a {@link LedgerReader} that never copies the ledger into the heap. Cells are read
+ * from the mapped file when a JTable paints them, so only the visible rows are ever read.
+ * <p>Sorting and filtering don't move records either. Both produce an int permutation of record indexes, so the
+ * heap holds a few ints per record whatever the ledger's size. Sorting is a {@link LedgerSort} that reads the keys
+ * straight from the ledger.</p>
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public class LedgerTableModel extends AbstractTableModel {
+
+    public static final int EMPLOYEE_ID = 0;
+    public static final int PERIOD = 1;
+    public static final int HOURS_WORKED = 2;
+    public static final int HOURLY_PAY = 3;
+    public static final int REGULAR_PAY = 4;
+    public static final int OVERTIME_PAY = 5;
+    public static final int GROSS_PAY = 6;
+
+    private static final String[] COLUMNS = {"Employee", "Period", "Hours", "Rate", "Regular", "Overtime", "Gross"};
+
+    private final LedgerReader reader;
+    private final int records;
+
+    /**
+     * Record index of every row in view order, or null while every record is shown in ledger order.
+     */
+    private int[] view;
+    private int viewSize;
+
+    private int sortColumn = -1;
+    private boolean ascending = true;
+
+    /**
+     * Creates a LedgerTableModel showing every record of a ledger in ledger order.
+     *
+     * @param reader open ledger, still owned and closed by the caller
+     * @throws IllegalArgumentException the ledger has more records than a table can have rows
+     */
+    public LedgerTableModel(LedgerReader reader) {
+        if (reader.size() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Ledger has too many records to show: " + reader.size());
+        }
+        this.reader = reader;
+        this.records = (int) reader.size();
+        this.viewSize = records;
+    }
+
+    @Override
+    public int getRowCount() {
+        return viewSize;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return Long.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return getLong(row, column);
+    }
+
+    /**
+     * Reads one cell without boxing it.
+     *
+     * @param row row in view order
+     * @param column one of the column constants
+     * @return the field, with hours in hundredths and money in cents
+     */
+    public long getLong(int row, int column) {
+        return field(getRecord(row), column);
+    }
+
+    /**
+     * @param row row in view order
+     * @return index of the ledger record shown in the row
+     */
+    public int getRecord(int row) {
+        if (row < 0 || row >= viewSize) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + viewSize);
+        }
+        return view == null ? row : view[row];
+    }
+
+    /**
+     * @return number of records in the ledger, shown or not
+     */
+    public int getRecordCount() {
+        return records;
+    }
+
+    /**
+     * @return column the rows are sorted by, or -1 while they are in ledger order
+     */
+    public int getSortColumn() {
+        return sortColumn;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    /**
+     * Hours in hundredths and money in cents are both shown with two decimals.
+     *
+     * @param column one of the column constants
+     * @return whether the column holds hundredths
+     */
+    public static boolean isHundredths(int column) {
+        return column == HOURS_WORKED || column == HOURLY_PAY || column == REGULAR_PAY || column == OVERTIME_PAY
+                || column == GROSS_PAY;
+    }
+
+    /**
+     * Finds the records whose column lies between min and max, inclusive. Only reads the ledger, so it can run
+     * off the Event Dispatch Thread.
+     *
+     * @param column one of the column constants
+     * @param min smallest value kept
+     * @param max largest value kept
+     * @return matching record indexes in ledger order, for {@link #setView(int[], int, boolean)}
+     */
+    public int[] filter(int column, long min, long max) {
+        checkColumn(column);
+        //counts first so the permutation is allocated once at its final size
+        int matches = 0;
+        for (int record = 0; record < records; record++) {
+            long value = field(record, column);
+            if (value >= min && value <= max) {
+                matches++;
+            }
+        }
+
+        int[] rows = new int[matches];
+        int row = 0;
+        for (int record = 0; record < records && row < matches; record++) {
+            long value = field(record, column);
+            if (value >= min && value <= max) {
+                rows[row++] = record;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Sorts record indexes by one column. Records with equal values keep their order, so sorting by one column
+     * and then another orders by both. Only reads the ledger, so it can run off the Event Dispatch Thread.
+     *
+     * @param rows record indexes to sort, left unchanged, or null for every record in ledger order
+     * @param column one of the column constants
+     * @param ascending smallest value first when true
+     * @return sorted copy of rows, for {@link #setView(int[], int, boolean)}
+     */
+    public int[] sort(int[] rows, int column, boolean ascending) {
+        checkColumn(column);
+        return LedgerSort.sort(rows, records, record -> field(record, column), ascending);
+    }
+
+    /**
+     * Shows a filtered or sorted permutation. Must be called on the Event Dispatch Thread.
+     *
+     * @param rows record indexes in view order, or null for every record in ledger order
+     * @param sortColumn column the rows are sorted by, or -1
+     * @param ascending whether the sort is ascending
+     */
+    public void setView(int[] rows, int sortColumn, boolean ascending) {
+        view = rows;
+        viewSize = rows == null ? records : rows.length;
+        this.sortColumn = sortColumn;
+        this.ascending = ascending;
+        fireTableDataChanged();
+    }
+
+    /**
+     * @return record indexes in view order, or null while every record is shown in ledger order. Not a copy.
+     */
+    public int[] getView() {
+        return view;
+    }
+
+    private long field(int record, int column) {
+        switch (column) {
+            case EMPLOYEE_ID:
+                return reader.getEmployeeId(record);
+            case PERIOD:
+                return reader.getPeriod(record);
+            case HOURS_WORKED:
+                return reader.getHoursWorked(record);
+            case HOURLY_PAY:
+                return reader.getHourlyPay(record);
+            case REGULAR_PAY:
+                return reader.getRegularPay(record);
+            case OVERTIME_PAY:
+                return reader.getOvertimePay(record);
+            case GROSS_PAY:
+                return reader.getGrossPay(record);
+            default:
+                throw new IndexOutOfBoundsException("Column " + column + " of " + COLUMNS.length);
+        }
+    }
+
+    private static void checkColumn(int column) {
+        if (column < 0 || column >= COLUMNS.length) {
+            throw new IllegalArgumentException("No column " + column);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Appends records to a {@link PayrollLedger} file. Records are collected into a block buffer and written a whole
+ * block at a time with its checksum. Opening an existing ledger continues after its last record, rewriting the
+ * last block if it was only partly filled; records already written are never changed.
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public class LedgerWriter implements Closeable {
+
+    private final FileChannel channel;
+    private final ByteBuffer block = ByteBuffer.allocateDirect(PayrollLedger.BLOCK_SIZE).order(PayrollLedger.BYTE_ORDER);
+    private final CRC32C crc = new CRC32C();
+
+    /**
+     * Index of the block currently being filled and the number of records in it.
+     */
+    private long blockIndex;
+    private int blockRecords;
+
+    /**
+     * Opens a ledger for appending, creating it if it doesn't exist.
+     *
+     * @param path ledger file
+     * @throws IOException file cannot be opened or is not a ledger
+     */
+    public LedgerWriter(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                channel.write(PayrollLedger.createHeader(), 0);
+            } else {
+                ByteBuffer header = ByteBuffer.allocate(PayrollLedger.HEADER_SIZE);
+                readFully(header, 0);
+                PayrollLedger.checkHeader(header);
+                resumeLastBlock();
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends one computed payroll row.
+     *
+     * @param employeeId id of the employee
+     * @param period pay period the row belongs to
+     * @param hoursWorked hours worked in hundredths of an hour
+     * @param hourlyPay hourly pay in cents
+     * @param regularPay regular pay in cents
+     * @param overtimePay overtime pay in cents
+     * @param grossPay gross pay in cents
+     * @throws IOException a full block cannot be written
+     */
+    public void append(long employeeId, int period, int hoursWorked, long hourlyPay, long regularPay,
+                       long overtimePay, long grossPay) throws IOException {
+        int offset = blockRecords * PayrollLedger.RECORD_SIZE;
+        block.putLong(offset + PayrollLedger.EMPLOYEE_ID, employeeId);
+        block.putInt(offset + PayrollLedger.PERIOD, period);
+        block.putInt(offset + PayrollLedger.HOURS_WORKED, hoursWorked);
+        block.putLong(offset + PayrollLedger.HOURLY_PAY, hourlyPay);
+        block.putLong(offset + PayrollLedger.REGULAR_PAY, regularPay);
+        block.putLong(offset + PayrollLedger.OVERTIME_PAY, overtimePay);
+        block.putLong(offset + PayrollLedger.GROSS_PAY, grossPay);
+
+        if (++blockRecords == PayrollLedger.BLOCK_RECORDS) {
+            writeBlock();
+            blockIndex++;
+            blockRecords = 0;
+        }
+    }
+
+    /**
+     * @return number of records in the ledger, including ones not yet written
+     */
+    public long size() {
+        return blockIndex * PayrollLedger.BLOCK_RECORDS + blockRecords;
+    }
+
+    /**
+     * Writes the partly filled block and forces everything to disk.
+     *
+     * @throws IOException block cannot be written
+     */
+    public void flush() throws IOException {
+        if (blockRecords > 0) {
+            writeBlock();
+        }
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Writes the current block's records and trailer at the block's position in the file.
+     */
+    private void writeBlock() throws IOException {
+        int recordBytes = blockRecords * PayrollLedger.RECORD_SIZE;
+        block.clear().limit(recordBytes);
+        crc.reset();
+        crc.update(block);
+
+        int trailer = PayrollLedger.BLOCK_RECORDS * PayrollLedger.RECORD_SIZE;
+        block.limit(PayrollLedger.BLOCK_SIZE);
+        block.putInt(trailer, blockRecords);
+        block.putInt(trailer + 4, 0);
+        block.putLong(trailer + 8, crc.getValue());
+
+        //unused record slots of a partial block are left as zeros in the file
+        block.position(0).limit(recordBytes);
+        writeFully(block, PayrollLedger.blockOffset(blockIndex));
+        block.clear().position(trailer);
+        writeFully(block, PayrollLedger.blockOffset(blockIndex));
+        block.clear();
+    }
+
+    /**
+     * Positions the writer after the last record of an existing ledger, loading a partly filled last block back
+     * into the block buffer.
+     */
+    private void resumeLastBlock() throws IOException {
+        long blocks = (channel.size() - PayrollLedger.HEADER_SIZE) / PayrollLedger.BLOCK_SIZE;
+        if (blocks == 0) {
+            return;
+        }
+
+        long lastBlock = blocks - 1;
+        int trailer = PayrollLedger.BLOCK_RECORDS * PayrollLedger.RECORD_SIZE;
+        ByteBuffer count = ByteBuffer.allocate(4).order(PayrollLedger.BYTE_ORDER);
+        readFully(count, PayrollLedger.blockOffset(lastBlock) + trailer);
+        int records = count.getInt(0);
+
+        if (records == PayrollLedger.BLOCK_RECORDS) {
+            blockIndex = blocks;
+            blockRecords = 0;
+        } else {
+            block.clear().limit(records * PayrollLedger.RECORD_SIZE);
+            readFully(block, PayrollLedger.blockOffset(lastBlock));
+            block.clear();
+            blockIndex = lastBlock;
+            blockRecords = records;
+        }
+    }
+
+    /**
+     * Reads until the buffer is full.
+     *
+     * @param buffer buffer to read into
+     * @param position file offset of the buffer's index 0
+     */
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Payroll ledger is truncated.");
+            }
+        }
+    }
+
+    /**
+     * Writes the buffer's remaining bytes.
+     *
+     * @param buffer buffer to write from
+     * @param position file offset of the buffer's index 0
+     */
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+
+/**
+ * Represents a window showing a {@link PayrollMetrics} snapshot of the row counters and stage latencies, refreshed
+ * every second while it is open.
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public class MetricsFrame extends JFrame {
+
+    /**
+     * Milliseconds between refreshes.
+     */
+    private static final int REFRESH_MILLIS = 1000;
+
+    private final JTextArea metricsTextArea = new JTextArea(8, 100);
+
+    /**
+     * Creates and shows a MetricsFrame.
+     *
+     * @throws HeadlessException missing display, keyboard, or mouse
+     */
+    public MetricsFrame() {
+        super("Payroll Metrics");
+        this.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+
+        metricsTextArea.setEditable(false);
+        metricsTextArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+
+        JButton resetButton = new JButton("Reset");
+        resetButton.addActionListener(actionEvent -> {
+            PayrollMetrics.reset();
+            refresh();
+        });
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttonPanel.setBackground(Color.white);
+        buttonPanel.add(resetButton);
+
+        JPanel mainPanel = new JPanel(new BorderLayout());
+        mainPanel.setBackground(Color.white);
+        mainPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        mainPanel.add(new JScrollPane(metricsTextArea), BorderLayout.CENTER);
+        mainPanel.add(buttonPanel, BorderLayout.SOUTH);
+
+        //the timer fires on the Event Dispatch Thread and only reads counters, so it never blocks a computation
+        Timer timer = new Timer(REFRESH_MILLIS, actionEvent -> refresh());
+        this.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent event) {
+                timer.stop();
+            }
+        });
+        refresh();
+        timer.start();
+
+        this.add(mainPanel);
+        this.pack();
+        this.setVisible(true);
+    }
+
+    private void refresh() {
+        metricsTextArea.setText(PayrollMetrics.summary());
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+/**
+ * Formats amounts of cents as plain decimal dollars, e.g. -1234.05, by writing digits straight into a caller
+ * supplied buffer. Nothing is allocated, so millions of values can be written without creating a String each.
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public final class MoneyFormat {
+
+    /**
+     * Longest formatted value, which is {@link Long#MIN_VALUE} cents: -92233720368547758.08
+     */
+    public static final int MAX_LENGTH = 21;
+
+    private MoneyFormat() {
+    }
+
+    /**
+     * Writes cents as ASCII dollars into a byte array.
+     *
+     * @param cents amount to format
+     * @param buffer array to write into, needs up to {@link #MAX_LENGTH} bytes after offset
+     * @param offset index to start writing at
+     * @return index after the last byte written
+     */
+    public static int format(long cents, byte[] buffer, int offset) {
+        int length = length(cents);
+        int position = offset + length;
+        //works on the negative value so Long.MIN_VALUE needs no special case
+        long remaining = cents < 0 ? cents : -cents;
+        for (int digit = 0; digit < length - (cents < 0 ? 1 : 0); digit++) {
+            if (digit == 2) {
+                buffer[--position] = '.';
+                continue;
+            }
+            buffer[--position] = (byte) ('0' - remaining % 10);
+            remaining /= 10;
+        }
+        if (cents < 0) {
+            buffer[offset] = '-';
+        }
+        return offset + length;
+    }
+
+    /**
+     * Writes cents as dollars into a char array.
+     *
+     * @param cents amount to format
+     * @param buffer array to write into, needs up to {@link #MAX_LENGTH} chars after offset
+     * @param offset index to start writing at
+     * @return index after the last char written
+     */
+    public static int format(long cents, char[] buffer, int offset) {
+        int length = length(cents);
+        int position = offset + length;
+        long remaining = cents < 0 ? cents : -cents;
+        for (int digit = 0; digit < length - (cents < 0 ? 1 : 0); digit++) {
+            if (digit == 2) {
+                buffer[--position] = '.';
+                continue;
+            }
+            buffer[--position] = (char) ('0' - remaining % 10);
+            remaining /= 10;
+        }
+        if (cents < 0) {
+            buffer[offset] = '-';
+        }
+        return offset + length;
+    }
+
+    /**
+     * Appends cents as dollars to a StringBuilder, which can be reused between values with setLength(0).
+     *
+     * @param builder StringBuilder to append to
+     * @param cents amount to format
+     * @return the given builder
+     */
+    public static StringBuilder append(StringBuilder builder, long cents) {
+        int start = builder.length();
+        int length = length(cents);
+        builder.setLength(start + length);
+        int position = start + length;
+        long remaining = cents < 0 ? cents : -cents;
+        for (int digit = 0; digit < length - (cents < 0 ? 1 : 0); digit++) {
+            if (digit == 2) {
+                builder.setCharAt(--position, '.');
+                continue;
+            }
+            builder.setCharAt(--position, (char) ('0' - remaining % 10));
+            remaining /= 10;
+        }
+        if (cents < 0) {
+            builder.setCharAt(start, '-');
+        }
+        return builder;
+    }
+
+    /**
+     * Number of characters needed to format cents: the sign, at least one dollar digit, the point and two cent
+     * digits.
+     *
+     * @param cents amount to format
+     * @return formatted length
+     */
+    public static int length(long cents) {
+        int digits = 1;
+        //counts on the negative value so Long.MIN_VALUE needs no special case
+        for (long remaining = cents < 0 ? cents : -cents; remaining <= -10; remaining /= 10) {
+            digits++;
+        }
+        //at least one dollar digit and two cent digits
+        return Math.max(digits, 3) + 1 + (cents < 0 ? 1 : 0);
+    }
+}
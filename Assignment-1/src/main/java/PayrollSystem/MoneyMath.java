@@ -0,0 +1,173 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed point version of the {@link MathHelper} payroll math. Hours are scaled to hundredths of an hour and money to
+ * cents, both held in a long, so totals stay exact no matter how many rows are added together. Every method that
+ * has to drop a fraction of a cent takes the {@link RoundingMode} to use, and none of them allocate.
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public final class MoneyMath {
+
+    /**
+     * Number of cents in a dollar, the scale of every money value.
+     */
+    public static final int CENTS_PER_DOLLAR = 100;
+
+    /**
+     * Number of hundredths in an hour, the scale of every hours value.
+     */
+    public static final int HUNDREDTHS_PER_HOUR = 100;
+
+    /**
+     * Hours paid at the regular rate before overtime starts, in hundredths of an hour.
+     */
+    public static final long REGULAR_HOURS = 40L * HUNDREDTHS_PER_HOUR;
+
+    /**
+     * Hours in a week, in hundredths of an hour.
+     */
+    public static final long HOURS_IN_WEEK = 24L * 7 * HUNDREDTHS_PER_HOUR;
+
+    /**
+     * Rounding mode used by the application when none is configured.
+     */
+    public static final RoundingMode DEFAULT_ROUNDING = RoundingMode.HALF_UP;
+
+    private MoneyMath() {
+    }
+
+    /**
+     * Calculates regularPay in cents, which is hoursWorked * hourlyPay for up to 40 hours.
+     *
+     * @param hoursWorked hours worked in hundredths of an hour
+     * @param hourlyPay hourly pay in cents
+     * @param roundingMode how to round a fraction of a cent
+     * @return regularPay in cents for hours worked less than or equal to 40
+     * @throws ArithmeticException the result overflows a long
+     */
+    public static long getRegularPayCents(long hoursWorked, long hourlyPay, RoundingMode roundingMode) {
+        long regularHours = Math.min(hoursWorked, REGULAR_HOURS);
+        return divide(Math.multiplyExact(regularHours, hourlyPay), HUNDREDTHS_PER_HOUR, roundingMode);
+    }
+
+    /**
+     * Calculates overtimePay in cents, time and a half for every hour past 40.
+     *
+     * @param hoursWorked hours worked in hundredths of an hour
+     * @param hourlyPay hourly pay in cents
+     * @param roundingMode how to round a fraction of a cent
+     * @return overtimePay in cents for hours worked greater than 40
+     * @throws ArithmeticException the result overflows a long
+     */
+    public static long getOvertimePayCents(long hoursWorked, long hourlyPay, RoundingMode roundingMode) {
+        long overtimeHours = Math.max(hoursWorked - REGULAR_HOURS, 0);
+        //(hours / 100) * (1.5 * rate) == hours * rate * 3 / 200
+        return divide(Math.multiplyExact(Math.multiplyExact(overtimeHours, hourlyPay), 3), 2 * HUNDREDTHS_PER_HOUR,
+                roundingMode);
+    }
+
+    /**
+     * Returns the addition of regularPay and overtimePay.
+     *
+     * @param regularPay regular pay in cents
+     * @param overtimePay overtime pay in cents
+     * @return grossPay in cents
+     * @throws ArithmeticException the result overflows a long
+     */
+    public static long getGrossPayCents(long regularPay, long overtimePay) {
+        return Math.addExact(regularPay, overtimePay);
+    }
+
+    /**
+     * Converts a double to a fixed point long, e.g. dollars to cents with decimals 2. The double is read as its
+     * shortest decimal representation, so 0.285 is rounded as 0.285 rather than 0.28499999999999998. This allocates
+     * and is meant for single values such as GUI input; bulk input should be parsed straight to fixed point.
+     *
+     * @param value value to convert
+     * @param decimals number of decimal places to keep
+     * @param roundingMode how to round the decimal places that are dropped
+     * @return value scaled by 10^decimals and rounded
+     * @throws ArithmeticException the value does not fit in a long
+     */
+    public static long toFixed(double value, int decimals, RoundingMode roundingMode) {
+        return BigDecimal.valueOf(value).setScale(decimals, roundingMode).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Divides two longs, rounding the quotient with the given mode.
+     *
+     * @param dividend number to divide
+     * @param divisor number to divide by
+     * @param roundingMode how to round an inexact quotient
+     * @return rounded quotient
+     * @throws ArithmeticException divisor is 0, or the quotient is inexact and roundingMode is UNNECESSARY
+     */
+    public static long divide(long dividend, long divisor, RoundingMode roundingMode) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (remainder == 0) {
+            return quotient;
+        }
+
+        long absRemainder = Math.abs(remainder);
+        int halfComparison = Long.compare(absRemainder, Math.abs(divisor) - absRemainder);
+        return round(quotient, (dividend ^ divisor) < 0, halfComparison, roundingMode);
+    }
+
+    /**
+     * Rounds an inexact value that was truncated toward zero.
+     *
+     * @param truncated value with its fraction dropped
+     * @param negative true if the exact value is negative
+     * @param halfComparison the dropped fraction compared to one half: negative, zero or positive
+     * @param roundingMode how to round
+     * @return rounded value
+     * @throws ArithmeticException roundingMode is UNNECESSARY
+     */
+    static long round(long truncated, boolean negative, int halfComparison, RoundingMode roundingMode) {
+        boolean awayFromZero;
+        switch (roundingMode) {
+            case UP:
+                awayFromZero = true;
+                break;
+            case DOWN:
+                awayFromZero = false;
+                break;
+            case CEILING:
+                awayFromZero = !negative;
+                break;
+            case FLOOR:
+                awayFromZero = negative;
+                break;
+            case HALF_UP:
+                awayFromZero = halfComparison >= 0;
+                break;
+            case HALF_DOWN:
+                awayFromZero = halfComparison > 0;
+                break;
+            case HALF_EVEN:
+                awayFromZero = halfComparison > 0 || (halfComparison == 0 && (truncated & 1) != 0);
+                break;
+            default:
+                throw new ArithmeticException("Rounding necessary");
+        }
+        if (!awayFromZero) {
+            return truncated;
+        }
+        return negative ? truncated - 1 : truncated + 1;
+    }
+}
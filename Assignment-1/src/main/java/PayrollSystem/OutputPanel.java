@@ -41,11 +41,17 @@ public class OutputPanel extends JPanel {
     private JLabel grossPayLabel;
 
     /**
-     * Creates an OutputPanel with set size and colors. Contains four output labels to display computed information.
+     * Represents the progress of a timesheet import.
+     */
+    private JProgressBar importProgressBar;
+
+    /**
+     * Creates an OutputPanel with set size and colors. Contains four output labels to display computed information
+     * and a progress bar for timesheet imports.
      */
     public OutputPanel() {
         //Calls super() and sets size constraints and color
-        super(new GridLayout(4, 2));
+        super(new GridLayout(5, 2));
         this.setBackground(new Color(200, 200, 150));
         this.setPreferredSize(new Dimension(100, 150));
 
@@ -55,6 +61,7 @@ public class OutputPanel extends JPanel {
     /**
      * Creates and adds four labels to display computed data which are:
      * {@link #employeeNameLabel}, {@link #regularPayLabel}, {@link #overtimePayLabel}, {@link #grossPayLabel}
+     * and the {@link #importProgressBar}
      * </p>
      */
     private void createAndAddLabels() {
@@ -77,6 +84,12 @@ public class OutputPanel extends JPanel {
         this.add(new JLabel("Gross Pay "), BorderLayout.CENTER);
         grossPayLabel = new JLabel();
         this.add(grossPayLabel, BorderLayout.CENTER);
+
+        //Import Progress Label and Bar
+        this.add(new JLabel("Import Progress "), BorderLayout.CENTER);
+        importProgressBar = new JProgressBar(0, 100);
+        importProgressBar.setStringPainted(true);
+        this.add(importProgressBar, BorderLayout.CENTER);
     }
 
     /**
@@ -107,4 +120,11 @@ public class OutputPanel extends JPanel {
         return grossPayLabel;
     }
 
+    /**
+     * @return JProgressBar {@link #importProgressBar}
+     */
+    public JProgressBar getImportProgressBar() {
+        return importProgressBar;
+    }
+
 }
@@ -0,0 +1,266 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * Represents a configurable overtime policy, compiled into lookup tables so that evaluating it per employee costs
+ * about the same as the hardcoded {@link MoneyMath} rules. {@link #DEFAULT} is the 40 hour, time and a half rule
+ * and gives the same results as {@link MoneyMath}.
+ * <p>Policies are loaded from a properties file. Tiers are {@code hours:multiplier} pairs in increasing order, each
+ * paying its multiplier for the hours past its threshold until the next tier starts:</p>
+ * <pre>
+ * # time and a half past 40 hours a week
+ * weekly.tiers=40:1.5
+ * # time and a half past 8 hours a day, double time past 12
+ * daily.tiers=8:1.5,12:2
+ * # every hour worked on a holiday
+ * holiday.multiplier=2
+ * </pre>
+ * <p>With daily tiers, only the hours under the first daily threshold count toward the weekly tiers, so no hour is
+ * paid overtime twice. Multipliers are kept in hundredths, so pay stays exact in cents.</p>
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public final class OvertimePolicy {
+
+    /**
+     * Scale of every multiplier, 150 is time and a half.
+     */
+    private static final int MULTIPLIER_SCALE = 100;
+
+    /**
+     * Divisor that turns weighted overtime hours times hourly pay into cents.
+     */
+    private static final long OVERTIME_DIVISOR = (long) MoneyMath.HUNDREDTHS_PER_HOUR * MULTIPLIER_SCALE;
+
+    /**
+     * The hardcoded policy of {@link MathHelper}: time and a half past 40 hours a week.
+     */
+    public static final OvertimePolicy DEFAULT = new OvertimePolicy(
+            new long[] {MoneyMath.REGULAR_HOURS}, new int[] {150}, new long[0], new int[0], 0);
+
+    /**
+     * Tier thresholds in hundredths of an hour, multipliers in hundredths, and how much each tier raises the
+     * multiplier of the tier before it.
+     */
+    private final long[] weeklyThresholds;
+    private final int[] weeklyMultipliers;
+    private final long[] weeklySlopes;
+    private final long[] dailyThresholds;
+    private final int[] dailyMultipliers;
+    private final long[] dailySlopes;
+
+    /**
+     * Most hours a week paid at the regular rate, the first weekly threshold.
+     */
+    private final long regularHours;
+
+    /**
+     * Multiplier in hundredths for holiday hours, 0 if holidays are paid like any other day.
+     */
+    private final int holidayMultiplier;
+
+    private OvertimePolicy(long[] weeklyThresholds, int[] weeklyMultipliers, long[] dailyThresholds,
+                           int[] dailyMultipliers, int holidayMultiplier) {
+        this.weeklyThresholds = weeklyThresholds;
+        this.regularHours = weeklyThresholds.length == 0 ? Long.MAX_VALUE : weeklyThresholds[0];
+        this.weeklyMultipliers = weeklyMultipliers;
+        this.weeklySlopes = slopes(weeklyMultipliers);
+        this.dailyThresholds = dailyThresholds;
+        this.dailyMultipliers = dailyMultipliers;
+        this.dailySlopes = slopes(dailyMultipliers);
+        this.holidayMultiplier = holidayMultiplier;
+    }
+
+    /**
+     * Loads and compiles a policy from a properties file.
+     *
+     * @param path policy file
+     * @return compiled policy
+     * @throws IOException file cannot be read
+     * @throws IllegalArgumentException the policy is malformed
+     */
+    public static OvertimePolicy load(Path path) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path)) {
+            properties.load(reader);
+        }
+        return compile(properties);
+    }
+
+    /**
+     * Compiles a policy from properties. A missing weekly.tiers key means no weekly overtime.
+     *
+     * @param properties policy properties
+     * @return compiled policy
+     * @throws IllegalArgumentException the policy is malformed
+     */
+    public static OvertimePolicy compile(Properties properties) {
+        String[] weekly = tiers(properties.getProperty("weekly.tiers", ""));
+        String[] daily = tiers(properties.getProperty("daily.tiers", ""));
+        long[] weeklyThresholds = new long[weekly.length];
+        int[] weeklyMultipliers = new int[weekly.length];
+        long[] dailyThresholds = new long[daily.length];
+        int[] dailyMultipliers = new int[daily.length];
+        parseTiers("weekly.tiers", weekly, weeklyThresholds, weeklyMultipliers);
+        parseTiers("daily.tiers", daily, dailyThresholds, dailyMultipliers);
+
+        String holiday = properties.getProperty("holiday.multiplier", "").trim();
+        int holidayMultiplier = holiday.isEmpty() ? 0 : parseMultiplier("holiday.multiplier", holiday);
+        return new OvertimePolicy(weeklyThresholds, weeklyMultipliers, dailyThresholds, dailyMultipliers,
+                holidayMultiplier);
+    }
+
+    /**
+     * Calculates regularPay in cents for a week's total hours, paying the hours under the first weekly threshold.
+     *
+     * @param hoursWorked hours worked in the week in hundredths of an hour
+     * @param hourlyPay hourly pay in cents
+     * @param roundingMode how to round a fraction of a cent
+     * @return regularPay in cents
+     */
+    public long getRegularPayCents(long hoursWorked, long hourlyPay, RoundingMode roundingMode) {
+        return MoneyMath.divide(Math.multiplyExact(Math.min(hoursWorked, regularHours), hourlyPay),
+                MoneyMath.HUNDREDTHS_PER_HOUR, roundingMode);
+    }
+
+    /**
+     * Calculates overtimePay in cents for a week's total hours using the weekly tiers.
+     *
+     * @param hoursWorked hours worked in the week in hundredths of an hour
+     * @param hourlyPay hourly pay in cents
+     * @param roundingMode how to round a fraction of a cent
+     * @return overtimePay in cents
+     */
+    public long getOvertimePayCents(long hoursWorked, long hourlyPay, RoundingMode roundingMode) {
+        long weightedHours = weightedOvertime(hoursWorked, weeklyThresholds, weeklySlopes);
+        return MoneyMath.divide(Math.multiplyExact(weightedHours, hourlyPay), OVERTIME_DIVISOR, roundingMode);
+    }
+
+    /**
+     * Calculates regular and overtime pay for a week of daily hours, applying daily tiers, holiday pay and then
+     * weekly tiers to the hours that are still regular.
+     *
+     * @param dailyHours hours worked each day in hundredths of an hour
+     * @param holidays true for each day that is a holiday, or null if none are
+     * @param days number of days to evaluate
+     * @param hourlyPay hourly pay in cents
+     * @param roundingMode how to round a fraction of a cent
+     * @param pay filled with regular pay then overtime pay in cents
+     */
+    public void evaluateWeek(long[] dailyHours, boolean[] holidays, int days, long hourlyPay,
+                             RoundingMode roundingMode, long[] pay) {
+        long regularHours = 0;
+        long weightedHours = 0;
+        for (int day = 0; day < days; day++) {
+            long hours = dailyHours[day];
+            if (holidayMultiplier > 0 && holidays != null && holidays[day]) {
+                weightedHours = Math.addExact(weightedHours, Math.multiplyExact(hours, holidayMultiplier));
+            } else if (dailyThresholds.length == 0) {
+                regularHours += hours;
+            } else {
+                regularHours += Math.min(hours, dailyThresholds[0]);
+                weightedHours = Math.addExact(weightedHours,
+                        weightedOvertime(hours, dailyThresholds, dailySlopes));
+            }
+        }
+
+        //weekly overtime only applies to hours that weren't already paid a premium
+        weightedHours = Math.addExact(weightedHours,
+                weightedOvertime(regularHours, weeklyThresholds, weeklySlopes));
+        pay[0] = getRegularPayCents(regularHours, hourlyPay, roundingMode);
+        pay[1] = MoneyMath.divide(Math.multiplyExact(weightedHours, hourlyPay),
+                OVERTIME_DIVISOR, roundingMode);
+    }
+
+    /**
+     * Finds the overtime hours past the first threshold weighted by their tier's multiplier. Every tier adds its
+     * slope for the hours past its threshold, which has no data dependent branches to mispredict.
+     */
+    private static long weightedOvertime(long hours, long[] thresholds, long[] slopes) {
+        long weightedHours = 0;
+        for (int tier = 0; tier < thresholds.length; tier++) {
+            weightedHours += Math.max(hours - thresholds[tier], 0) * slopes[tier];
+        }
+        return weightedHours;
+    }
+
+    /**
+     * Precomputes the difference between each tier's multiplier and the one before it.
+     */
+    private static long[] slopes(int[] multipliers) {
+        long[] slopes = new long[multipliers.length];
+        for (int i = 0; i < multipliers.length; i++) {
+            slopes[i] = multipliers[i] - (i == 0 ? 0 : multipliers[i - 1]);
+        }
+        return slopes;
+    }
+
+    private static String[] tiers(String value) {
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? new String[0] : trimmed.split("\\s*,\\s*");
+    }
+
+    private static void parseTiers(String key, String[] tiers, long[] thresholds, int[] multipliers) {
+        for (int i = 0; i < tiers.length; i++) {
+            String[] parts = tiers[i].split("\\s*:\\s*");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException(key + " tier '" + tiers[i] + "' must be hours:multiplier.");
+            }
+            try {
+                thresholds[i] = MoneyMath.toFixed(Double.parseDouble(parts[0]), 2, RoundingMode.HALF_UP);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(key + " tier '" + tiers[i] + "' has an invalid hours value.");
+            }
+            multipliers[i] = parseMultiplier(key, parts[1]);
+            if (thresholds[i] < 0 || thresholds[i] > MoneyMath.HOURS_IN_WEEK
+                    || (i > 0 && thresholds[i] <= thresholds[i - 1])) {
+                throw new IllegalArgumentException(key + " thresholds must increase and stay within a week.");
+            }
+        }
+    }
+
+    private static int parseMultiplier(String key, String value) {
+        try {
+            long multiplier = MoneyMath.toFixed(Double.parseDouble(value), 2, RoundingMode.HALF_UP);
+            if (multiplier < 0 || multiplier > 100 * MULTIPLIER_SCALE) {
+                throw new IllegalArgumentException(key + " multiplier " + value + " must be between 0 and 100.");
+            }
+            return (int) multiplier;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " multiplier '" + value + "' is not a number.");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "weekly=" + tiersToString(weeklyThresholds, weeklyMultipliers)
+                + " daily=" + tiersToString(dailyThresholds, dailyMultipliers)
+                + " holiday=" + (holidayMultiplier / (double) MULTIPLIER_SCALE);
+    }
+
+    private static String tiersToString(long[] thresholds, int[] multipliers) {
+        String[] tiers = new String[thresholds.length];
+        for (int i = 0; i < tiers.length; i++) {
+            tiers[i] = thresholds[i] / (double) MoneyMath.HUNDREDTHS_PER_HOUR + ":"
+                    + multipliers[i] / (double) MULTIPLIER_SCALE;
+        }
+        return Arrays.toString(tiers);
+    }
+}
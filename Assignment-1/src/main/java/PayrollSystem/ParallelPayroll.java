@@ -0,0 +1,282 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import java.io.IOException;
+import java.math.RoundingMode;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Headless payroll run that computes {@link MoneyMath} pay across every core with a {@link ForkJoinPool} and
+ * totals it per department, along with the {@link PayrollStatistics} of gross pay and overtime share.
+ * <p>The timesheet is read in windows of {@link #WINDOW_ROWS} rows and every window is split into chunks of
+ * {@link #CHUNK_ROWS} rows. Chunk boundaries and the shape of the merge tree only depend on the row count, never on
+ * the number of threads, so a 1 thread run and a 64 thread run add the same numbers in the same order. Totals are
+ * kept in exact cents on top of that, so they are identical whatever the order.</p>
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public final class ParallelPayroll {
+
+    /**
+     * Number of rows read into memory at a time.
+     */
+    static final int WINDOW_ROWS = 1 << 20;
+
+    /**
+     * Number of rows computed sequentially by one task.
+     */
+    static final int CHUNK_ROWS = 1 << 12;
+
+    private ParallelPayroll() {
+    }
+
+    /**
+     * Computes and totals pay for every row of a timesheet file.
+     *
+     * @param input CSV or TSV timesheet file with a department column
+     * @param parallelism number of worker threads
+     * @return {@link ParallelReport} with department totals and phase timings
+     * @throws IOException file cannot be read
+     */
+    public static ParallelReport run(Path input, int parallelism) throws IOException {
+        return run(input, parallelism, MoneyMath.DEFAULT_ROUNDING);
+    }
+
+    /**
+     * Computes and totals pay for every row of a timesheet file.
+     *
+     * @param input CSV or TSV timesheet file with a department column
+     * @param parallelism number of worker threads
+     * @param roundingMode how to round fractions of a cent
+     * @return {@link ParallelReport} with department totals and phase timings
+     * @throws IOException file cannot be read
+     */
+    public static ParallelReport run(Path input, int parallelism, RoundingMode roundingMode) throws IOException {
+        PayrollMetrics.RunEvent event = PayrollMetrics.beginRun("parallel", input);
+        ParallelReport report;
+        try (TimesheetReader reader = TimesheetReader.open(input)) {
+            report = run(reader, Long.MAX_VALUE, parallelism, roundingMode);
+        }
+        PayrollMetrics.endRun(event, report.getRows(), report.getTotals().getRejectedRows(),
+                report.getTotals().companyTotals().getGrossPayCents(0));
+        return report;
+    }
+
+    /**
+     * Computes and totals pay for the rows of a reader that start before an offset, such as one byte range of a
+     * timesheet handed to a {@link ShardWorker}. Rejected rows are numbered from the reader's row number.
+     *
+     * @param reader timesheet rows, left open
+     * @param end stream offset to stop at, rows starting at or after it are not computed
+     * @param parallelism number of worker threads
+     * @param roundingMode how to round fractions of a cent
+     * @return {@link ParallelReport} with department totals and phase timings
+     * @throws IOException reader cannot be read
+     */
+    static ParallelReport run(TimesheetReader reader, long end, int parallelism, RoundingMode roundingMode)
+            throws IOException {
+        ParallelReport report = new ParallelReport(parallelism);
+        BatchReport.resetPeakHeap();
+        long start = System.nanoTime();
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            Window window = new Window(roundingMode, reader.getRowNumber() + 1);
+            EmployeeIndex departmentIndex = new EmployeeIndex(16);
+            ChunkResult result = new ChunkResult();
+
+            while (true) {
+                long phaseStart = System.nanoTime();
+                int rows = window.fill(reader, end, departmentIndex);
+                report.addReadNanos(System.nanoTime() - phaseStart);
+                if (rows == 0) {
+                    break;
+                }
+
+                phaseStart = System.nanoTime();
+                int chunks = (rows + CHUNK_ROWS - 1) / CHUNK_ROWS;
+                ChunkResult windowResult = pool.invoke(new ChunkTask(window, rows, 0, chunks));
+                report.addComputeNanos(System.nanoTime() - phaseStart);
+
+                phaseStart = System.nanoTime();
+                result.merge(windowResult);
+                report.addMergeNanos(System.nanoTime() - phaseStart);
+                report.addRows(rows);
+            }
+
+            for (int i = 0; i < departmentIndex.size(); i++) {
+                report.getDepartments().add(departmentIndex.getName(i));
+            }
+            report.finish(result.totals, result.statistics, result.validation, System.nanoTime() - start,
+                    BatchReport.measurePeakHeap());
+        } finally {
+            pool.shutdown();
+        }
+        return report;
+    }
+
+    /**
+     * Reusable columnar buffer holding one window of parsed timesheet rows.
+     */
+    private static final class Window {
+        private final RoundingMode roundingMode;
+
+        /**
+         * Hours worked in hundredths of an hour and hourly pay in cents of each row. Every array starts at
+         * {@link #CHUNK_ROWS} rows and doubles up to {@link #WINDOW_ROWS}, so a small shard doesn't pay for a full
+         * window.
+         */
+        private long[] hoursWorked = new long[CHUNK_ROWS];
+        private long[] hourlyPay = new long[CHUNK_ROWS];
+
+        /**
+         * Department index of each row, 0 if the row could not be parsed.
+         */
+        private int[] departments = new int[CHUNK_ROWS];
+
+        /**
+         * {@link PayrollValidator} error bits of each row, and the indexes of each chunk's valid rows starting at
+         * the chunk's first row.
+         */
+        private byte[] errors = new byte[CHUNK_ROWS];
+        private int[] validRows = new int[CHUNK_ROWS];
+
+        /**
+         * Row number of index 0 of the window.
+         */
+        private long firstRow;
+        private int rows;
+
+        Window(RoundingMode roundingMode, long firstRow) {
+            this.roundingMode = roundingMode;
+            this.firstRow = firstRow;
+        }
+
+        /**
+         * Reads up to {@link #WINDOW_ROWS} rows, assigning new departments the next index in order of appearance.
+         *
+         * @param end stream offset no row read may start at or after
+         * @return number of rows read, 0 at the end of the timesheet
+         */
+        int fill(TimesheetReader reader, long end, EmployeeIndex departmentIndex) throws IOException {
+            firstRow += rows;
+            rows = 0;
+            //once a row past the end has been read, the bytes read are past it too and no more rows are read
+            while (rows < WINDOW_ROWS && reader.getBytesRead() < end && reader.next()
+                    && reader.getRowOffset() < end) {
+                if (rows == hoursWorked.length) {
+                    grow();
+                }
+                if (reader.parseFixed(roundingMode)) {
+                    hoursWorked[rows] = reader.getHoursWorkedHundredths();
+                    hourlyPay[rows] = reader.getHourlyPayCents();
+                    departments[rows] = reader.indexDepartment(departmentIndex);
+                    errors[rows] = 0;
+                } else {
+                    hoursWorked[rows] = 0;
+                    hourlyPay[rows] = 0;
+                    departments[rows] = 0;
+                    errors[rows] = PayrollValidator.MALFORMED;
+                }
+                rows++;
+            }
+            return rows;
+        }
+
+        private void grow() {
+            int capacity = Math.min(hoursWorked.length * 2, WINDOW_ROWS);
+            hoursWorked = Arrays.copyOf(hoursWorked, capacity);
+            hourlyPay = Arrays.copyOf(hourlyPay, capacity);
+            departments = Arrays.copyOf(departments, capacity);
+            errors = Arrays.copyOf(errors, capacity);
+            validRows = new int[capacity];
+        }
+    }
+
+    /**
+     * Computes a range of chunks of a {@link Window}. Ranges are always split at the same midpoint and merged left
+     * to right, so the merge tree is fixed by the row count alone.
+     */
+    private static final class ChunkTask extends RecursiveTask<ChunkResult> {
+        private final Window window;
+        private final int rows;
+        private final int fromChunk;
+        private final int toChunk;
+
+        ChunkTask(Window window, int rows, int fromChunk, int toChunk) {
+            this.window = window;
+            this.rows = rows;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        @Override
+        protected ChunkResult compute() {
+            if (toChunk - fromChunk == 1) {
+                return computeChunk();
+            }
+
+            int middle = (fromChunk + toChunk) >>> 1;
+            ChunkTask left = new ChunkTask(window, rows, fromChunk, middle);
+            ChunkTask right = new ChunkTask(window, rows, middle, toChunk);
+            left.fork();
+            ChunkResult rightResult = right.compute();
+            ChunkResult leftResult = left.join();
+            leftResult.merge(rightResult);
+            return leftResult;
+        }
+
+        private ChunkResult computeChunk() {
+            ChunkResult result = new ChunkResult();
+            int start = fromChunk * CHUNK_ROWS;
+            int end = Math.min(rows, toChunk * CHUNK_ROWS);
+            int valid = PayrollValidator.validate(window.hoursWorked, window.hourlyPay, window.errors, start, end,
+                    window.validRows, result.validation, window.firstRow);
+            for (int rejected = valid; rejected < end - start; rejected++) {
+                result.totals.reject();
+            }
+            //rows are counted a chunk at a time and never timed, the report has the phase timings
+            PayrollMetrics.countRows(valid, result.validation);
+
+            //only valid rows reach the pay math
+            for (int row = start; row < start + valid; row++) {
+                int i = window.validRows[row];
+                long hoursWorked = window.hoursWorked[i];
+                long hourlyPay = window.hourlyPay[i];
+                long regularPay = MoneyMath.getRegularPayCents(hoursWorked, hourlyPay, window.roundingMode);
+                long overtimePay = MoneyMath.getOvertimePayCents(hoursWorked, hourlyPay, window.roundingMode);
+                long grossPay = MoneyMath.getGrossPayCents(regularPay, overtimePay);
+                result.totals.add(window.departments[i], regularPay, overtimePay, grossPay);
+                result.statistics.add(window.departments[i], overtimePay, grossPay);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Totals and pay distribution of a range of rows.
+     */
+    private static final class ChunkResult {
+        private final PayrollTotals totals = new PayrollTotals(16);
+        private final PayrollStatistics statistics = new PayrollStatistics(16);
+        private final ValidationReport validation = new ValidationReport();
+
+        void merge(ChunkResult other) {
+            totals.merge(other.totals);
+            statistics.merge(other.statistics);
+            validation.merge(other.validation);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents the outcome of a {@link ParallelPayroll} run: per department and company wide totals and pay
+ * distribution plus the time spent reading, computing and merging. A {@link ShardCoordinator} run also counts its
+ * shards and retries, and its parallelism is the number of worker processes.
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public class ParallelReport {
+
+    private final int parallelism;
+    private final List<String> departments = new ArrayList<>();
+    private PayrollTotals totals;
+    private PayrollStatistics statistics;
+    private ValidationReport validation;
+    private long rows;
+    private int shards;
+    private int retries;
+    private long readNanos;
+    private long computeNanos;
+    private long mergeNanos;
+    private long elapsedNanos;
+    private long peakHeapBytes;
+
+    /**
+     * @param parallelism number of worker threads the run used
+     */
+    ParallelReport(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    void addRows(long rows) {
+        this.rows += rows;
+    }
+
+    void addReadNanos(long nanos) {
+        readNanos += nanos;
+    }
+
+    void addComputeNanos(long nanos) {
+        computeNanos += nanos;
+    }
+
+    void addMergeNanos(long nanos) {
+        mergeNanos += nanos;
+    }
+
+    void setShards(int shards, int retries) {
+        this.shards = shards;
+        this.retries = retries;
+    }
+
+    void finish(PayrollTotals totals, PayrollStatistics statistics, ValidationReport validation, long elapsedNanos,
+                long peakHeapBytes) {
+        this.totals = totals;
+        this.statistics = statistics;
+        this.validation = validation;
+        this.elapsedNanos = elapsedNanos;
+        this.peakHeapBytes = peakHeapBytes;
+    }
+
+    /**
+     * @return department names, indexed the same as {@link #getTotals()}
+     */
+    public List<String> getDepartments() {
+        return departments;
+    }
+
+    /**
+     * @return per department totals
+     */
+    public PayrollTotals getTotals() {
+        return totals;
+    }
+
+    /**
+     * @return per department gross pay percentiles and overtime share
+     */
+    public PayrollStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * @return the rows rejected by {@link PayrollValidator} and why, in row order
+     */
+    public ValidationReport getValidation() {
+        return validation;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * @return number of shards of a {@link ShardCoordinator} run, 0 for a single process run
+     */
+    public int getShards() {
+        return shards;
+    }
+
+    /**
+     * @return number of times a shard was handed out again after failing
+     */
+    public int getRetries() {
+        return retries;
+    }
+
+    public long getReadNanos() {
+        return readNanos;
+    }
+
+    public long getComputeNanos() {
+        return computeNanos;
+    }
+
+    public long getMergeNanos() {
+        return mergeNanos;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public long getPeakHeapBytes() {
+        return peakHeapBytes;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        totals.appendTable(builder, departments);
+        builder.append(System.lineSeparator());
+        statistics.appendTable(builder, departments, totals);
+        builder.append(System.lineSeparator());
+        builder.append("rows=").append(rows).append(" rejected=").append(totals.getRejectedRows());
+        if (validation.size() > 0) {
+            validation.appendCounts(builder.append(" (")).append(')');
+        }
+        if (shards > 0) {
+            builder.append(" workers=").append(parallelism).append(" shards=").append(shards).append(" retries=")
+                    .append(retries).append(System.lineSeparator());
+        } else {
+            builder.append(" threads=").append(parallelism).append(System.lineSeparator());
+        }
+        builder.append(String.format("read=%.3fs compute=%.3fs merge=%.3fs elapsed=%.3fs rows/sec=%.0f peakHeap=%.1fMiB",
+                readNanos / 1e9, computeNanos / 1e9, mergeNanos / 1e9, elapsedNanos / 1e9,
+                elapsedNanos == 0 ? 0.0 : rows * 1e9 / elapsedNanos, peakHeapBytes / (1024.0 * 1024.0)));
+        return builder.toString();
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Describes the compressed payroll history format written by {@link ArchiveWriter} and read by
+ * {@link ArchiveReader}.
+ * <p>Rows are stored ordered by employee and then period, so each row follows the same employee's previous period
+ * and is stored as the difference from it. Pay rarely changes much between periods, so most differences are zero
+ * or small. Rows are grouped into blocks of up to {@link #BLOCK_ROWS}. Each block stores its rows column by
+ * column as zigzag differences, either bit packed at the width of the column's largest value or as varints,
+ * whichever is smaller. A column that barely changes packs into a bit or two per row, while a column with a few
+ * large jumps stays in varints. Every block starts again from zero, so any
+ * block can be decoded without the ones before it, and an index at the end of the file finds an employee's blocks
+ * with a binary search. All fixed width values are little endian.</p>
+ * <pre>
+ * header : magic long, version int, blockRows int
+ * block  : rows int, 7 x column length int, 7 x column width byte, zero byte, 7 x column values,
+ *          crc32c int of everything before it. A width of {@link #VARINT} marks a varint column.
+ * index  : per block offset long, firstEmployeeId long, lastEmployeeId long, length int, rows int
+ * footer : indexOffset long, records long, blocks int, crc32c int of the index, magic long
+ * </pre>
+ * <p>The columns are employeeId, period, hoursWorked, hourlyPay, regularPay and overtimePay, each stored as the
+ * difference from the row before it. grossPay is stored as its difference from regularPay + overtimePay, which is
+ * normally zero.</p>
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public final class PayrollArchive {
+
+    /**
+     * "PAYARCHV" in ASCII, identifies an archive file.
+     */
+    public static final long MAGIC = 0x5041594152434856L;
+
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 16;
+    public static final int BLOCK_ROWS = 4096;
+    public static final int INDEX_ENTRY_SIZE = 32;
+    public static final int FOOTER_SIZE = 32;
+
+    public static final int COLUMNS = 7;
+    public static final int EMPLOYEE_ID = 0;
+    public static final int PERIOD = 1;
+    public static final int HOURS_WORKED = 2;
+    public static final int HOURLY_PAY = 3;
+    public static final int REGULAR_PAY = 4;
+    public static final int OVERTIME_PAY = 5;
+    public static final int GROSS_PAY = 6;
+
+    /**
+     * Column width marking a column of varints instead of bit packed values.
+     */
+    public static final int VARINT = 0xFF;
+
+    /**
+     * Size of the fixed part of a block: the row count, the length and width of each column and a padding byte.
+     */
+    static final int BLOCK_HEADER_SIZE = 4 + COLUMNS * 4 + COLUMNS + 1;
+    static final int WIDTHS = 4 + COLUMNS * 4;
+
+    /**
+     * Bytes a block buffer needs past its end, since packed values are read and written 8 bytes at a time.
+     */
+    static final int PACKING_SLACK = 16;
+
+    /**
+     * Longest varint of a long.
+     */
+    static final int MAX_VARINT_SIZE = 10;
+
+    static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private PayrollArchive() {
+    }
+
+    static ByteBuffer createHeader() {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(BYTE_ORDER);
+        header.putLong(MAGIC).putInt(VERSION).putInt(BLOCK_ROWS).flip();
+        return header;
+    }
+
+    static void checkHeader(ByteBuffer header) throws IOException {
+        header.order(BYTE_ORDER);
+        if (header.getLong(0) != MAGIC) {
+            throw new IOException("Not a payroll archive.");
+        }
+        if (header.getInt(8) != VERSION) {
+            throw new IOException("Unsupported payroll archive version " + header.getInt(8) + ".");
+        }
+        if (header.getInt(12) != BLOCK_ROWS) {
+            throw new IOException("Unsupported payroll archive block size " + header.getInt(12) + ".");
+        }
+    }
+
+    /**
+     * Writes a value as a varint, seven bits per byte with the high bit set on every byte but the last.
+     *
+     * @return index after the last byte written
+     */
+    static int putVarint(byte[] buffer, int offset, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[offset++] = (byte) value;
+        return offset;
+    }
+
+    /**
+     * @return number of bytes {@link #putVarint} writes for a value
+     */
+    static int varintSize(long value) {
+        return Math.max(1, (Long.SIZE - Long.numberOfLeadingZeros(value) + 6) / 7);
+    }
+
+    /**
+     * Packs values into width bits each, least significant bit first. The buffer needs {@link #PACKING_SLACK}
+     * bytes after the packed values, which are zeroed.
+     *
+     * @param buffer buffer to write into, wrapped by a little endian ByteBuffer
+     * @param offset index to start writing at
+     * @param values values that all fit in width bits
+     * @param count number of values
+     * @param width bits per value, 0 to 64
+     * @return index after the packed values
+     */
+    static int pack(ByteBuffer buffer, int offset, long[] values, int count, int width) {
+        int length = packedSize(count, width);
+        for (int i = offset; i < offset + length + PACKING_SLACK; i++) {
+            buffer.put(i, (byte) 0);
+        }
+        long bit = 0;
+        for (int i = 0; i < count && width > 0; i++, bit += width) {
+            int index = offset + (int) (bit >>> 3);
+            int shift = (int) (bit & 7);
+            long value = values[i];
+            buffer.putLong(index, buffer.getLong(index) | value << shift);
+            if (shift + width > Long.SIZE) {
+                buffer.put(index + 8, (byte) (buffer.get(index + 8) | value >>> (Long.SIZE - shift)));
+            }
+        }
+        return offset + length;
+    }
+
+    /**
+     * Unpacks values written by {@link #pack}. The buffer needs {@link #PACKING_SLACK} readable bytes after them.
+     */
+    static void unpack(ByteBuffer buffer, int offset, long[] values, int count, int width) {
+        if (width == 0) {
+            for (int i = 0; i < count; i++) {
+                values[i] = 0;
+            }
+            return;
+        }
+        long mask = width == Long.SIZE ? -1L : (1L << width) - 1;
+        long bit = 0;
+        for (int i = 0; i < count; i++, bit += width) {
+            int index = offset + (int) (bit >>> 3);
+            int shift = (int) (bit & 7);
+            long value = buffer.getLong(index) >>> shift;
+            if (shift + width > Long.SIZE) {
+                value |= (buffer.get(index + 8) & 0xFFL) << (Long.SIZE - shift);
+            }
+            values[i] = value & mask;
+        }
+    }
+
+    static int packedSize(int count, int width) {
+        return (int) (((long) count * width + 7) >>> 3);
+    }
+
+    /**
+     * Maps signed values to unsigned ones so small negative differences also take few varint bytes.
+     */
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
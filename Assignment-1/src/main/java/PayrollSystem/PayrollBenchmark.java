@@ -0,0 +1,223 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Micro benchmarks for the payroll kernels, run with {@code BatchMain bench [rows]}. Every case is warmed up before
+ * it is timed and reports nanoseconds per row.
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public final class PayrollBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int ITERATIONS = 20;
+
+    /**
+     * Keeps results alive so the JIT cannot remove the benchmarked work.
+     */
+    private static volatile double sink;
+
+    private PayrollBenchmark() {
+    }
+
+    /**
+     * Runs every benchmark case and prints the results.
+     *
+     * @param rows number of employees per iteration
+     */
+    public static void run(int rows) {
+        Random random = new Random(42);
+        double[] hoursWorked = new double[rows];
+        double[] hourlyPay = new double[rows];
+        long[] hoursWorkedHundredths = new long[rows];
+        long[] hourlyPayCents = new long[rows];
+        for (int i = 0; i < rows; i++) {
+            hoursWorkedHundredths[i] = random.nextInt(8001);
+            hourlyPayCents[i] = 1000 + random.nextInt(5001);
+            hoursWorked[i] = hoursWorkedHundredths[i] / 100.0;
+            hourlyPay[i] = hourlyPayCents[i] / 100.0;
+        }
+        double[] regularPay = new double[rows];
+        double[] overtimePay = new double[rows];
+        double[] grossPay = new double[rows];
+        long[] regularPayCents = new long[rows];
+        long[] overtimePayCents = new long[rows];
+        long[] grossPayCents = new long[rows];
+
+        System.out.println("rows=" + rows + " columnar kernel=" + ColumnarPayroll.getKernelName());
+
+        double baseline = time("MathHelper loop", rows, () -> {
+            for (int i = 0; i < rows; i++) {
+                double regular = MathHelper.getRegularPay(hoursWorked[i], hourlyPay[i]);
+                double overtime = MathHelper.getOvertimePay(hoursWorked[i], hourlyPay[i]);
+                regularPay[i] = regular;
+                overtimePay[i] = overtime;
+                grossPay[i] = MathHelper.getGrossPay(regular, overtime);
+            }
+            sink = grossPay[rows - 1];
+        }, 0);
+
+        time("columnar scalar", rows, () -> {
+            ColumnarPayroll.SCALAR_KERNEL.compute(hoursWorked, hourlyPay, regularPay, overtimePay, grossPay, 0, rows);
+            sink = grossPay[rows - 1];
+        }, baseline);
+
+        if (!ColumnarPayroll.getKernelName().equals("scalar")) {
+            time("columnar " + ColumnarPayroll.getKernelName(), rows, () -> {
+                ColumnarPayroll.compute(hoursWorked, hourlyPay, regularPay, overtimePay, grossPay);
+                sink = grossPay[rows - 1];
+            }, baseline);
+        }
+
+        time("columnar cents", rows, () -> {
+            ColumnarPayroll.computeCents(hoursWorkedHundredths, hourlyPayCents, regularPayCents, overtimePayCents,
+                    grossPayCents, 0, rows, RoundingMode.HALF_UP);
+            sink = grossPayCents[rows - 1];
+        }, baseline);
+
+        policyBenchmark(hoursWorkedHundredths, hourlyPayCents, grossPayCents);
+        indexBenchmark(rows);
+    }
+
+    /**
+     * Compares the hardcoded {@link MoneyMath} rules with the compiled {@link OvertimePolicy#DEFAULT} and a tiered
+     * policy, and checks that the default policy pays exactly the same.
+     *
+     * @param hoursWorked hours worked in hundredths
+     * @param hourlyPay hourly pay in cents
+     * @param grossPay scratch column for gross pay in cents
+     */
+    private static void policyBenchmark(long[] hoursWorked, long[] hourlyPay, long[] grossPay) {
+        int rows = hoursWorked.length;
+        Properties properties = new Properties();
+        properties.setProperty("weekly.tiers", "40:1.5,50:2,60:2.5");
+        OvertimePolicy tiered = OvertimePolicy.compile(properties);
+        long[] expected = new long[rows];
+
+        double baseline = time("MoneyMath cents loop", rows, () -> {
+            for (int i = 0; i < rows; i++) {
+                long regular = MoneyMath.getRegularPayCents(hoursWorked[i], hourlyPay[i], RoundingMode.HALF_UP);
+                long overtime = MoneyMath.getOvertimePayCents(hoursWorked[i], hourlyPay[i], RoundingMode.HALF_UP);
+                expected[i] = MoneyMath.getGrossPayCents(regular, overtime);
+            }
+            sink = expected[rows - 1];
+        }, 0);
+
+        OvertimePolicy policy = OvertimePolicy.DEFAULT;
+        time("policy default", rows, () -> {
+            for (int i = 0; i < rows; i++) {
+                long regular = policy.getRegularPayCents(hoursWorked[i], hourlyPay[i], RoundingMode.HALF_UP);
+                long overtime = policy.getOvertimePayCents(hoursWorked[i], hourlyPay[i], RoundingMode.HALF_UP);
+                grossPay[i] = MoneyMath.getGrossPayCents(regular, overtime);
+            }
+            sink = grossPay[rows - 1];
+        }, baseline);
+        for (int i = 0; i < rows; i++) {
+            if (grossPay[i] != expected[i]) {
+                throw new IllegalStateException("Default overtime policy differs from MoneyMath at row " + i);
+            }
+        }
+
+        time("policy 3 tiers", rows, () -> {
+            for (int i = 0; i < rows; i++) {
+                long regular = tiered.getRegularPayCents(hoursWorked[i], hourlyPay[i], RoundingMode.HALF_UP);
+                long overtime = tiered.getOvertimePayCents(hoursWorked[i], hourlyPay[i], RoundingMode.HALF_UP);
+                grossPay[i] = MoneyMath.getGrossPayCents(regular, overtime);
+            }
+            sink = grossPay[rows - 1];
+        }, baseline);
+    }
+
+    /**
+     * Compares the heap used by, and lookup time of, an {@link EmployeeIndex} and a HashMap of the same names.
+     *
+     * @param rows number of employees to index
+     */
+    private static void indexBenchmark(int rows) {
+        byte[][] names = new byte[rows][];
+        for (int i = 0; i < rows; i++) {
+            names[i] = ("employee" + i).getBytes(StandardCharsets.UTF_8);
+        }
+
+        long before = usedHeap();
+        EmployeeIndex index = new EmployeeIndex(rows);
+        for (byte[] name : names) {
+            index.getOrAdd(name, 0, name.length);
+        }
+        long indexBytes = usedHeap() - before;
+
+        before = usedHeap();
+        Map<String, Integer> map = new HashMap<>(rows * 2);
+        for (int i = 0; i < rows; i++) {
+            map.put(new String(names[i], StandardCharsets.UTF_8), i);
+        }
+        long mapBytes = usedHeap() - before;
+
+        System.out.printf("EmployeeIndex heap %6.1f MiB, HashMap<String, Integer> heap %6.1f MiB%n",
+                indexBytes / (1024.0 * 1024.0), mapBytes / (1024.0 * 1024.0));
+        time("EmployeeIndex lookup", rows, () -> {
+            int found = 0;
+            for (byte[] name : names) {
+                found += index.get(name, 0, name.length);
+            }
+            sink = found;
+        }, 0);
+        sink = map.size();
+    }
+
+    /**
+     * @return heap in use after asking for a garbage collection
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Times a benchmark case and prints its nanoseconds per row.
+     *
+     * @param name name of the case
+     * @param rows rows computed by one run of the case
+     * @param body one iteration of the case
+     * @param baseline nanoseconds per row to print a speedup against, 0 for none
+     * @return nanoseconds per row of the fastest iteration
+     */
+    static double time(String name, int rows, Runnable body, double baseline) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            body.run();
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            body.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        double nanosPerRow = (double) best / rows;
+        if (baseline > 0) {
+            System.out.printf("%-24s %8.3f ns/row  %5.2fx%n", name, nanosPerRow, baseline / nanosPerRow);
+        } else {
+            System.out.printf("%-24s %8.3f ns/row%n", name, nanosPerRow);
+        }
+        return nanosPerRow;
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import javax.swing.*;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Runs a {@link BatchPayroll} import off the Event Dispatch Thread so the GUI stays responsive however large the
+ * timesheet is. Running totals are published at most {@link #PUBLISH_INTERVAL_NANOS} apart and only the latest
+ * one is shown, so the {@link OutputPanel} labels are updated at screen refresh rate rather than once per row.
+ * The import stops within {@link BatchPayroll#CANCEL_ROWS} rows of {@link #cancel(boolean)}, and the finished
+ * callback waits for it to stop, since SwingWorker calls {@link #done()} as soon as it is cancelled.
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+class PayrollImportWorker extends SwingWorker<BatchReport, PayrollImportWorker.Update> {
+
+    /**
+     * Shortest time between two published updates, one frame at 60 fps.
+     */
+    private static final long PUBLISH_INTERVAL_NANOS = 16_000_000L;
+
+    private final Path input;
+    private final Path output;
+    private final RoundingMode roundingMode;
+    private final OutputPanel outputPanel;
+    private final ReportPanel reportPanel;
+    private final JFrame parentFrame;
+    private final Runnable onFinished;
+    private long lastPublish;
+    //done() and the end of doInBackground() still to happen before onFinished, only used on the EDT
+    private int pendingFinishes = 2;
+
+    /**
+     * Running totals of an import at one point in time.
+     */
+    static final class Update {
+        private final long rows;
+        private final long rejectedRows;
+        private final long regularPay;
+        private final long overtimePay;
+        private final long grossPay;
+
+        Update(BatchReport report) {
+            rows = report.getRows();
+            rejectedRows = report.getRejectedRows();
+            regularPay = report.getRegularPay();
+            overtimePay = report.getOvertimePay();
+            grossPay = report.getGrossPay();
+        }
+    }
+
+    /**
+     * Creates a PayrollImportWorker, started with {@link #execute()}.
+     *
+     * @param input timesheet to import
+     * @param output file to write the computed rows to
+     * @param roundingMode how to round fractions of a cent
+     * @param outputPanel {@link OutputPanel} to show running totals and progress in
+     * @param reportPanel {@link ReportPanel} to show the finished import's statistics in
+     * @param parentFrame frame to show the result dialogs over
+     * @param onFinished called on the Event Dispatch Thread once the import finished, failed or was cancelled and
+     *                   has stopped writing the output
+     */
+    PayrollImportWorker(Path input, Path output, RoundingMode roundingMode, OutputPanel outputPanel,
+                        ReportPanel reportPanel, JFrame parentFrame, Runnable onFinished) {
+        this.input = input;
+        this.output = output;
+        this.roundingMode = roundingMode;
+        this.outputPanel = outputPanel;
+        this.reportPanel = reportPanel;
+        this.parentFrame = parentFrame;
+        this.onFinished = onFinished;
+        addPropertyChangeListener(event -> {
+            if ("progress".equals(event.getPropertyName())) {
+                outputPanel.getImportProgressBar().setValue((Integer) event.getNewValue());
+            }
+        });
+    }
+
+    @Override
+    protected BatchReport doInBackground() throws Exception {
+        try {
+            long size = Math.max(Files.size(input), 1);
+            return BatchPayroll.run(input, output, roundingMode, new BatchPayroll.Progress() {
+                @Override
+                public boolean update(BatchReport report, long bytesRead) {
+                    if (PayrollImportWorker.this.isCancelled()) {
+                        return false;
+                    }
+                    long now = System.nanoTime();
+                    if (now - lastPublish >= PUBLISH_INTERVAL_NANOS) {
+                        lastPublish = now;
+                        setProgress((int) Math.min(100, 100 * bytesRead / size));
+                        publish(new Update(report));
+                    }
+                    return true;
+                }
+
+                @Override
+                public boolean isCancelled() {
+                    return PayrollImportWorker.this.isCancelled();
+                }
+            });
+        } finally {
+            SwingUtilities.invokeLater(this::finish);
+        }
+    }
+
+    /**
+     * Shows only the newest of the updates published since the last call.
+     *
+     * @param updates updates coalesced by SwingWorker
+     */
+    @Override
+    protected void process(List<Update> updates) {
+        show(updates.get(updates.size() - 1));
+    }
+
+    @Override
+    protected void done() {
+        try {
+            if (isCancelled()) {
+                outputPanel.getEmployeeNameLabel().setText("Import cancelled");
+                return;
+            }
+
+            BatchReport report = get();
+            show(new Update(report));
+            reportPanel.showReport(report);
+            outputPanel.getImportProgressBar().setValue(100);
+            JOptionPane.showMessageDialog(parentFrame, "Imported " + input.getFileName() + " into "
+                    + output.getFileName() + System.lineSeparator() + report);
+        } catch (ExecutionException e) {
+            JOptionPane.showMessageDialog(parentFrame, "Import failed: " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            finish();
+        }
+    }
+
+    /**
+     * Calls onFinished once both {@link #done()} and {@link #doInBackground()} have ended, in whichever order, so
+     * Import is not enabled again while a cancelled run is still writing the output.
+     */
+    private void finish() {
+        if (--pendingFinishes == 0) {
+            onFinished.run();
+        }
+    }
+
+    /**
+     * Shows running totals in the {@link OutputPanel} labels.
+     */
+    private void show(Update update) {
+        StringBuilder text = new StringBuilder(MoneyFormat.MAX_LENGTH);
+        outputPanel.getEmployeeNameLabel().setText(update.rows + " rows, " + update.rejectedRows + " rejected");
+        outputPanel.getRegularPayLabel().setText(MoneyFormat.append(text, update.regularPay).toString());
+        text.setLength(0);
+        outputPanel.getOvertimePayLabel().setText(MoneyFormat.append(text, update.overtimePay).toString());
+        text.setLength(0);
+        outputPanel.getGrossPayLabel().setText(MoneyFormat.append(text, update.grossPay).toString());
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+
+/**
+ * Describes the binary payroll ledger format written by {@link LedgerWriter} and read by {@link LedgerReader}.
+ * <p>A ledger is a {@link #HEADER_SIZE} byte header followed by fixed size blocks. Every block holds room for
+ * {@link #BLOCK_RECORDS} records of {@link #RECORD_SIZE} bytes followed by a {@link #TRAILER_SIZE} byte trailer with
+ * the number of records in the block and a CRC32C of them. Only the last block may be partly filled. Because every
+ * record is the same size, record n is always at a computable offset. All values are little endian.</p>
+ * <pre>
+ * header  : magic long, version int, recordSize int, blockRecords int, zero padding
+ * record  : employeeId long, period int, hoursWorked int (hundredths), hourlyPay long (cents),
+ *           regularPay long, overtimePay long, grossPay long (cents)
+ * trailer : recordCount int, zero int, crc32c long
+ * </pre>
+ * <p>Employee ids come from an {@link EmployeeIndex} saved next to the ledger in a file named by
+ * {@link #employeesPath(Path)}, so an employee keeps the same id in every period whatever order the timesheets list
+ * them in, and an archive of the ledger can find their whole history.</p>
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public final class PayrollLedger {
+
+    /**
+     * "PAYLEDGR" in ASCII, identifies a ledger file.
+     */
+    public static final long MAGIC = 0x5041594C45444752L;
+
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 64;
+    public static final int RECORD_SIZE = 48;
+    public static final int BLOCK_RECORDS = 4096;
+    public static final int TRAILER_SIZE = 16;
+    public static final int BLOCK_SIZE = BLOCK_RECORDS * RECORD_SIZE + TRAILER_SIZE;
+
+    //offsets of each field within a record
+    static final int EMPLOYEE_ID = 0;
+    static final int PERIOD = 8;
+    static final int HOURS_WORKED = 12;
+    static final int HOURLY_PAY = 16;
+    static final int REGULAR_PAY = 24;
+    static final int OVERTIME_PAY = 32;
+    static final int GROSS_PAY = 40;
+
+    static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private PayrollLedger() {
+    }
+
+    /**
+     * @param ledger ledger file
+     * @return file of the employee names whose line numbers, counted from 0, are the ledger's employee ids
+     */
+    public static Path employeesPath(Path ledger) {
+        return ledger.resolveSibling(ledger.getFileName() + ".employees");
+    }
+
+    /**
+     * @param block index of a block
+     * @return file offset of the block
+     */
+    static long blockOffset(long block) {
+        return HEADER_SIZE + block * BLOCK_SIZE;
+    }
+
+    /**
+     * @return a new ledger header
+     */
+    static ByteBuffer createHeader() {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(BYTE_ORDER);
+        header.putLong(MAGIC).putInt(VERSION).putInt(RECORD_SIZE).putInt(BLOCK_RECORDS);
+        header.clear();
+        return header;
+    }
+
+    /**
+     * Checks that a header belongs to a ledger this version can read.
+     *
+     * @param header the first {@link #HEADER_SIZE} bytes of a file
+     * @throws IOException the file is not a ledger or has a different layout
+     */
+    static void checkHeader(ByteBuffer header) throws IOException {
+        header.order(BYTE_ORDER);
+        if (header.getLong(0) != MAGIC) {
+            throw new IOException("Not a payroll ledger.");
+        }
+        if (header.getInt(8) != VERSION || header.getInt(12) != RECORD_SIZE || header.getInt(16) != BLOCK_RECORDS) {
+            throw new IOException("Unsupported payroll ledger version " + header.getInt(8) + ".");
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends a stream of {@code /gross} requests to a {@link PayrollServer} on localhost from several threads and
+ * reports the throughput and the latency seen by the clients.
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public final class PayrollLoadTest {
+
+    private PayrollLoadTest() {
+    }
+
+    /**
+     * Runs a load test against a server on the loopback address.
+     *
+     * @param port port the server listens on
+     * @param requests total number of requests to send
+     * @param concurrency number of client threads, each with one request in flight
+     * @return report of throughput, failures and client side latency
+     * @throws IOException a client thread was interrupted
+     */
+    public static String run(int port, int requests, int concurrency) throws IOException {
+        HttpClient client = HttpClient.newHttpClient();
+        LatencyHistogram latency = new LatencyHistogram();
+        AtomicLong next = new AtomicLong();
+        AtomicLong failures = new AtomicLong();
+
+        List<Thread> threads = new ArrayList<>(concurrency);
+        long start = System.nanoTime();
+        for (int t = 0; t < concurrency; t++) {
+            Thread thread = new Thread(() -> {
+                for (long i = next.getAndIncrement(); i < requests; i = next.getAndIncrement()) {
+                    //vary the input so responses can't be cached anywhere along the way
+                    URI uri = URI.create("http://127.0.0.1:" + port + "/gross?hoursWorked=" + (i % 8000) / 100.0
+                            + "&hourlyPay=" + (10 + i % 50));
+                    long sent = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(HttpRequest.newBuilder(uri).build(),
+                                HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) {
+                            failures.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        failures.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    latency.record(System.nanoTime() - sent);
+                }
+            }, "payroll-load-" + t);
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Load test was interrupted.", e);
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        return String.format("requests=%d failures=%d concurrency=%d elapsed=%.3fs requests/sec=%.0f%n%s",
+                latency.getCount(), failures.get(), concurrency, seconds, latency.getCount() / seconds, latency);
+    }
+}
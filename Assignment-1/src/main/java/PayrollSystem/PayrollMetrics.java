@@ -0,0 +1,372 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process wide counters and latency histograms of the payroll compute path, readable at any time while payroll is
+ * being computed. Every row is split into four stages, {@link #VALIDATE}, {@link #COMPUTE}, {@link #FORMAT} and
+ * {@link #OUTPUT}, each with its own {@link LatencyHistogram}. Counting a row is a {@link LongAdder} increment, so
+ * threads never contend on a counter.
+ * <p>Reading the clock costs about as much as computing a row in a batch run, so batch runs only time one row in
+ * {@link #SAMPLE_ROWS}; the GUI and the server time every computation. Rows are always counted.</p>
+ * <p>Batch runs and single computations are also recorded as the JFR events {@link RunEvent} and
+ * {@link ComputeEvent}, which cost nothing unless a recording has them enabled:</p>
+ * <pre>
+ * java -XX:StartFlightRecording=filename=payroll.jfr -cp Assignment-1.jar PayrollSystem.BatchMain run ...
+ * jfr print --events PayrollSystem.Run payroll.jfr
+ * </pre>
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public final class PayrollMetrics {
+
+    /**
+     * Stages of a row, in the order of {@link #STAGES}.
+     */
+    public static final int VALIDATE = 0;
+    public static final int COMPUTE = 1;
+    public static final int FORMAT = 2;
+    public static final int OUTPUT = 3;
+    private static final String[] STAGES = {"validate", "compute", "format", "output"};
+
+    /**
+     * Batch runs time one row in this many, a power of two.
+     */
+    public static final int SAMPLE_ROWS = 64;
+
+    private static final LatencyHistogram[] LATENCIES = new LatencyHistogram[STAGES.length];
+    /**
+     * Total nanoseconds recorded per stage, the sum of the Prometheus summary.
+     */
+    private static final LongAdder[] STAGE_NANOS = new LongAdder[STAGES.length];
+    private static final LongAdder COMPUTED_ROWS = new LongAdder();
+    private static final LongAdder REJECTED_ROWS = new LongAdder();
+    private static final LongAdder[] REJECTIONS = new LongAdder[PayrollValidator.ERROR_BITS];
+    private static final LongAdder RUNS = new LongAdder();
+
+    static {
+        for (int i = 0; i < LATENCIES.length; i++) {
+            LATENCIES[i] = new LatencyHistogram();
+            STAGE_NANOS[i] = new LongAdder();
+        }
+        for (int i = 0; i < REJECTIONS.length; i++) {
+            REJECTIONS[i] = new LongAdder();
+        }
+    }
+
+    private PayrollMetrics() {
+    }
+
+    /**
+     * Decides whether a batch row is one of the rows that are timed.
+     *
+     * @param rowNumber row number of the row
+     * @return true for one row in {@link #SAMPLE_ROWS}
+     */
+    public static boolean isSampled(long rowNumber) {
+        return (rowNumber & (SAMPLE_ROWS - 1)) == 0;
+    }
+
+    /**
+     * Records the time a stage took, ending now.
+     *
+     * @param stage stage such as {@link #COMPUTE}
+     * @param since {@link System#nanoTime()} when the stage started
+     * @return now, the start of the next stage
+     */
+    public static long record(int stage, long since) {
+        long now = System.nanoTime();
+        LATENCIES[stage].record(now - since);
+        STAGE_NANOS[stage].add(now - since);
+        return now;
+    }
+
+    /**
+     * Counts one row as computed or rejected.
+     *
+     * @param errors {@link PayrollValidator} error bits of the row, 0 if it was computed
+     */
+    public static void countRow(int errors) {
+        if (errors == 0) {
+            COMPUTED_ROWS.increment();
+            return;
+        }
+        REJECTED_ROWS.increment();
+        for (int bit = 0; bit < REJECTIONS.length; bit++) {
+            if ((errors & (1 << bit)) != 0) {
+                REJECTIONS[bit].increment();
+            }
+        }
+    }
+
+    /**
+     * Counts a block of rows at once, for runs that validate whole columns.
+     *
+     * @param computed number of rows computed
+     * @param rejected rows rejected, with their error bits
+     */
+    public static void countRows(long computed, ValidationReport rejected) {
+        COMPUTED_ROWS.add(computed);
+        if (rejected.size() == 0) {
+            return;
+        }
+        REJECTED_ROWS.add(rejected.size());
+        for (int bit = 0; bit < REJECTIONS.length; bit++) {
+            REJECTIONS[bit].add(rejected.getErrorCount(1 << bit));
+        }
+    }
+
+    /**
+     * Starts timing a batch run for JFR.
+     *
+     * @param kind kind of run, such as "run" or "parallel"
+     * @param input timesheet being computed
+     * @return event to pass to {@link #endRun}
+     */
+    public static RunEvent beginRun(String kind, Path input) {
+        RunEvent event = new RunEvent();
+        event.kind = kind;
+        event.input = String.valueOf(input);
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Counts a finished batch run and commits its JFR event.
+     *
+     * @param event event returned by {@link #beginRun}
+     * @param rows number of rows the run read
+     * @param rejectedRows number of those rows it rejected
+     * @param grossPay gross pay of the computed rows in cents
+     */
+    public static void endRun(RunEvent event, long rows, long rejectedRows, long grossPay) {
+        RUNS.increment();
+        event.end();
+        if (event.shouldCommit()) {
+            event.rows = rows;
+            event.rejectedRows = rejectedRows;
+            event.grossPay = grossPay;
+            event.commit();
+        }
+    }
+
+    /**
+     * Starts timing one employee's computation for JFR.
+     *
+     * @param source where the computation came from, such as "gui" or "server"
+     * @return event to pass to {@link #endCompute}
+     */
+    public static ComputeEvent beginCompute(String source) {
+        ComputeEvent event = new ComputeEvent();
+        event.source = source;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Counts one employee's computation and commits its JFR event.
+     *
+     * @param event event returned by {@link #beginCompute}
+     * @param hoursWorked hours worked in hundredths
+     * @param hourlyPay hourly pay in cents
+     * @param pay pay that was asked for in cents, 0 if the input was rejected
+     * @param errors {@link PayrollValidator} error bits of the input
+     */
+    public static void endCompute(ComputeEvent event, long hoursWorked, long hourlyPay, long pay, int errors) {
+        countRow(errors);
+        event.end();
+        if (event.shouldCommit()) {
+            event.hoursWorked = hoursWorked;
+            event.hourlyPay = hourlyPay;
+            event.pay = pay;
+            event.errors = errors;
+            event.commit();
+        }
+    }
+
+    /**
+     * Clears every counter and histogram. Rows counted while resetting may or may not be kept.
+     */
+    public static void reset() {
+        for (int stage = 0; stage < STAGES.length; stage++) {
+            LATENCIES[stage].reset();
+            STAGE_NANOS[stage].reset();
+        }
+        COMPUTED_ROWS.reset();
+        REJECTED_ROWS.reset();
+        for (LongAdder rejections : REJECTIONS) {
+            rejections.reset();
+        }
+        RUNS.reset();
+    }
+
+    public static long getComputedRows() {
+        return COMPUTED_ROWS.sum();
+    }
+
+    public static long getRejectedRows() {
+        return REJECTED_ROWS.sum();
+    }
+
+    /**
+     * @param error one error bit, such as {@link PayrollValidator#NEGATIVE_HOURS}
+     * @return number of rejected rows with that bit set
+     */
+    public static long getRejections(int error) {
+        return REJECTIONS[Integer.numberOfTrailingZeros(error)].sum();
+    }
+
+    public static long getRuns() {
+        return RUNS.sum();
+    }
+
+    /**
+     * @param stage stage such as {@link #COMPUTE}
+     * @return latencies recorded for the stage
+     */
+    public static LatencyHistogram getLatency(int stage) {
+        return LATENCIES[stage];
+    }
+
+    /**
+     * Returns every metric in the Prometheus text format, for a monitoring scraper. Latencies are in seconds.
+     *
+     * @return one line per value
+     */
+    public static String dump() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("# TYPE payroll_rows_total counter\n");
+        builder.append("payroll_rows_total{result=\"computed\"} ").append(getComputedRows()).append('\n');
+        builder.append("payroll_rows_total{result=\"rejected\"} ").append(getRejectedRows()).append('\n');
+        builder.append("# TYPE payroll_rejections_total counter\n");
+        for (int bit = 0; bit < REJECTIONS.length; bit++) {
+            builder.append("payroll_rejections_total{reason=\"").append(PayrollValidator.name(bit)).append("\"} ")
+                    .append(REJECTIONS[bit].sum()).append('\n');
+        }
+        builder.append("# TYPE payroll_runs_total counter\n");
+        builder.append("payroll_runs_total ").append(getRuns()).append('\n');
+        builder.append("# TYPE payroll_stage_seconds summary\n");
+        double[] quantiles = {0.5, 0.9, 0.99, 0.999};
+        for (int stage = 0; stage < STAGES.length; stage++) {
+            LatencyHistogram latency = LATENCIES[stage];
+            for (double quantile : quantiles) {
+                builder.append("payroll_stage_seconds{stage=\"").append(STAGES[stage]).append("\",quantile=\"")
+                        .append(quantile).append("\"} ").append(latency.getQuantile(quantile) / 1e9).append('\n');
+            }
+            builder.append("payroll_stage_seconds_sum{stage=\"").append(STAGES[stage]).append("\"} ")
+                    .append(STAGE_NANOS[stage].sum() / 1e9).append('\n');
+            builder.append("payroll_stage_seconds_count{stage=\"").append(STAGES[stage]).append("\"} ")
+                    .append(latency.getCount()).append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Writes {@link #dump()} to a file by replacing it, so a scraper never reads half a dump.
+     *
+     * @param file file to write
+     * @throws IOException file cannot be written
+     */
+    public static void writeDump(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temporary, dump().getBytes(StandardCharsets.UTF_8));
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Returns the counters and a line of latency percentiles per stage, for people rather than scrapers.
+     *
+     * @return multi line summary
+     */
+    public static String summary() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("computed=").append(getComputedRows()).append(" rejected=").append(getRejectedRows());
+        for (int bit = 0; bit < REJECTIONS.length; bit++) {
+            builder.append(' ').append(PayrollValidator.name(bit)).append('=').append(REJECTIONS[bit].sum());
+        }
+        builder.append(" runs=").append(getRuns()).append('\n');
+        for (int stage = 0; stage < STAGES.length; stage++) {
+            builder.append(String.format("%-9s ", STAGES[stage])).append(LATENCIES[stage]).append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * JFR event of one batch run.
+     */
+    @Name("PayrollSystem.Run")
+    @Label("Payroll Run")
+    @Category("Payroll")
+    @Description("A timesheet computed by a batch run")
+    public static final class RunEvent extends Event {
+        @Label("Kind")
+        String kind;
+
+        @Label("Input")
+        String input;
+
+        @Label("Rows")
+        long rows;
+
+        @Label("Rejected Rows")
+        long rejectedRows;
+
+        @Label("Gross Pay")
+        @Description("Gross pay of the computed rows in cents")
+        long grossPay;
+    }
+
+    /**
+     * JFR event of one employee computed by the GUI or the server.
+     */
+    @Name("PayrollSystem.Compute")
+    @Label("Payroll Compute")
+    @Category("Payroll")
+    @Description("One employee's pay computed outside a batch run")
+    public static final class ComputeEvent extends Event {
+        @Label("Source")
+        String source;
+
+        @Label("Hours Worked")
+        @Description("Hours worked in hundredths of an hour")
+        long hoursWorked;
+
+        @Label("Hourly Pay")
+        @Description("Hourly pay in cents")
+        long hourlyPay;
+
+        @Label("Pay")
+        @Description("Pay that was asked for in cents, gross pay in the GUI, 0 if the input was rejected")
+        long pay;
+
+        @Label("Errors")
+        @Description("PayrollValidator error bits, 0 if the input was valid")
+        int errors;
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves the payroll math over HTTP on the loopback address so other tools can use it without the GUI. Requests are
+ * handled on virtual threads when the JVM has them and on a fixed pool of platform threads otherwise.
+ * <pre>
+ * GET  /regular?hoursWorked=45&amp;hourlyPay=20   regular pay
+ * GET  /overtime?hoursWorked=45&amp;hourlyPay=20  overtime pay
+ * GET  /gross?hoursWorked=45&amp;hourlyPay=20     gross pay
+ * POST /batch                                 a timesheet body, answered with {@link BatchPayroll} result rows
+ * GET  /latency                               latency percentiles of every endpoint
+ * GET  /metrics                               {@link PayrollMetrics} of every computation, for a scraper
+ * </pre>
+ * Invalid input is answered with 400 and the same message {@link ControlPanel} would show.
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public final class PayrollServer implements Closeable {
+
+    /**
+     * Port used when none is given.
+     */
+    public static final int DEFAULT_PORT = 8223;
+
+    /**
+     * Endpoint paths, in the order of {@link #latencies}.
+     */
+    private static final String[] PATHS = {"/regular", "/overtime", "/gross", "/batch", "/latency", "/metrics"};
+    private static final int REGULAR = 0;
+    private static final int OVERTIME = 1;
+    private static final int GROSS = 2;
+    private static final int BATCH = 3;
+    private static final int LATENCY = 4;
+    private static final int METRICS = 5;
+
+    /**
+     * Size of the buffer batch results are written through.
+     */
+    private static final int RESPONSE_BUFFER_SIZE = 1 << 16;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+    private final OvertimePolicy policy;
+    private final RoundingMode roundingMode;
+    private final LatencyHistogram[] latencies = new LatencyHistogram[PATHS.length];
+
+    /**
+     * Creates a server on the loopback address. It does not accept requests until {@link #start()} is called.
+     *
+     * @param port port to listen on, 0 for any free port
+     * @param policy {@link OvertimePolicy} to pay overtime by
+     * @param roundingMode how to round fractions of a cent
+     * @throws IOException the port cannot be bound
+     */
+    public PayrollServer(int port, OvertimePolicy policy, RoundingMode roundingMode) throws IOException {
+        this.policy = policy;
+        this.roundingMode = roundingMode;
+        //responses are small, without TCP_NODELAY each one waits ~40ms on the client's delayed ACK
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        ExecutorService virtual = newVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual
+                : Executors.newFixedThreadPool(4 * Runtime.getRuntime().availableProcessors());
+        server.setExecutor(executor);
+        for (int i = 0; i < PATHS.length; i++) {
+            int endpoint = i;
+            latencies[i] = new LatencyHistogram();
+            server.createContext(PATHS[i], exchange -> handle(exchange, endpoint));
+        }
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return bound port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Returns the name of the threads requests are handled on.
+     *
+     * @return "virtual" or "platform"
+     */
+    public String getThreadKind() {
+        return virtualThreads ? "virtual" : "platform";
+    }
+
+    /**
+     * Stops accepting requests, waits a second for those in flight and stops the handler threads.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Creates a virtual thread per task executor through reflection so the server still compiles and runs on JVMs
+     * without virtual threads.
+     *
+     * @return the executor, or null if virtual threads are not available
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            //missing before Java 21, or a preview feature that wasn't enabled
+            return null;
+        }
+    }
+
+    /**
+     * Answers one request and records how long it took.
+     */
+    private void handle(HttpExchange exchange, int endpoint) throws IOException {
+        long start = System.nanoTime();
+        try {
+            String method = exchange.getRequestMethod();
+            if (!method.equals(endpoint == BATCH ? "POST" : "GET")) {
+                respond(exchange, 405, "Use " + (endpoint == BATCH ? "POST" : "GET") + ".");
+            } else if (endpoint == BATCH) {
+                batch(exchange);
+            } else if (endpoint == LATENCY) {
+                respond(exchange, 200, latencyReport());
+            } else if (endpoint == METRICS) {
+                //the dump already ends every line with a line feed
+                String dump = PayrollMetrics.dump();
+                respond(exchange, 200, dump.substring(0, dump.length() - 1));
+            } else {
+                pay(exchange, endpoint);
+            }
+        } catch (RuntimeException e) {
+            //a batch has already sent its headers, the client sees the response end early instead
+            if (exchange.getResponseCode() == -1) {
+                respond(exchange, 500, "Payroll computation failed: " + e.getMessage());
+            }
+        } finally {
+            exchange.close();
+            latencies[endpoint].record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Answers one of the single employee endpoints.
+     */
+    private void pay(HttpExchange exchange, int endpoint) throws IOException {
+        String query = exchange.getRequestURI().getRawQuery();
+        String hours = parameter(query, "hoursWorked");
+        String rate = parameter(query, "hourlyPay");
+        if (hours == null || rate == null) {
+            respond(exchange, 400, "hoursWorked and hourlyPay are required.");
+            return;
+        }
+
+        PayrollMetrics.ComputeEvent event = PayrollMetrics.beginCompute("server");
+        long time = System.nanoTime();
+        long hoursWorked = 0;
+        long hourlyPay = 0;
+        int errors;
+        try {
+            hoursWorked = toFixed(hours);
+            hourlyPay = toFixed(rate);
+            errors = PayrollValidator.check(hoursWorked, hourlyPay);
+        } catch (NumberFormatException | ArithmeticException e) {
+            errors = PayrollValidator.MALFORMED;
+        }
+        time = PayrollMetrics.record(PayrollMetrics.VALIDATE, time);
+        if (errors != 0) {
+            PayrollMetrics.endCompute(event, hoursWorked, hourlyPay, 0, errors);
+            respond(exchange, 400, PayrollValidator.message(errors));
+            return;
+        }
+
+        long pay;
+        if (endpoint == REGULAR) {
+            pay = policy.getRegularPayCents(hoursWorked, hourlyPay, roundingMode);
+        } else if (endpoint == OVERTIME) {
+            pay = policy.getOvertimePayCents(hoursWorked, hourlyPay, roundingMode);
+        } else {
+            pay = MoneyMath.getGrossPayCents(policy.getRegularPayCents(hoursWorked, hourlyPay, roundingMode),
+                    policy.getOvertimePayCents(hoursWorked, hourlyPay, roundingMode));
+        }
+        time = PayrollMetrics.record(PayrollMetrics.COMPUTE, time);
+        String body = MoneyFormat.append(new StringBuilder(MoneyFormat.MAX_LENGTH), pay).toString();
+        time = PayrollMetrics.record(PayrollMetrics.FORMAT, time);
+        respond(exchange, 200, body);
+        PayrollMetrics.record(PayrollMetrics.OUTPUT, time);
+        PayrollMetrics.endCompute(event, hoursWorked, hourlyPay, pay, 0);
+    }
+
+    /**
+     * Streams a timesheet request body through {@link BatchPayroll} straight into the response, so a batch of any
+     * size is computed in a single request without being held in memory.
+     */
+    private void batch(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/csv; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        try (TimesheetReader reader = new TimesheetReader(exchange.getRequestBody());
+             OutputStream out = new BufferedOutputStream(exchange.getResponseBody(), RESPONSE_BUFFER_SIZE)) {
+            BatchPayroll.process(reader, out, new BatchReport(), policy, roundingMode, null);
+        }
+    }
+
+    /**
+     * Returns a line of latency percentiles for every endpoint.
+     */
+    private String latencyReport() {
+        StringBuilder report = new StringBuilder("threads=").append(getThreadKind()).append('\n');
+        for (int i = 0; i < PATHS.length; i++) {
+            report.append(String.format("%-10s ", PATHS[i])).append(latencies[i]).append('\n');
+        }
+        return report.toString();
+    }
+
+    /**
+     * Parses a decimal string to hundredths exactly.
+     */
+    private long toFixed(String value) {
+        return new BigDecimal(value).setScale(2, roundingMode).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Finds a parameter of a raw query string.
+     *
+     * @return decoded value, or null if the parameter is missing
+     */
+    private static String parameter(String query, String name) {
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0 && pair.substring(0, equals).equals(name)) {
+                return URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = (body + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
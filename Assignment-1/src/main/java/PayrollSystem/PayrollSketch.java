@@ -0,0 +1,215 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Mergeable quantile sketch of amounts in cents. Amounts are counted in logarithmic buckets that are
+ * {@link #RELATIVE_ACCURACY} wide, so every quantile is within 1% of the exact value however many amounts are added.
+ * Every long fits in about 2218 buckets, so memory stays constant, and two sketches merge by adding their counts,
+ * which gives the same result in any merge order.
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public final class PayrollSketch {
+
+    /**
+     * Largest relative error of a quantile.
+     */
+    public static final double RELATIVE_ACCURACY = 0.01;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+
+    /**
+     * Upper bound of every bucket: bucket i holds the amounts in (GAMMA^(i - 1), GAMMA^i].
+     */
+    private static final double[] BOUNDS = new double[(int) Math.ceil(Long.SIZE * Math.log(2) / Math.log(GAMMA)) + 1];
+
+    /**
+     * Splits every power of two into 2^{@link #MANTISSA_BITS} ranges by the top bits of the mantissa. Ranges are
+     * narrower than a bucket, so an amount is either in the first bucket its range overlaps or the next one.
+     */
+    private static final int MANTISSA_BITS = 7;
+    private static final int[] FIRST_BUCKET = new int[Long.SIZE << MANTISSA_BITS];
+
+    static {
+        for (int i = 0; i < BOUNDS.length; i++) {
+            BOUNDS[i] = Math.pow(GAMMA, i);
+        }
+        int bucket = 0;
+        for (int range = 0; range < FIRST_BUCKET.length; range++) {
+            double lowest = Math.scalb(1 + (range & ((1 << MANTISSA_BITS) - 1)) / (double) (1 << MANTISSA_BITS),
+                    range >>> MANTISSA_BITS);
+            while (BOUNDS[bucket] < lowest) {
+                bucket++;
+            }
+            FIRST_BUCKET[range] = bucket;
+        }
+    }
+
+    /**
+     * Counts of the buckets from {@link #offset}, grown to cover the smallest and largest bucket seen so far.
+     */
+    private long[] counts = new long[0];
+    private int offset;
+
+    /**
+     * Count of amounts under one cent, they have no logarithm.
+     */
+    private long zeroCount;
+    private long count;
+
+    /**
+     * Adds one amount.
+     *
+     * @param cents amount in cents, amounts under one cent are counted as 0
+     */
+    public void add(long cents) {
+        count++;
+        if (cents < 1) {
+            zeroCount++;
+            return;
+        }
+        //a table lookup and one comparison instead of a logarithm
+        double amount = cents;
+        int range = (Math.getExponent(amount) << MANTISSA_BITS)
+                | (int) (Double.doubleToRawLongBits(amount) >>> (52 - MANTISSA_BITS)) & ((1 << MANTISSA_BITS) - 1);
+        int bucket = FIRST_BUCKET[range];
+        if (BOUNDS[bucket] < amount) {
+            bucket++;
+        }
+        ensureBucket(bucket);
+        counts[bucket - offset]++;
+    }
+
+    /**
+     * Adds every amount counted by another sketch.
+     *
+     * @param other sketch to add to this one
+     */
+    public void merge(PayrollSketch other) {
+        if (other.count == 0) {
+            return;
+        }
+        count += other.count;
+        zeroCount += other.zeroCount;
+        for (int i = 0; i < other.counts.length; i++) {
+            if (other.counts[i] != 0) {
+                int bucket = other.offset + i;
+                ensureBucket(bucket);
+                counts[bucket - offset] += other.counts[i];
+            }
+        }
+    }
+
+    /**
+     * Writes the counts from the first to the last bucket that isn't empty, to be read back by {@link #read}.
+     *
+     * @param out stream to write to
+     * @throws IOException stream cannot be written
+     */
+    void write(DataOutput out) throws IOException {
+        int first = 0;
+        int last = counts.length;
+        while (first < last && counts[first] == 0) {
+            first++;
+        }
+        while (last > first && counts[last - 1] == 0) {
+            last--;
+        }
+        out.writeLong(count);
+        out.writeLong(zeroCount);
+        out.writeInt(offset + first);
+        out.writeInt(last - first);
+        for (int i = first; i < last; i++) {
+            out.writeLong(counts[i]);
+        }
+    }
+
+    /**
+     * Reads a sketch written by {@link #write}.
+     *
+     * @param in stream to read from
+     * @return the sketch
+     * @throws IOException stream cannot be read or holds buckets no long falls in
+     */
+    static PayrollSketch read(DataInput in) throws IOException {
+        PayrollSketch sketch = new PayrollSketch();
+        sketch.count = in.readLong();
+        sketch.zeroCount = in.readLong();
+        int offset = in.readInt();
+        int length = in.readInt();
+        if (offset < 0 || length < 0 || length > BOUNDS.length - offset) {
+            throw new IOException("Sketch buckets " + offset + "+" + length + " are out of range.");
+        }
+        sketch.offset = offset;
+        sketch.counts = new long[length];
+        for (int i = 0; i < length; i++) {
+            sketch.counts[i] = in.readLong();
+        }
+        return sketch;
+    }
+
+    /**
+     * Estimates the amount that the given fraction of amounts are at or under.
+     *
+     * @param quantile fraction between 0 and 1, e.g. 0.9
+     * @return estimate in cents within {@link #RELATIVE_ACCURACY} of the exact quantile, 0 if the sketch is empty
+     */
+    public long getQuantile(double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+        //nearest rank, so the 99th percentile of 3 amounts is the largest
+        long rank = Math.max(0, (long) Math.ceil(Math.min(1, quantile) * count) - 1);
+        long seen = zeroCount;
+        if (rank < seen) {
+            return 0;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (rank < seen) {
+                //the point of the bucket whose relative error to both ends is equal
+                return Math.round(2 * BOUNDS[offset + i] / (GAMMA + 1));
+            }
+        }
+        return Math.round(2 * BOUNDS[offset + counts.length - 1] / (GAMMA + 1));
+    }
+
+    /**
+     * Returns the number of amounts added.
+     *
+     * @return count of amounts
+     */
+    public long getCount() {
+        return count;
+    }
+
+    private void ensureBucket(int bucket) {
+        if (counts.length == 0) {
+            counts = new long[16];
+            offset = bucket;
+        } else if (bucket < offset) {
+            //buckets are never negative, so don't grow past 0
+            int grow = Math.max(offset - bucket, Math.min(counts.length / 2, offset));
+            long[] grown = new long[counts.length + grow];
+            System.arraycopy(counts, 0, grown, grow, counts.length);
+            counts = grown;
+            offset -= grow;
+        } else if (bucket - offset >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(bucket - offset + 1, counts.length * 3 / 2));
+        }
+    }
+}
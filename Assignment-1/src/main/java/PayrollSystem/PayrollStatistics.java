@@ -0,0 +1,233 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Represents the distribution of pay per department, gathered in one pass alongside {@link PayrollTotals}. Gross pay
+ * goes into a {@link PayrollSketch} for its percentiles and each employee's share of overtime in gross pay into a
+ * fixed histogram of {@link #SHARE_BUCKETS} buckets, so memory does not grow with the number of employees.
+ * Departments are indexed like {@link PayrollTotals} and merging is exact, so statistics from parallel chunks merge
+ * to the same result in any order.
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public class PayrollStatistics {
+
+    /**
+     * Number of overtime share buckets, each 10% wide with 100% in the last.
+     */
+    public static final int SHARE_BUCKETS = 10;
+
+    private PayrollSketch[] grossPay;
+    private long[] overtimeShares;
+
+    /**
+     * Creates empty PayrollStatistics with room for the given number of departments.
+     *
+     * @param departments expected number of departments, grows as needed
+     */
+    public PayrollStatistics(int departments) {
+        grossPay = new PayrollSketch[Math.max(departments, 1)];
+        overtimeShares = new long[grossPay.length * SHARE_BUCKETS];
+    }
+
+    /**
+     * Adds one employee's pay to a department.
+     *
+     * @param department index of the department
+     * @param overtime overtime pay of the employee in cents
+     * @param gross gross pay of the employee in cents
+     */
+    public void add(int department, long overtime, long gross) {
+        ensureCapacity(department + 1);
+        sketch(department).add(gross);
+        overtimeShares[department * SHARE_BUCKETS + shareBucket(overtime, gross)]++;
+    }
+
+    /**
+     * Adds every department of another PayrollStatistics to this one.
+     *
+     * @param other statistics to add to these statistics
+     */
+    public void merge(PayrollStatistics other) {
+        ensureCapacity(other.grossPay.length);
+        for (int i = 0; i < other.grossPay.length; i++) {
+            if (other.grossPay[i] != null) {
+                sketch(i).merge(other.grossPay[i]);
+            }
+        }
+        for (int i = 0; i < other.overtimeShares.length; i++) {
+            overtimeShares[i] += other.overtimeShares[i];
+        }
+    }
+
+    /**
+     * Writes the statistics of the first departments, to be read back by {@link #read} in another process.
+     *
+     * @param out stream to write to
+     * @param departments number of departments to write
+     * @throws IOException stream cannot be written
+     */
+    void write(DataOutput out, int departments) throws IOException {
+        for (int i = 0; i < departments; i++) {
+            PayrollSketch sketch = i < grossPay.length ? grossPay[i] : null;
+            (sketch != null ? sketch : new PayrollSketch()).write(out);
+            for (int bucket = 0; bucket < SHARE_BUCKETS; bucket++) {
+                out.writeLong(getOvertimeShareCount(i, bucket));
+            }
+        }
+    }
+
+    /**
+     * Reads statistics written by {@link #write}, moving every department to a new index.
+     *
+     * @param in stream to read from
+     * @param departments new index of each written department
+     * @return the statistics
+     * @throws IOException stream cannot be read
+     */
+    static PayrollStatistics read(DataInput in, int[] departments) throws IOException {
+        PayrollStatistics statistics = new PayrollStatistics(departments.length);
+        for (int department : departments) {
+            statistics.ensureCapacity(department + 1);
+            statistics.grossPay[department] = PayrollSketch.read(in);
+            for (int bucket = 0; bucket < SHARE_BUCKETS; bucket++) {
+                statistics.overtimeShares[department * SHARE_BUCKETS + bucket] = in.readLong();
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Estimates a percentile of gross pay in a department.
+     *
+     * @param department index of the department
+     * @param quantile fraction between 0 and 1, e.g. 0.99
+     * @return gross pay in cents within {@link PayrollSketch#RELATIVE_ACCURACY}, 0 for an empty department
+     */
+    public long getGrossPayQuantile(int department, double quantile) {
+        return department < grossPay.length && grossPay[department] != null
+                ? grossPay[department].getQuantile(quantile) : 0;
+    }
+
+    /**
+     * Estimates a percentile of gross pay across every department.
+     *
+     * @param quantile fraction between 0 and 1, e.g. 0.99
+     * @return gross pay in cents within {@link PayrollSketch#RELATIVE_ACCURACY}, 0 if there are no employees
+     */
+    public long getCompanyGrossPayQuantile(double quantile) {
+        PayrollSketch company = new PayrollSketch();
+        for (PayrollSketch sketch : grossPay) {
+            if (sketch != null) {
+                company.merge(sketch);
+            }
+        }
+        return company.getQuantile(quantile);
+    }
+
+    /**
+     * Returns the number of employees of a department whose overtime share of gross pay falls in a bucket.
+     *
+     * @param department index of the department
+     * @param bucket share bucket, 0 for under 10% up to {@link #SHARE_BUCKETS} - 1 for 90% and over
+     * @return number of employees
+     */
+    public long getOvertimeShareCount(int department, int bucket) {
+        return department < grossPay.length ? overtimeShares[department * SHARE_BUCKETS + bucket] : 0;
+    }
+
+    /**
+     * Appends a table of gross pay percentiles and overtime share per department followed by the company.
+     *
+     * @param builder StringBuilder to append to
+     * @param departments department names by index
+     * @param totals totals of the same run, used for the overtime share of each department's payroll
+     */
+    public void appendTable(StringBuilder builder, List<String> departments, PayrollTotals totals) {
+        builder.append(String.format("%-20s %12s %12s %12s %9s  %s%n",
+                "department", "p50 gross", "p90 gross", "p99 gross", "overtime", "employees by overtime share"));
+        for (int i = 0; i < departments.size(); i++) {
+            appendRow(builder, departments.get(i).isEmpty() ? "(none)" : departments.get(i),
+                    getGrossPayQuantile(i, 0.5), getGrossPayQuantile(i, 0.9), getGrossPayQuantile(i, 0.99),
+                    share(totals.getOvertimePayCents(i), totals.getGrossPayCents(i)));
+            builder.append("  ").append(Arrays.toString(Arrays.copyOfRange(overtimeShares, i * SHARE_BUCKETS,
+                    (i + 1) * SHARE_BUCKETS))).append(System.lineSeparator());
+        }
+        PayrollTotals company = totals.companyTotals();
+        appendRow(builder, "company", getCompanyGrossPayQuantile(0.5), getCompanyGrossPayQuantile(0.9),
+                getCompanyGrossPayQuantile(0.99), share(company.getOvertimePayCents(0), company.getGrossPayCents(0)));
+        builder.append(System.lineSeparator());
+    }
+
+    private static void appendRow(StringBuilder builder, String name, long p50, long p90, long p99, double share) {
+        builder.append(String.format("%-20s", name));
+        appendCents(builder, p50);
+        appendCents(builder, p90);
+        appendCents(builder, p99);
+        builder.append(String.format(" %8.2f%%", share * 100));
+    }
+
+    /**
+     * Appends cents right aligned in a column 13 characters wide.
+     */
+    private static void appendCents(StringBuilder builder, long cents) {
+        for (int i = MoneyFormat.length(cents); i < 13; i++) {
+            builder.append(' ');
+        }
+        MoneyFormat.append(builder, cents);
+    }
+
+    /**
+     * Returns overtime pay as a fraction of gross pay, 0 if there is no gross pay.
+     *
+     * @param overtime overtime pay in cents
+     * @param gross gross pay in cents
+     * @return fraction between 0 and 1
+     */
+    public static double share(long overtime, long gross) {
+        return gross == 0 ? 0 : (double) overtime / gross;
+    }
+
+    /**
+     * Finds the share bucket of one employee with integer math, so a share on a bucket edge is never misplaced by
+     * rounding.
+     */
+    private static int shareBucket(long overtime, long gross) {
+        if (gross <= 0 || overtime <= 0) {
+            return 0;
+        }
+        long bucket = overtime <= Long.MAX_VALUE / SHARE_BUCKETS ? overtime * SHARE_BUCKETS / gross
+                : overtime / (gross / SHARE_BUCKETS);
+        return (int) Math.min(SHARE_BUCKETS - 1, bucket);
+    }
+
+    private PayrollSketch sketch(int department) {
+        if (grossPay[department] == null) {
+            grossPay[department] = new PayrollSketch();
+        }
+        return grossPay[department];
+    }
+
+    private void ensureCapacity(int departments) {
+        if (departments > grossPay.length) {
+            int capacity = Math.max(departments, grossPay.length * 2);
+            grossPay = Arrays.copyOf(grossPay, capacity);
+            overtimeShares = Arrays.copyOf(overtimeShares, capacity * SHARE_BUCKETS);
+        }
+    }
+}
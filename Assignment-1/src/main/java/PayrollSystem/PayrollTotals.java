@@ -0,0 +1,238 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Represents regular, overtime and gross pay totals per department in cents. Departments are identified by the index
+ * {@link ParallelPayroll} assigns them, so totals from different chunks of a run can be merged element by element.
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public class PayrollTotals {
+
+    private long[] employees;
+    private long[] regularPay;
+    private long[] overtimePay;
+    private long[] grossPay;
+    private long rejectedRows;
+
+    /**
+     * Creates empty PayrollTotals with room for the given number of departments.
+     *
+     * @param departments expected number of departments, grows as needed
+     */
+    public PayrollTotals(int departments) {
+        int capacity = Math.max(departments, 1);
+        employees = new long[capacity];
+        regularPay = new long[capacity];
+        overtimePay = new long[capacity];
+        grossPay = new long[capacity];
+    }
+
+    /**
+     * Adds one employee's pay to a department.
+     *
+     * @param department index of the department
+     * @param regular regular pay of the employee in cents
+     * @param overtime overtime pay of the employee in cents
+     * @param gross gross pay of the employee in cents
+     */
+    public void add(int department, long regular, long overtime, long gross) {
+        ensureCapacity(department + 1);
+        employees[department]++;
+        regularPay[department] += regular;
+        overtimePay[department] += overtime;
+        grossPay[department] += gross;
+    }
+
+    /**
+     * Removes one employee's pay from a department, undoing an earlier {@link #add}.
+     *
+     * @param department index of the department
+     * @param regular regular pay of the employee in cents
+     * @param overtime overtime pay of the employee in cents
+     * @param gross gross pay of the employee in cents
+     */
+    public void remove(int department, long regular, long overtime, long gross) {
+        employees[department]--;
+        regularPay[department] -= regular;
+        overtimePay[department] -= overtime;
+        grossPay[department] -= gross;
+    }
+
+    /**
+     * Counts a row that could not be computed.
+     */
+    public void reject() {
+        rejectedRows++;
+    }
+
+    /**
+     * Adds every department total of another PayrollTotals to this one. Totals are exact, so the order totals are
+     * merged in does not change the result.
+     *
+     * @param other totals to add to these totals
+     */
+    public void merge(PayrollTotals other) {
+        ensureCapacity(other.employees.length);
+        for (int i = 0; i < other.employees.length; i++) {
+            employees[i] += other.employees[i];
+            regularPay[i] += other.regularPay[i];
+            overtimePay[i] += other.overtimePay[i];
+            grossPay[i] += other.grossPay[i];
+        }
+        rejectedRows += other.rejectedRows;
+    }
+
+    /**
+     * Writes the totals of the first departments and the rejected row count, to be read back by {@link #read} in
+     * another process.
+     *
+     * @param out stream to write to
+     * @param departments number of departments to write
+     * @throws IOException stream cannot be written
+     */
+    void write(DataOutput out, int departments) throws IOException {
+        out.writeLong(rejectedRows);
+        for (int i = 0; i < departments; i++) {
+            out.writeLong(getEmployees(i));
+            out.writeLong(getRegularPayCents(i));
+            out.writeLong(getOvertimePayCents(i));
+            out.writeLong(getGrossPayCents(i));
+        }
+    }
+
+    /**
+     * Reads totals written by {@link #write}, moving every department to a new index.
+     *
+     * @param in stream to read from
+     * @param departments new index of each written department
+     * @return the totals
+     * @throws IOException stream cannot be read
+     */
+    static PayrollTotals read(DataInput in, int[] departments) throws IOException {
+        PayrollTotals totals = new PayrollTotals(departments.length);
+        totals.rejectedRows = in.readLong();
+        for (int department : departments) {
+            totals.ensureCapacity(department + 1);
+            totals.employees[department] = in.readLong();
+            totals.regularPay[department] = in.readLong();
+            totals.overtimePay[department] = in.readLong();
+            totals.grossPay[department] = in.readLong();
+        }
+        return totals;
+    }
+
+    /**
+     * Sums every department in department order.
+     *
+     * @return company wide totals as a single department 0
+     */
+    public PayrollTotals companyTotals() {
+        PayrollTotals company = new PayrollTotals(1);
+        for (int i = 0; i < employees.length; i++) {
+            company.employees[0] += employees[i];
+            company.regularPay[0] += regularPay[i];
+            company.overtimePay[0] += overtimePay[i];
+            company.grossPay[0] += grossPay[i];
+        }
+        company.rejectedRows = rejectedRows;
+        return company;
+    }
+
+    /**
+     * Compares every department total and the rejected row count with another PayrollTotals.
+     *
+     * @param other totals to compare with
+     * @return true if both hold the same totals
+     */
+    public boolean matches(PayrollTotals other) {
+        int departments = Math.max(employees.length, other.employees.length);
+        for (int i = 0; i < departments; i++) {
+            if (getEmployees(i) != other.getEmployees(i)
+                    || getRegularPayCents(i) != other.getRegularPayCents(i)
+                    || getOvertimePayCents(i) != other.getOvertimePayCents(i)
+                    || getGrossPayCents(i) != other.getGrossPayCents(i)) {
+                return false;
+            }
+        }
+        return rejectedRows == other.rejectedRows;
+    }
+
+    /**
+     * Appends a table of every department followed by the company totals.
+     *
+     * @param builder StringBuilder to append to
+     * @param departments department names by index
+     */
+    public void appendTable(StringBuilder builder, List<String> departments) {
+        builder.append(String.format("%-20s %12s %18s %18s %18s%n",
+                "department", "employees", "regularPay", "overtimePay", "grossPay"));
+        for (int i = 0; i < departments.size(); i++) {
+            appendRow(builder, departments.get(i).isEmpty() ? "(none)" : departments.get(i), this, i);
+        }
+        appendRow(builder, "company", companyTotals(), 0);
+    }
+
+    private static void appendRow(StringBuilder builder, String name, PayrollTotals totals, int department) {
+        builder.append(String.format("%-20s %12d", name, totals.getEmployees(department)));
+        appendCents(builder, totals.getRegularPayCents(department));
+        appendCents(builder, totals.getOvertimePayCents(department));
+        appendCents(builder, totals.getGrossPayCents(department));
+        builder.append(System.lineSeparator());
+    }
+
+    /**
+     * Appends cents right aligned in a column 19 characters wide.
+     */
+    private static void appendCents(StringBuilder builder, long cents) {
+        for (int i = MoneyFormat.length(cents); i < 19; i++) {
+            builder.append(' ');
+        }
+        MoneyFormat.append(builder, cents);
+    }
+
+    private void ensureCapacity(int departments) {
+        if (departments > employees.length) {
+            int capacity = Math.max(departments, employees.length * 2);
+            employees = Arrays.copyOf(employees, capacity);
+            regularPay = Arrays.copyOf(regularPay, capacity);
+            overtimePay = Arrays.copyOf(overtimePay, capacity);
+            grossPay = Arrays.copyOf(grossPay, capacity);
+        }
+    }
+
+    public long getEmployees(int department) {
+        return department < employees.length ? employees[department] : 0;
+    }
+
+    public long getRegularPayCents(int department) {
+        return department < regularPay.length ? regularPay[department] : 0;
+    }
+
+    public long getOvertimePayCents(int department) {
+        return department < overtimePay.length ? overtimePay[department] : 0;
+    }
+
+    public long getGrossPayCents(int department) {
+        return department < grossPay.length ? grossPay[department] : 0;
+    }
+
+    public long getRejectedRows() {
+        return rejectedRows;
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import java.io.IOException;
+import java.math.RoundingMode;
+import java.nio.file.Path;
+
+/**
+ * Validates payroll rows without dialogs, exceptions or allocation, so the same rules serve the GUI, batch runs,
+ * the HTTP service and bulk checks of whole timesheets.
+ * <p>Every rule a row breaks sets one bit of an error code, and 0 means the row is valid. Codes are computed from
+ * sign bits, with no branches on the data. {@link #validate(long[], long[], byte[], int,
+ * int, int[], ValidationReport, long)} checks whole columns at once and produces the indexes of the valid rows, so
+ * the rows that follow it only ever see valid input.</p>
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public final class PayrollValidator {
+
+    /**
+     * Hours worked or hourly rate is not a number, or too large for fixed point.
+     */
+    public static final int MALFORMED = 1;
+    public static final int NEGATIVE_HOURS = 1 << 1;
+    public static final int NEGATIVE_RATE = 1 << 2;
+    public static final int TOO_MANY_HOURS = 1 << 3;
+
+    /**
+     * Punch event older than the event before it, set by {@link PunchAggregator}.
+     */
+    public static final int OUT_OF_ORDER = 1 << 4;
+
+    /**
+     * Punch in while already punched in, or punch out without a punch in, set by {@link PunchAggregator}.
+     */
+    public static final int UNMATCHED_PUNCH = 1 << 5;
+
+    /**
+     * Punch out more than {@link PunchAggregator#MAX_SHIFT_SECONDS} after its punch in, set by
+     * {@link PunchAggregator}.
+     */
+    public static final int LONG_SHIFT = 1 << 6;
+
+    /**
+     * Number of distinct error bits.
+     */
+    public static final int ERROR_BITS = 7;
+
+    /**
+     * Messages of each error bit, in the order they are reported when a row breaks several rules.
+     */
+    private static final String[] MESSAGES = {
+            "Hours worked and hourly rate must be numbers.",
+            "Hours worked cannot be negative.",
+            "Hourly rate cannot be negative.",
+            "Hours worked cannot exceed hours in a week.",
+            "Punch is out of order.",
+            "Punch in and punch out must alternate.",
+            "Shift is longer than 24 hours."
+    };
+
+    private static final String[] NAMES = {"malformed", "negativeHours", "negativeRate", "tooManyHours", "outOfOrder",
+            "unmatchedPunch", "longShift"};
+
+    /**
+     * Number of rows {@link #validate(Path, RoundingMode)} reads into memory at a time.
+     */
+    static final int WINDOW_ROWS = 1 << 16;
+
+    private PayrollValidator() {
+    }
+
+    /**
+     * Checks one row.
+     *
+     * @param hoursWorked hours worked in hundredths of an hour
+     * @param hourlyPay hourly pay in cents
+     * @return error bits of every rule the row breaks, 0 if it is valid
+     */
+    public static int check(long hoursWorked, long hourlyPay) {
+        return (int) (hoursWorked >>> 63) << 1
+                | (int) (hourlyPay >>> 63) << 2
+                //only non negative hours can exceed the week, which also keeps the subtraction from overflowing
+                | (int) (((MoneyMath.HOURS_IN_WEEK - hoursWorked) & ~hoursWorked) >>> 63) << 3;
+    }
+
+    /**
+     * Checks the rows in [from, to) of a pair of columns.
+     *
+     * @param hoursWorked hours worked of each row in hundredths of an hour
+     * @param hourlyPay hourly pay of each row in cents
+     * @param errors error bits already known for each row, such as {@link #MALFORMED}, updated with every rule the
+     *               row breaks
+     * @param from first row to check
+     * @param to one past the last row to check
+     * @param validRows filled from index from on with the indexes of the valid rows, in order, so ranges of one
+     *                  set of columns can be checked concurrently
+     * @param report receives every rejected row, or null
+     * @param firstRow row number reported for index 0 of the columns
+     * @return number of valid rows written to validRows from index from on
+     */
+    public static int validate(long[] hoursWorked, long[] hourlyPay, byte[] errors, int from, int to,
+                               int[] validRows, ValidationReport report, long firstRow) {
+        int valid = 0;
+        int rejected = 0;
+        for (int i = from; i < to; i++) {
+            int error = errors[i] | check(hoursWorked[i], hourlyPay[i]);
+            errors[i] = (byte) error;
+            //always written, only kept by advancing valid, so there is no branch to mispredict
+            validRows[from + valid] = i;
+            valid += (error - 1) >>> 31;
+            rejected |= error;
+        }
+        if (rejected != 0 && report != null) {
+            for (int i = from; i < to; i++) {
+                if (errors[i] != 0) {
+                    report.add(firstRow + i, errors[i]);
+                }
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * @param errors error bits of a row
+     * @return message of the first rule the row breaks, or null if it is valid
+     */
+    public static String message(int errors) {
+        if (errors == 0) {
+            return null;
+        }
+        return MESSAGES[Integer.numberOfTrailingZeros(errors)];
+    }
+
+    /**
+     * @param bit index of an error bit, 0 to {@link #ERROR_BITS} - 1
+     * @return short name of the error for reports
+     */
+    public static String name(int bit) {
+        return NAMES[bit];
+    }
+
+    /**
+     * Validates every row of a timesheet without computing any pay.
+     *
+     * @param input CSV or TSV timesheet file
+     * @param roundingMode how to round digits past the second decimal place
+     * @return every rejected row and the number of rows checked
+     * @throws IOException file cannot be read
+     */
+    public static ValidationReport validate(Path input, RoundingMode roundingMode) throws IOException {
+        ValidationReport report = new ValidationReport();
+        long[] hoursWorked = new long[WINDOW_ROWS];
+        long[] hourlyPay = new long[WINDOW_ROWS];
+        byte[] errors = new byte[WINDOW_ROWS];
+        int[] validRows = new int[WINDOW_ROWS];
+        long start = System.nanoTime();
+
+        try (TimesheetReader reader = TimesheetReader.open(input)) {
+            long firstRow = 1;
+            while (true) {
+                int rows = 0;
+                while (rows < WINDOW_ROWS && reader.next()) {
+                    boolean parsed = reader.parseFixed(roundingMode);
+                    hoursWorked[rows] = parsed ? reader.getHoursWorkedHundredths() : 0;
+                    hourlyPay[rows] = parsed ? reader.getHourlyPayCents() : 0;
+                    errors[rows] = parsed ? 0 : (byte) MALFORMED;
+                    rows++;
+                }
+                if (rows == 0) {
+                    break;
+                }
+                validate(hoursWorked, hourlyPay, errors, 0, rows, validRows, report, firstRow);
+                report.addRows(rows);
+                firstRow += rows;
+            }
+        }
+        report.finish(System.nanoTime() - start);
+        return report;
+    }
+}
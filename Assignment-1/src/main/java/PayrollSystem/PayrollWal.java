@@ -0,0 +1,422 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+/**
+ * Write-ahead log of the result rows of a {@link BatchPayroll} run. Result rows are collected into a frame and a
+ * frame is appended and forced to disk as one group commit, so one fsync covers many rows. Every frame records how
+ * far into the timesheet it reaches and the running totals, so a run that died can reopen the log and continue
+ * after the last committed frame instead of starting over. A torn or corrupt frame at the end is discarded.
+ * <pre>
+ * header : magic long, timesheet size long, rounding mode int, policy crc32c int
+ * frame  : payloadLength int, frameRows int, inputOffset long, rowNumber long, rows long, rejectedRows long,
+ *          regularPay long, overtimePay long, grossPay long, rejections per error bit long[ERROR_BITS],
+ *          input crc32c int, delimiter byte, zero padding, crc32c int, payload
+ * </pre>
+ * All values are little endian and the CRC32C covers the frame header before it and the payload. The input CRC32C
+ * covers the timesheet up to inputOffset, so a log is only resumed on the timesheet it was written from, even if
+ * the timesheet was edited without changing its size. The rounding mode and the CRC32C of the
+ * {@link OvertimePolicy} are checked as well, so the rows before and after a resume are paid the same way.
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public final class PayrollWal implements Closeable {
+
+    /**
+     * "PAYWAL03" in ASCII, identifies a write-ahead log file.
+     */
+    public static final long MAGIC = 0x50415957414C3033L;
+
+    public static final int HEADER_SIZE = 24;
+
+    //offsets of each field within the file header
+    private static final int TIMESHEET_SIZE = 8;
+    private static final int ROUNDING_MODE = 16;
+    private static final int POLICY_CRC = 20;
+
+    //offsets of each field within a frame header
+    private static final int PAYLOAD_LENGTH = 0;
+    private static final int FRAME_ROWS = 4;
+    private static final int INPUT_OFFSET = 8;
+    private static final int ROW_NUMBER = 16;
+    private static final int ROWS = 24;
+    private static final int REJECTED_ROWS = 32;
+    private static final int REGULAR_PAY = 40;
+    private static final int OVERTIME_PAY = 48;
+    private static final int GROSS_PAY = 56;
+    private static final int ERROR_COUNTS = 64;
+    private static final int INPUT_CRC = ERROR_COUNTS + 8 * PayrollValidator.ERROR_BITS;
+    private static final int DELIMITER = INPUT_CRC + 4;
+    private static final int CRC = DELIMITER + 4;
+
+    public static final int FRAME_HEADER_SIZE = CRC + 4;
+
+    private static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private final FileChannel channel;
+    private final ByteBuffer frameHeader = ByteBuffer.allocate(FRAME_HEADER_SIZE).order(BYTE_ORDER);
+    private final CRC32C crc = new CRC32C();
+    private final FrameBuffer frame = new FrameBuffer();
+
+    /**
+     * Timesheet the log belongs to, and the running CRC32C of its bytes before {@link #checksummedTo}.
+     */
+    private final FileChannel timesheet;
+    private final CRC32C inputCrc = new CRC32C();
+    private final ByteBuffer inputBuffer = ByteBuffer.allocateDirect(1 << 16);
+    private long checksummedTo;
+
+    /**
+     * File offset just past the last committed frame.
+     */
+    private long end;
+
+    /**
+     * Frame header of the last committed frame, all zero if none were committed.
+     */
+    private final ByteBuffer lastCommitted = ByteBuffer.allocate(FRAME_HEADER_SIZE).order(BYTE_ORDER);
+
+    private long commits;
+    private long recoveredFrames;
+
+    private PayrollWal(FileChannel channel, FileChannel timesheet) {
+        this.channel = channel;
+        this.timesheet = timesheet;
+    }
+
+    /**
+     * Opens a write-ahead log, creating it if it doesn't exist or recovering the committed frames of an existing one
+     * and cutting off anything after them. An existing log is only resumed if the timesheet rows it committed are
+     * unchanged and it was written with the same policy and rounding mode.
+     *
+     * @param path log file
+     * @param input timesheet the log belongs to
+     * @param policy {@link OvertimePolicy} the rows are paid by
+     * @param roundingMode how fractions of a cent are rounded
+     * @return the open log
+     * @throws IOException file cannot be opened or belongs to another timesheet, policy or rounding mode
+     */
+    public static PayrollWal open(Path path, Path input, OvertimePolicy policy, RoundingMode roundingMode)
+            throws IOException {
+        FileChannel timesheet = FileChannel.open(input, StandardOpenOption.READ);
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            PayrollWal wal = new PayrollWal(channel, timesheet);
+            long timesheetSize = timesheet.size();
+            int policyCrc = checksum(policy);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(BYTE_ORDER);
+            if (channel.size() < HEADER_SIZE) {
+                header.putLong(MAGIC).putLong(timesheetSize).putInt(roundingMode.ordinal()).putInt(policyCrc).flip();
+                channel.truncate(0);
+                channel.write(header, 0);
+                channel.force(true);
+                wal.end = HEADER_SIZE;
+                return wal;
+            }
+
+            wal.readFully(header, 0);
+            if (header.getLong(0) != MAGIC) {
+                throw new IOException(path + " is not a payroll write-ahead log of this version.");
+            }
+            if (header.getLong(TIMESHEET_SIZE) != timesheetSize) {
+                throw new IOException(path + " belongs to a timesheet of " + header.getLong(TIMESHEET_SIZE)
+                        + " bytes.");
+            }
+            if (header.getInt(ROUNDING_MODE) != roundingMode.ordinal()) {
+                throw new IOException(path + " was written with another rounding mode than " + roundingMode + ".");
+            }
+            if (header.getInt(POLICY_CRC) != policyCrc) {
+                throw new IOException(path + " was written with another overtime policy than " + policy + ".");
+            }
+            wal.recover();
+            //the rows before the resume point must be the rows the committed frames were computed from
+            wal.checksumInput(wal.getInputOffset());
+            if (!wal.isEmpty() && (int) wal.inputCrc.getValue() != wal.lastCommitted.getInt(INPUT_CRC)) {
+                throw new IOException(input + " has changed since " + path + " was written.");
+            }
+            return wal;
+        } catch (IOException e) {
+            if (channel != null) {
+                channel.close();
+            }
+            timesheet.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Scans the committed frames and truncates the file after the last one that is complete and intact.
+     */
+    private void recover() throws IOException {
+        long size = channel.size();
+        long position = HEADER_SIZE;
+        ByteBuffer payload = ByteBuffer.allocate(0);
+        while (position + FRAME_HEADER_SIZE <= size) {
+            frameHeader.clear();
+            readFully(frameHeader, position);
+            int length = frameHeader.getInt(PAYLOAD_LENGTH);
+            if (length < 0 || position + FRAME_HEADER_SIZE + length > size) {
+                break;
+            }
+            if (payload.capacity() < length) {
+                payload = ByteBuffer.allocate(length);
+            }
+            payload.clear().limit(length);
+            readFully(payload, position + FRAME_HEADER_SIZE);
+            if (checksum(frameHeader.array(), payload.array(), length) != frameHeader.getInt(CRC)) {
+                break;
+            }
+            lastCommitted.clear();
+            lastCommitted.put(frameHeader.array());
+            position += FRAME_HEADER_SIZE + length;
+            recoveredFrames++;
+        }
+        end = position;
+        if (size > end) {
+            channel.truncate(end);
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Returns the stream that result rows of the next frame are written to.
+     *
+     * @return stream buffering the uncommitted frame
+     */
+    public OutputStream getFrame() {
+        return frame;
+    }
+
+    /**
+     * Appends the rows written to {@link #getFrame()} as one frame and forces it to disk.
+     *
+     * @param frameRows number of rows in the frame
+     * @param reader timesheet reader positioned on the last row of the frame
+     * @param report report holding the running totals up to the last row of the frame
+     * @throws IOException frame cannot be written
+     */
+    public void commit(int frameRows, TimesheetReader reader, BatchReport report) throws IOException {
+        ByteBuffer header = frameHeader.clear();
+        Arrays.fill(header.array(), (byte) 0);
+        header.putInt(PAYLOAD_LENGTH, frame.size);
+        header.putInt(FRAME_ROWS, frameRows);
+        header.putLong(INPUT_OFFSET, reader.getBytesRead());
+        header.putLong(ROW_NUMBER, reader.getRowNumber());
+        header.putLong(ROWS, report.getRows());
+        header.putLong(REJECTED_ROWS, report.getRejectedRows());
+        header.putLong(REGULAR_PAY, report.getRegularPay());
+        header.putLong(OVERTIME_PAY, report.getOvertimePay());
+        header.putLong(GROSS_PAY, report.getGrossPay());
+        for (int bit = 0; bit < PayrollValidator.ERROR_BITS; bit++) {
+            header.putLong(ERROR_COUNTS + 8 * bit, report.getValidation().getErrorCount(1 << bit));
+        }
+        checksumInput(reader.getBytesRead());
+        header.putInt(INPUT_CRC, (int) inputCrc.getValue());
+        header.put(DELIMITER, reader.getDelimiter());
+        header.putInt(CRC, checksum(header.array(), frame.bytes, frame.size));
+
+        ByteBuffer[] buffers = {header, ByteBuffer.wrap(frame.bytes, 0, frame.size)};
+        long length = FRAME_HEADER_SIZE + frame.size;
+        long written = 0;
+        channel.position(end);
+        while (written < length) {
+            written += channel.write(buffers);
+        }
+        //only the data has to reach the disk, the file size is implied by the frames
+        channel.force(false);
+
+        end += length;
+        lastCommitted.clear();
+        lastCommitted.put(header.array());
+        frame.size = 0;
+        commits++;
+    }
+
+    /**
+     * Copies the payload of every committed frame into an output file, replacing it only once the copy is complete
+     * and on disk.
+     *
+     * @param output file to write the result rows to
+     * @throws IOException log cannot be read or output cannot be written
+     */
+    public void checkpoint(Path output) throws IOException {
+        Path temporary = output.resolveSibling(output.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = HEADER_SIZE;
+            while (position < end) {
+                frameHeader.clear();
+                readFully(frameHeader, position);
+                int length = frameHeader.getInt(PAYLOAD_LENGTH);
+                long copied = 0;
+                while (copied < length) {
+                    copied += channel.transferTo(position + FRAME_HEADER_SIZE + copied, length - copied, out);
+                }
+                position += FRAME_HEADER_SIZE + length;
+            }
+            out.force(true);
+        }
+        Files.move(temporary, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return true if no frame has been committed
+     */
+    public boolean isEmpty() {
+        return end == HEADER_SIZE;
+    }
+
+    /**
+     * @return timesheet offset just past the last committed row
+     */
+    public long getInputOffset() {
+        return lastCommitted.getLong(INPUT_OFFSET);
+    }
+
+    /**
+     * @return timesheet row number of the last committed row
+     */
+    public long getRowNumber() {
+        return lastCommitted.getLong(ROW_NUMBER);
+    }
+
+    /**
+     * @return timesheet delimiter detected before the last commit
+     */
+    public byte getDelimiter() {
+        return lastCommitted.get(DELIMITER);
+    }
+
+    /**
+     * Restores the running totals of the last committed frame into a report.
+     *
+     * @param report report of the resumed run
+     */
+    void restore(BatchReport report) {
+        long[] errorCounts = new long[PayrollValidator.ERROR_BITS];
+        for (int bit = 0; bit < errorCounts.length; bit++) {
+            errorCounts[bit] = lastCommitted.getLong(ERROR_COUNTS + 8 * bit);
+        }
+        report.resume(lastCommitted.getLong(ROWS), lastCommitted.getLong(REJECTED_ROWS), errorCounts,
+                lastCommitted.getLong(REGULAR_PAY), lastCommitted.getLong(OVERTIME_PAY),
+                lastCommitted.getLong(GROSS_PAY));
+    }
+
+    /**
+     * @return number of frames committed since the log was opened
+     */
+    public long getCommits() {
+        return commits;
+    }
+
+    /**
+     * @return number of committed frames found when the log was opened
+     */
+    public long getRecoveredFrames() {
+        return recoveredFrames;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            channel.close();
+        } finally {
+            timesheet.close();
+        }
+    }
+
+    /**
+     * Adds the timesheet bytes from {@link #checksummedTo} up to an offset to the input CRC32C. They were just read
+     * by the run, so this reads them from the page cache rather than the disk.
+     */
+    private void checksumInput(long offset) throws IOException {
+        while (checksummedTo < offset) {
+            inputBuffer.clear().limit((int) Math.min(inputBuffer.capacity(), offset - checksummedTo));
+            if (timesheet.read(inputBuffer, checksummedTo) < 0) {
+                throw new IOException("Timesheet is shorter than its write-ahead log.");
+            }
+            inputBuffer.flip();
+            checksummedTo += inputBuffer.remaining();
+            inputCrc.update(inputBuffer);
+        }
+    }
+
+    /**
+     * CRC32C of a policy's tiers as given by {@link OvertimePolicy#toString()}.
+     */
+    private static int checksum(OvertimePolicy policy) {
+        CRC32C policyCrc = new CRC32C();
+        policyCrc.update(policy.toString().getBytes(StandardCharsets.UTF_8));
+        return (int) policyCrc.getValue();
+    }
+
+    private int checksum(byte[] header, byte[] payload, int length) {
+        crc.reset();
+        crc.update(header, 0, CRC);
+        crc.update(payload, 0, length);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Reads until the buffer is full, the position argument is the file offset of the buffer's index 0.
+     */
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of write-ahead log.");
+            }
+        }
+    }
+
+    /**
+     * Growable frame buffer. Unlike ByteArrayOutputStream its writes are not synchronized.
+     */
+    private static final class FrameBuffer extends OutputStream {
+        private byte[] bytes = new byte[1 << 16];
+        private int size;
+
+        @Override
+        public void write(int b) {
+            ensureCapacity(size + 1);
+            bytes[size++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            ensureCapacity(size + len);
+            System.arraycopy(b, off, bytes, size, len);
+            size += len;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+            }
+        }
+    }
+}
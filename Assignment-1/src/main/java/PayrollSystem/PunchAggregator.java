@@ -0,0 +1,301 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import java.math.RoundingMode;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Aggregates a time ordered stream of punch in and punch out events into weekly windows per employee, and pays each
+ * week with an {@link OvertimePolicy} as soon as it closes. Weeks run from Monday to Sunday, and shifts that cross
+ * midnight or the end of a week are split between the days they cover.
+ * <p>Only employees with punches in the current week are held, each in a window of seven daily totals, so memory
+ * stays bounded by the number of active employees however long the stream is. A week closes once the stream has
+ * passed its end and the employee is punched out. A punch in that is still open {@link #MAX_SHIFT_SECONDS} later
+ * is dropped, so a missing punch out cannot hold a window open forever.</p>
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public class PunchAggregator {
+
+    public static final long SECONDS_PER_DAY = 24 * 60 * 60;
+    public static final int DAYS_PER_WEEK = 7;
+
+    /**
+     * Longest shift accepted, 24 hours.
+     */
+    public static final long MAX_SHIFT_SECONDS = SECONDS_PER_DAY;
+
+    private static final long SECONDS_PER_HOUR = 60 * 60;
+
+    /**
+     * Receives the results of the aggregation in stream order.
+     */
+    public interface WeekListener {
+        /**
+         * Called once an employee's week has closed.
+         *
+         * @param employee employee name as it was punched
+         * @param weekStart epoch day of the Monday that starts the week
+         * @param hoursWorked hours worked in the week in hundredths of an hour
+         * @param hourlyPay hourly pay in cents of the employee's last punch in that week
+         * @param regularPay regular pay in cents
+         * @param overtimePay overtime pay in cents
+         */
+        void weekClosed(String employee, long weekStart, long hoursWorked, long hourlyPay, long regularPay,
+                        long overtimePay);
+
+        /**
+         * Called when a punch in is dropped because no punch out followed it within {@link #MAX_SHIFT_SECONDS}.
+         *
+         * @param employee employee name as it was punched
+         * @param punchIn epoch second of the dropped punch in
+         */
+        void punchDropped(String employee, long punchIn);
+    }
+
+    /**
+     * One employee's open week.
+     */
+    private static final class Window {
+        private String employee;
+        private long weekStart;
+        private final long[] daySeconds = new long[DAYS_PER_WEEK];
+        /**
+         * Epoch second of the open punch in, or -1 while punched out.
+         */
+        private long punchIn;
+        private long hourlyPay;
+    }
+
+    private final OvertimePolicy policy;
+    private final RoundingMode roundingMode;
+    private final WeekListener listener;
+
+    /**
+     * Open windows in the order their employee first punched in, so weeks close in a repeatable order.
+     */
+    private final Map<String, Window> windows = new LinkedHashMap<>();
+
+    /**
+     * Windows of closed weeks kept for reuse.
+     */
+    private final ArrayDeque<Window> freeWindows = new ArrayDeque<>();
+
+    private final long[] dailyHours = new long[DAYS_PER_WEEK];
+    private final long[] pay = new long[2];
+
+    /**
+     * Epoch second of the latest event, and the epoch day it falls on.
+     */
+    private long watermark = Long.MIN_VALUE;
+    private long watermarkDay = Long.MIN_VALUE;
+    private int maxWindows;
+
+    /**
+     * @param policy overtime rules the weeks are paid with
+     * @param roundingMode how to round fractions of a cent and of a hundredth of an hour
+     * @param listener receives closed weeks and dropped punches
+     */
+    public PunchAggregator(OvertimePolicy policy, RoundingMode roundingMode, WeekListener listener) {
+        this.policy = policy;
+        this.roundingMode = roundingMode;
+        this.listener = listener;
+    }
+
+    /**
+     * Adds a punch in. Weeks that ended before it are closed first, including the employee's own week if it is
+     * still held from an earlier week.
+     *
+     * @param employee employee name
+     * @param time epoch second of the punch, not before the previous event
+     * @param hourlyPay hourly pay in cents for the shift
+     * @return {@link PayrollValidator} error bits of why the punch was rejected, 0 if it was accepted
+     */
+    public int punchIn(String employee, long time, long hourlyPay) {
+        int error = advance(time);
+        if (error != 0) {
+            return error;
+        }
+        if (hourlyPay < 0) {
+            return PayrollValidator.NEGATIVE_RATE;
+        }
+
+        Window window = windows.get(employee);
+        if (window == null) {
+            window = openWindow(employee, weekStart(time));
+        } else if (window.punchIn >= 0) {
+            return PayrollValidator.UNMATCHED_PUNCH;
+        } else if (window.weekStart != weekStart(time)) {
+            //the window was held past its week by a punch that was later rejected, so the week closes here
+            close(window);
+            reset(window, weekStart(time));
+        }
+        window.punchIn = time;
+        window.hourlyPay = hourlyPay;
+        return 0;
+    }
+
+    /**
+     * Adds a punch out and credits the shift to the days it covers.
+     *
+     * @param employee employee name
+     * @param time epoch second of the punch, not before the previous event
+     * @return {@link PayrollValidator} error bits of why the punch was rejected, 0 if it was accepted
+     */
+    public int punchOut(String employee, long time) {
+        int error = advance(time);
+        if (error != 0) {
+            return error;
+        }
+
+        Window window = windows.get(employee);
+        if (window == null || window.punchIn < 0) {
+            return PayrollValidator.UNMATCHED_PUNCH;
+        }
+        long punchIn = window.punchIn;
+        window.punchIn = -1;
+        if (time - punchIn > MAX_SHIFT_SECONDS) {
+            return PayrollValidator.LONG_SHIFT;
+        }
+
+        //the week already ended if the shift crossed into the next one, which is credited to a new window
+        long weekEnd = (window.weekStart + DAYS_PER_WEEK) * SECONDS_PER_DAY;
+        credit(window, punchIn, Math.min(time, weekEnd));
+        if (time > weekEnd) {
+            close(window);
+            reset(window, window.weekStart + DAYS_PER_WEEK);
+            credit(window, Math.max(punchIn, weekEnd), time);
+        }
+        return 0;
+    }
+
+    /**
+     * Ends the stream, dropping open punches and closing every week still open.
+     */
+    public void finish() {
+        for (Iterator<Window> iterator = windows.values().iterator(); iterator.hasNext(); ) {
+            Window window = iterator.next();
+            if (window.punchIn >= 0) {
+                listener.punchDropped(window.employee, window.punchIn);
+                window.punchIn = -1;
+            }
+            close(window);
+            iterator.remove();
+            freeWindows.push(window);
+        }
+    }
+
+    /**
+     * @return number of weeks currently held in memory
+     */
+    public int getOpenWindows() {
+        return windows.size();
+    }
+
+    /**
+     * @return most weeks held in memory at once
+     */
+    public int getMaxOpenWindows() {
+        return maxWindows;
+    }
+
+    /**
+     * @param epochSecond any time in the week
+     * @return epoch day of the Monday starting the week
+     */
+    public static long weekStart(long epochSecond) {
+        long day = Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+        //epoch day 0 was a Thursday
+        return day - Math.floorMod(day + 3, DAYS_PER_WEEK);
+    }
+
+    /**
+     * Moves the watermark to an event's time. The first event of each day drops punches that have been open too long
+     * and closes the weeks that ended, which happens at most once per day of stream rather than per event.
+     *
+     * @return {@link PayrollValidator#OUT_OF_ORDER} if the event is older than the watermark, 0 otherwise
+     */
+    private int advance(long time) {
+        if (time < watermark) {
+            return PayrollValidator.OUT_OF_ORDER;
+        }
+        watermark = time;
+        long day = Math.floorDiv(time, SECONDS_PER_DAY);
+        if (day == watermarkDay) {
+            return 0;
+        }
+        watermarkDay = day;
+
+        for (Iterator<Window> iterator = windows.values().iterator(); iterator.hasNext(); ) {
+            Window window = iterator.next();
+            if (window.punchIn >= 0 && time - window.punchIn > MAX_SHIFT_SECONDS) {
+                listener.punchDropped(window.employee, window.punchIn);
+                window.punchIn = -1;
+            }
+            if (window.punchIn < 0 && window.weekStart + DAYS_PER_WEEK <= day) {
+                close(window);
+                iterator.remove();
+                freeWindows.push(window);
+            }
+        }
+        return 0;
+    }
+
+    private Window openWindow(String employee, long weekStart) {
+        Window window = freeWindows.isEmpty() ? new Window() : freeWindows.pop();
+        window.employee = employee;
+        window.punchIn = -1;
+        reset(window, weekStart);
+        windows.put(employee, window);
+        maxWindows = Math.max(maxWindows, windows.size());
+        return window;
+    }
+
+    private static void reset(Window window, long weekStart) {
+        window.weekStart = weekStart;
+        Arrays.fill(window.daySeconds, 0);
+    }
+
+    /**
+     * Adds the seconds between two times of the window's week to the days they fall on.
+     */
+    private static void credit(Window window, long from, long to) {
+        while (from < to) {
+            long day = Math.floorDiv(from, SECONDS_PER_DAY);
+            long end = Math.min(to, (day + 1) * SECONDS_PER_DAY);
+            window.daySeconds[(int) (day - window.weekStart)] += end - from;
+            from = end;
+        }
+    }
+
+    /**
+     * Pays a window's week and hands it to the listener. Each day is rounded to hundredths of an hour before the
+     * daily and weekly tiers are applied.
+     */
+    private void close(Window window) {
+        long hoursWorked = 0;
+        for (int day = 0; day < DAYS_PER_WEEK; day++) {
+            dailyHours[day] = MoneyMath.divide(window.daySeconds[day] * MoneyMath.HUNDREDTHS_PER_HOUR,
+                    SECONDS_PER_HOUR, roundingMode);
+            hoursWorked += dailyHours[day];
+        }
+        if (hoursWorked == 0) {
+            return;
+        }
+        policy.evaluateWeek(dailyHours, null, DAYS_PER_WEEK, window.hourlyPay, roundingMode, pay);
+        listener.weekClosed(window.employee, window.weekStart, hoursWorked, window.hourlyPay, pay[0], pay[1]);
+    }
+}
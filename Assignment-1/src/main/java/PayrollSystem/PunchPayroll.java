@@ -0,0 +1,272 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+/**
+ * Headless payroll computation over raw punch events instead of weekly hours. Events are CSV or TSV rows of
+ * {@code employee, time, punch, hourlyPay} ordered by time, where time is {@code yyyy-MM-ddTHH:mm[:ss]}, punch is
+ * {@code in} or {@code out} and hourlyPay is only needed on punch ins. An optional header row is skipped.
+ * <p>Events are read one line at a time into a {@link PunchAggregator}, and every week is written as soon as it
+ * closes as {@code employee, weekStart, hoursWorked, hourlyPay, regularPay, overtimePay, grossPay, error}.
+ * Rejected events and dropped punches are written with only the error filled in, so nothing waits for the end of
+ * the file.</p>
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public final class PunchPayroll {
+
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+
+    private PunchPayroll() {
+    }
+
+    /**
+     * Streams a file of punch events into a file of weekly pay.
+     *
+     * @param input punch events ordered by time
+     * @param output file to write weekly pay rows to
+     * @param policy overtime rules the weeks are paid with
+     * @param roundingMode how to round fractions of a cent
+     * @return counts, totals and timing of the run, where rows are events and departments hold closed weeks
+     * @throws IOException a file cannot be read or written
+     */
+    public static BatchReport run(Path input, Path output, OvertimePolicy policy, RoundingMode roundingMode)
+            throws IOException {
+        BatchReport report = new BatchReport();
+        BatchReport.resetPeakHeap();
+        long start = System.nanoTime();
+
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8);
+             Writer out = new BufferedWriter(Files.newBufferedWriter(output, StandardCharsets.UTF_8),
+                     OUTPUT_BUFFER_SIZE)) {
+            process(reader, out, report, policy, roundingMode);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        report.finish(System.nanoTime() - start, BatchReport.measurePeakHeap());
+        return report;
+    }
+
+    /**
+     * Streams punch events from a reader to a writer.
+     */
+    static void process(BufferedReader reader, Writer out, BatchReport report, OvertimePolicy policy,
+                        RoundingMode roundingMode) throws IOException {
+        int department = report.getDepartmentIndex().getOrAdd("");
+        StringBuilder row = new StringBuilder(128);
+        char[] delimiter = new char[1];
+        PunchAggregator aggregator = new PunchAggregator(policy, roundingMode, new PunchAggregator.WeekListener() {
+            @Override
+            public void weekClosed(String employee, long weekStart, long hoursWorked, long hourlyPay,
+                                   long regularPay, long overtimePay) {
+                long grossPay = MoneyMath.getGrossPayCents(regularPay, overtimePay);
+                char d = delimiter[0];
+                row.setLength(0);
+                row.append(employee).append(d).append(LocalDate.ofEpochDay(weekStart)).append(d);
+                MoneyFormat.append(row, hoursWorked).append(d);
+                MoneyFormat.append(row, hourlyPay).append(d);
+                MoneyFormat.append(row, regularPay).append(d);
+                MoneyFormat.append(row, overtimePay).append(d);
+                MoneyFormat.append(row, grossPay).append(d).append('\n');
+                write(out, row);
+                report.addPay(department, regularPay, overtimePay, grossPay);
+            }
+
+            @Override
+            public void punchDropped(String employee, long punchIn) {
+                writeError(out, row, delimiter[0], employee, PunchAggregator.weekStart(punchIn),
+                        "Punch in without punch out.");
+            }
+        });
+
+        String line;
+        boolean first = true;
+        long rowNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            if (first) {
+                delimiter[0] = line.indexOf('\t') >= 0 ? '\t' : ',';
+                writeHeader(out, delimiter[0]);
+            }
+
+            char d = delimiter[0];
+            int nameEnd = fieldEnd(line, 0, d);
+            int timeEnd = fieldEnd(line, nameEnd + 1, d);
+            int punchEnd = fieldEnd(line, timeEnd + 1, d);
+            int rateEnd = fieldEnd(line, punchEnd + 1, d);
+            String employee = line.substring(0, nameEnd);
+            long time = parseTime(line, Math.min(nameEnd + 1, line.length()), timeEnd);
+            if (first) {
+                first = false;
+                //first row whose time isn't a date and time is treated as a header
+                if (time == Long.MIN_VALUE) {
+                    continue;
+                }
+            }
+
+            //malformed events are told apart by their own messages, the aggregator's rejections by their error bits
+            int errors = PayrollValidator.MALFORMED;
+            String message;
+            if (time == Long.MIN_VALUE) {
+                message = "Punch time is not a date and time.";
+            } else if (line.regionMatches(true, timeEnd + 1, "in", 0, Math.max(punchEnd - timeEnd - 1, 2))) {
+                long hourlyPay = parseCents(line, Math.min(punchEnd + 1, line.length()), rateEnd, roundingMode);
+                if (hourlyPay != Long.MIN_VALUE) {
+                    errors = aggregator.punchIn(employee, time, hourlyPay);
+                }
+                message = "Hourly rate is not a number.";
+            } else if (line.regionMatches(true, timeEnd + 1, "out", 0, Math.max(punchEnd - timeEnd - 1, 3))) {
+                errors = aggregator.punchOut(employee, time);
+                message = null;
+            } else {
+                message = "Punch must be in or out.";
+            }
+
+            report.addRow(++rowNumber, errors);
+            if (errors != 0) {
+                writeError(out, row, d, employee, time == Long.MIN_VALUE ? Long.MIN_VALUE
+                        : PunchAggregator.weekStart(time),
+                        errors == PayrollValidator.MALFORMED ? message : PayrollValidator.message(errors));
+            }
+        }
+        if (first) {
+            writeHeader(out, ',');
+        }
+        aggregator.finish();
+    }
+
+    /**
+     * Parses {@code yyyy-MM-ddTHH:mm} with optional seconds, and a space instead of the T, without creating objects.
+     *
+     * @return epoch second, or Long.MIN_VALUE if the field is not a valid date and time
+     */
+    static long parseTime(String text, int start, int end) {
+        while (start < end && text.charAt(start) == ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) == ' ') {
+            end--;
+        }
+        int length = end - start;
+        if ((length != 16 && length != 19) || text.charAt(start + 4) != '-' || text.charAt(start + 7) != '-'
+                || (text.charAt(start + 10) != 'T' && text.charAt(start + 10) != ' ')
+                || text.charAt(start + 13) != ':' || (length == 19 && text.charAt(start + 16) != ':')) {
+            return Long.MIN_VALUE;
+        }
+
+        int year = digits(text, start, 4);
+        int month = digits(text, start + 5, 2);
+        int day = digits(text, start + 8, 2);
+        int hour = digits(text, start + 11, 2);
+        int minute = digits(text, start + 14, 2);
+        int second = length == 19 ? digits(text, start + 17, 2) : 0;
+        if (year < 0 || month < 0 || day < 0 || hour < 0 || hour > 23 || minute < 0 || minute > 59
+                || second < 0 || second > 59) {
+            return Long.MIN_VALUE;
+        }
+        try {
+            return LocalDate.of(year, month, day).toEpochDay() * PunchAggregator.SECONDS_PER_DAY
+                    + hour * 3600L + minute * 60L + second;
+        } catch (DateTimeException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * @return the digits as a number, or -1 if any of them isn't a digit
+     */
+    private static int digits(String text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * @return the field in cents, or Long.MIN_VALUE if it is not a number
+     */
+    private static long parseCents(String text, int start, int end, RoundingMode roundingMode) {
+        try {
+            return new BigDecimal(text.substring(start, end).trim()).movePointRight(2)
+                    .setScale(0, roundingMode).longValueExact();
+        } catch (NumberFormatException | ArithmeticException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Finds the end of a field. A field starting with a double quote runs to the closing quote, so delimiters
+     * inside quotes are ignored.
+     */
+    private static int fieldEnd(String line, int start, char delimiter) {
+        int i = Math.min(start, line.length());
+        if (i < line.length() && line.charAt(i) == '"') {
+            i = line.indexOf('"', i + 1);
+            if (i < 0) {
+                return line.length();
+            }
+        }
+        int end = line.indexOf(delimiter, i);
+        return end < 0 ? line.length() : end;
+    }
+
+    private static void writeError(Writer out, StringBuilder row, char delimiter, String employee, long weekStart,
+                                   String error) {
+        row.setLength(0);
+        row.append(employee).append(delimiter);
+        if (weekStart != Long.MIN_VALUE) {
+            row.append(LocalDate.ofEpochDay(weekStart));
+        }
+        for (int column = 0; column < 6; column++) {
+            row.append(delimiter);
+        }
+        write(out, row.append(error).append('\n'));
+    }
+
+    private static void writeHeader(Writer out, char delimiter) throws IOException {
+        String[] columns = {"employee", "weekStart", "hoursWorked", "hourlyPay", "regularPay", "overtimePay",
+                "grossPay", "error"};
+        out.write(String.join(String.valueOf(delimiter), columns));
+        out.write('\n');
+    }
+
+    /**
+     * Writes a row from inside a {@link PunchAggregator.WeekListener}, which cannot throw checked exceptions.
+     */
+    private static void write(Writer out, CharSequence row) {
+        try {
+            out.append(row);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
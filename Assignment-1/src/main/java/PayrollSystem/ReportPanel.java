@@ -0,0 +1,97 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.util.List;
+
+/**
+ * Represents a Report Panel that shows the gross pay percentiles and overtime share per department of the last
+ * timesheet import, next to the {@link OutputPanel}.
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public class ReportPanel extends JPanel {
+
+    /**
+     * Represents the columns of the report table.
+     */
+    private static final String[] COLUMNS = {"Department", "Employees", "p50 Gross", "p90 Gross", "p99 Gross",
+            "Overtime"};
+
+    /**
+     * Represents the rows of the report table, one per department followed by the company.
+     */
+    private final DefaultTableModel reportModel = new DefaultTableModel(COLUMNS, 0) {
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return false;
+        }
+    };
+
+    /**
+     * Creates a ReportPanel with set size and colors containing an empty report table.
+     */
+    public ReportPanel() {
+        //Calls super() and sets size constraints and color
+        super(new BorderLayout());
+        this.setBackground(new Color(200, 200, 150));
+        this.setPreferredSize(new Dimension(360, 150));
+
+        this.add(new JLabel("Import Report"), BorderLayout.NORTH);
+        JTable reportTable = new JTable(reportModel);
+        reportTable.setFillsViewportHeight(true);
+        this.add(new JScrollPane(reportTable), BorderLayout.CENTER);
+    }
+
+    /**
+     * Replaces the report table with the departments of a finished import.
+     *
+     * @param report {@link BatchReport} of the import
+     */
+    public void showReport(BatchReport report) {
+        clear();
+        List<String> departments = report.getDepartments();
+        PayrollTotals totals = report.getDepartmentTotals();
+        PayrollStatistics statistics = report.getStatistics();
+        for (int i = 0; i < departments.size(); i++) {
+            reportModel.addRow(new Object[] {departments.get(i).isEmpty() ? "(none)" : departments.get(i),
+                    totals.getEmployees(i), formatPay(statistics.getGrossPayQuantile(i, 0.5)),
+                    formatPay(statistics.getGrossPayQuantile(i, 0.9)),
+                    formatPay(statistics.getGrossPayQuantile(i, 0.99)),
+                    formatShare(totals.getOvertimePayCents(i), totals.getGrossPayCents(i))});
+        }
+
+        PayrollTotals company = totals.companyTotals();
+        reportModel.addRow(new Object[] {"company", company.getEmployees(0),
+                formatPay(statistics.getCompanyGrossPayQuantile(0.5)),
+                formatPay(statistics.getCompanyGrossPayQuantile(0.9)),
+                formatPay(statistics.getCompanyGrossPayQuantile(0.99)),
+                formatShare(company.getOvertimePayCents(0), company.getGrossPayCents(0))});
+    }
+
+    /**
+     * Removes every row of the report table.
+     */
+    public void clear() {
+        reportModel.setRowCount(0);
+    }
+
+    private static String formatPay(long cents) {
+        return MoneyFormat.append(new StringBuilder(MoneyFormat.MAX_LENGTH), cents).toString();
+    }
+
+    private static String formatShare(long overtime, long gross) {
+        return String.format("%.2f%%", PayrollStatistics.share(overtime, gross) * 100);
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.JTableHeader;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Represents a window that browses every record of a {@link PayrollLedger} through a {@link LedgerTableModel}.
+ * Clicking a column header sorts by it, clicking it again reverses the order, and the bar above the table keeps
+ * only the records within a range. Sorting and filtering run on a SwingWorker, so the table stays responsive.
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public class ResultsFrame extends JFrame {
+
+    private final LedgerReader reader;
+    private final LedgerTableModel model;
+    private final JLabel statusLabel = new JLabel();
+    private final JComboBox<String> filterColumnBox;
+    private final JTextField minTextField = new JTextField(8);
+    private final JTextField maxTextField = new JTextField(8);
+
+    /**
+     * Represents the sort or filter running in the background, null when none is running.
+     */
+    private SwingWorker<int[], Void> viewWorker;
+
+    /**
+     * Opens a ledger and shows it in a new ResultsFrame, which closes the ledger when it is closed.
+     *
+     * @param ledger ledger file
+     * @throws IOException file cannot be opened or is not a ledger
+     * @throws HeadlessException missing display, keyboard, or mouse
+     */
+    public ResultsFrame(Path ledger) throws IOException {
+        super("Payroll Results - " + ledger.getFileName());
+        reader = new LedgerReader(ledger);
+        try {
+            model = new LedgerTableModel(reader);
+        } catch (IllegalArgumentException e) {
+            reader.close();
+            throw new IOException(e.getMessage(), e);
+        }
+        this.setSize(new Dimension(760, 520));
+        this.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+        this.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent event) {
+                if (viewWorker != null) {
+                    viewWorker.cancel(false);
+                }
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    //nothing left to do with a ledger that is being closed
+                }
+            }
+        });
+
+        String[] columns = new String[model.getColumnCount()];
+        for (int column = 0; column < columns.length; column++) {
+            columns[column] = model.getColumnName(column);
+        }
+        filterColumnBox = new JComboBox<>(columns);
+
+        JPanel mainPanel = new JPanel(new BorderLayout());
+        mainPanel.setBackground(Color.white);
+        mainPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        mainPanel.add(createFilterPanel(), BorderLayout.NORTH);
+        mainPanel.add(new JScrollPane(createTable()), BorderLayout.CENTER);
+        mainPanel.add(statusLabel, BorderLayout.SOUTH);
+        showStatus();
+
+        this.add(mainPanel);
+        this.setVisible(true);
+    }
+
+    /**
+     * Creates the table. It has no RowSorter, which would keep an entry per row, so only the rows being painted
+     * are ever read.
+     */
+    private JTable createTable() {
+        JTable table = new JTable(model);
+        table.setAutoCreateRowSorter(false);
+        table.setFillsViewportHeight(true);
+        table.setDefaultRenderer(Long.class, new LedgerCellRenderer());
+
+        JTableHeader header = table.getTableHeader();
+        header.setReorderingAllowed(false);
+        header.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent event) {
+                int column = table.convertColumnIndexToModel(header.columnAtPoint(event.getPoint()));
+                if (column < 0 || viewWorker != null) {
+                    return;
+                }
+                boolean ascending = model.getSortColumn() != column || !model.isAscending();
+                int[] rows = model.getView();
+                runInBackground("Sorting by " + model.getColumnName(column),
+                        () -> model.sort(rows, column, ascending), column, ascending);
+            }
+        });
+        return table;
+    }
+
+    private JPanel createFilterPanel() {
+        JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        filterPanel.setBackground(new Color(200, 200, 150));
+        JButton filterButton = new JButton("Filter");
+        JButton clearButton = new JButton("Clear");
+
+        filterPanel.add(new JLabel("Show"));
+        filterPanel.add(filterColumnBox);
+        filterPanel.add(new JLabel("from"));
+        filterPanel.add(minTextField);
+        filterPanel.add(new JLabel("to"));
+        filterPanel.add(maxTextField);
+        filterPanel.add(filterButton);
+        filterPanel.add(clearButton);
+
+        filterButton.addActionListener(actionEvent -> {
+            if (viewWorker != null) {
+                return;
+            }
+            int column = filterColumnBox.getSelectedIndex();
+            long min;
+            long max;
+            try {
+                min = parseBound(minTextField.getText(), column, Long.MIN_VALUE);
+                max = parseBound(maxTextField.getText(), column, Long.MAX_VALUE);
+            } catch (ArithmeticException | NumberFormatException e) {
+                JOptionPane.showMessageDialog(this, "Filter bounds must be numbers.");
+                return;
+            }
+            runInBackground("Filtering by " + model.getColumnName(column),
+                    () -> model.filter(column, min, max), -1, true);
+        });
+        clearButton.addActionListener(actionEvent -> {
+            if (viewWorker != null) {
+                return;
+            }
+            minTextField.setText("");
+            maxTextField.setText("");
+            model.setView(null, -1, true);
+            showStatus();
+        });
+        return filterPanel;
+    }
+
+    /**
+     * Computes a new permutation on a SwingWorker and shows it once it is done.
+     *
+     * @param task status shown while the permutation is computed
+     * @param permutation computes the record indexes to show
+     * @param sortColumn column the permutation is sorted by, or -1
+     * @param ascending whether the sort is ascending
+     */
+    private void runInBackground(String task, Supplier<int[]> permutation, int sortColumn,
+                                 boolean ascending) {
+        statusLabel.setText(task + "...");
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        viewWorker = new SwingWorker<int[], Void>() {
+            @Override
+            protected int[] doInBackground() {
+                return permutation.get();
+            }
+
+            @Override
+            protected void done() {
+                viewWorker = null;
+                setCursor(Cursor.getDefaultCursor());
+                if (isCancelled()) {
+                    return;
+                }
+                try {
+                    model.setView(get(), sortColumn, ascending);
+                } catch (ExecutionException e) {
+                    JOptionPane.showMessageDialog(ResultsFrame.this, task + " failed: " + e.getCause().getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                showStatus();
+            }
+        };
+        viewWorker.execute();
+    }
+
+    private void showStatus() {
+        StringBuilder status = new StringBuilder();
+        status.append(model.getRowCount()).append(" of ").append(model.getRecordCount()).append(" records");
+        if (model.getSortColumn() >= 0) {
+            status.append(", sorted by ").append(model.getColumnName(model.getSortColumn()))
+                    .append(model.isAscending() ? " ascending" : " descending");
+        }
+        statusLabel.setText(status.toString());
+    }
+
+    /**
+     * Parses a filter bound typed the way the column is shown, so dollars and hours are converted to hundredths.
+     *
+     * @param text typed bound, blank for no bound
+     * @param column column the bound applies to
+     * @param unbounded value used for a blank bound
+     * @return bound in the column's own unit
+     */
+    private static long parseBound(String text, int column, long unbounded) {
+        if (text.isBlank()) {
+            return unbounded;
+        }
+        BigDecimal value = new BigDecimal(text.trim());
+        return (LedgerTableModel.isHundredths(column) ? value.movePointRight(2) : value).longValueExact();
+    }
+
+    /**
+     * Renders hundredths with two decimals, reusing one buffer for every cell it paints.
+     */
+    private static final class LedgerCellRenderer extends DefaultTableCellRenderer {
+        private final StringBuilder text = new StringBuilder(MoneyFormat.MAX_LENGTH);
+
+        private LedgerCellRenderer() {
+            setHorizontalAlignment(SwingConstants.RIGHT);
+        }
+
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+                                                       boolean hasFocus, int row, int column) {
+            super.getTableCellRendererComponent(table, null, isSelected, hasFocus, row, column);
+            long cell = (Long) value;
+            text.setLength(0);
+            if (LedgerTableModel.isHundredths(table.convertColumnIndexToModel(column))) {
+                MoneyFormat.append(text, cell);
+            } else {
+                text.append(cell);
+            }
+            setText(text.toString());
+            return this;
+        }
+    }
+}
@@ -0,0 +1,462 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.math.RoundingMode;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Headless payroll run spread over several {@link ShardWorker} JVMs on the same machine. The timesheet is split
+ * into shards, byte ranges that start and end on line boundaries, and each worker is handed one shard at a time
+ * over a socket on the loopback address until every shard is done.
+ * <p>A shard fails if its worker reports an error, exits, or takes longer than {@link #SHARD_TIMEOUT_MILLIS}. The
+ * shard then goes back in the queue for any worker, up to {@link #MAX_ATTEMPTS} attempts in all, and a worker that
+ * died is replaced by a new process.</p>
+ * <p>Results are merged in shard order once every shard is done, so departments are numbered in order of first
+ * appearance in the file and rejected rows keep their row numbers, exactly like a {@link ParallelPayroll} run of the
+ * whole file whichever worker finished first.</p>
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public final class ShardCoordinator {
+
+    /**
+     * Most times one shard is tried before the run fails.
+     */
+    static final int MAX_ATTEMPTS = 3;
+
+    /**
+     * Default number of shards per worker, more than one so a worker that gets a slow shard doesn't hold up the rest.
+     */
+    static final int SHARDS_PER_WORKER = 4;
+
+    /**
+     * Longest a worker may take to connect or to compute one shard.
+     */
+    static final int CONNECT_TIMEOUT_MILLIS = 30_000;
+    static final int SHARD_TIMEOUT_MILLIS = 10 * 60_000;
+
+    /**
+     * JVM options of the coordinator that are passed on to the workers: heap and GC sizing, and modules. Options
+     * that write files, such as JFR recordings, GC logs and heap dumps, are left out so the workers don't all write
+     * to the coordinator's files.
+     */
+    private static final String[] FORWARDED_OPTIONS = {"-Xms", "-Xmx", "-Xmn", "-Xss", "-XX:InitialRAMPercentage=",
+            "-XX:MinRAMPercentage=", "-XX:MaxRAMPercentage=", "-XX:MaxDirectMemorySize=", "-XX:+UseSerialGC",
+            "-XX:+UseParallelGC", "-XX:+UseG1GC", "-XX:+UseZGC", "-XX:+UseShenandoahGC", "-XX:ParallelGCThreads=",
+            "-XX:ConcGCThreads=", "--add-modules"};
+
+    private ShardCoordinator() {
+    }
+
+    /**
+     * Computes and totals pay for every row of a timesheet file with {@link #SHARDS_PER_WORKER} shards per worker.
+     *
+     * @param input CSV or TSV timesheet file with a department column
+     * @param workers number of worker processes
+     * @return {@link ParallelReport} with department totals, shard count and phase timings
+     * @throws IOException file cannot be read, or a shard failed {@link #MAX_ATTEMPTS} times
+     */
+    public static ParallelReport run(Path input, int workers) throws IOException {
+        return run(input, workers, workers * SHARDS_PER_WORKER, MoneyMath.DEFAULT_ROUNDING);
+    }
+
+    /**
+     * Computes and totals pay for every row of a timesheet file.
+     *
+     * @param input CSV or TSV timesheet file with a department column
+     * @param workers number of worker processes, fewer if there are fewer shards
+     * @param shards number of shards to split the file into, fewer if the file has fewer rows
+     * @param roundingMode how to round fractions of a cent
+     * @return {@link ParallelReport} with department totals, shard count and phase timings
+     * @throws IOException file cannot be read, or a shard failed {@link #MAX_ATTEMPTS} times
+     */
+    public static ParallelReport run(Path input, int workers, int shards, RoundingMode roundingMode)
+            throws IOException {
+        if (workers < 1 || shards < 1) {
+            throw new IllegalArgumentException("Workers and shards must be at least 1.");
+        }
+        BatchReport.resetPeakHeap();
+        PayrollMetrics.RunEvent event = PayrollMetrics.beginRun("shard", input);
+        long start = System.nanoTime();
+
+        //the first row decides the delimiter and skips any header, so every shard starts on a data row
+        input = input.toAbsolutePath();
+        byte delimiter;
+        long dataStart;
+        try (TimesheetReader reader = TimesheetReader.open(input)) {
+            boolean empty = !reader.next();
+            delimiter = empty ? (byte) ',' : reader.getDelimiter();
+            dataStart = empty ? Files.size(input) : reader.getRowOffset();
+        }
+        long[] bounds = split(input, dataStart, shards);
+        //a small file may have fewer shards than workers
+        workers = Math.min(workers, bounds.length - 1);
+        ParallelReport report = new ParallelReport(workers);
+        report.addReadNanos(System.nanoTime() - start);
+
+        long phaseStart = System.nanoTime();
+        Schedule schedule = new Schedule(input, bounds, delimiter, roundingMode);
+        int threadsPerWorker = Math.max(1, Runtime.getRuntime().availableProcessors() / workers);
+        List<Thread> threads = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            Thread thread = new Thread(() -> schedule.work(threadsPerWorker), "payroll-shard-" + i);
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                schedule.fail(new IOException("Sharded run was interrupted.", e));
+            }
+        }
+        schedule.finish();
+        report.addComputeNanos(System.nanoTime() - phaseStart);
+
+        phaseStart = System.nanoTime();
+        Map<String, Integer> departmentIndex = new HashMap<>();
+        PayrollTotals totals = new PayrollTotals(16);
+        PayrollStatistics statistics = new PayrollStatistics(16);
+        ValidationReport validation = new ValidationReport();
+        for (byte[] result : schedule.results) {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(result));
+            long rows = in.readLong();
+            int[] departments = new int[in.readInt()];
+            for (int i = 0; i < departments.length; i++) {
+                String name = in.readUTF();
+                Integer index = departmentIndex.get(name);
+                if (index == null) {
+                    index = departmentIndex.size();
+                    departmentIndex.put(name, index);
+                    report.getDepartments().add(name);
+                }
+                departments[i] = index;
+            }
+            totals.merge(PayrollTotals.read(in, departments));
+            statistics.merge(PayrollStatistics.read(in, departments));
+            //shard rows are numbered from 1, so they carry on from the rows of the shards before
+            validation.merge(ValidationReport.read(in, report.getRows()));
+            report.addRows(rows);
+        }
+        report.addMergeNanos(System.nanoTime() - phaseStart);
+        report.setShards(schedule.results.length, schedule.retries.get());
+        report.finish(totals, statistics, validation, System.nanoTime() - start, BatchReport.measurePeakHeap());
+        PayrollMetrics.countRows(report.getRows() - validation.size(), validation);
+        PayrollMetrics.endRun(event, report.getRows(), totals.getRejectedRows(),
+                totals.companyTotals().getGrossPayCents(0));
+        return report;
+    }
+
+    /**
+     * Splits the data rows of a file into byte ranges of about the same size, each starting just after a line feed.
+     *
+     * @param input timesheet file
+     * @param dataStart offset of the first data row
+     * @param shards number of ranges wanted
+     * @return offsets where each range starts followed by the end of the file, fewer ranges if rows are long
+     * @throws IOException file cannot be read
+     */
+    static long[] split(Path input, long dataStart, int shards) throws IOException {
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long[] bounds = new long[shards + 1];
+            bounds[0] = dataStart;
+            int count = 1;
+            ByteBuffer buffer = ByteBuffer.allocate(8192);
+            for (int i = 1; i < shards; i++) {
+                long target = dataStart + (size - dataStart) / shards * i;
+                if (target <= bounds[count - 1]) {
+                    continue;
+                }
+                long boundary = lineStart(channel, buffer, target);
+                if (boundary > bounds[count - 1] && boundary < size) {
+                    bounds[count++] = boundary;
+                }
+            }
+            bounds[count++] = size;
+            return Arrays.copyOf(bounds, count);
+        }
+    }
+
+    /**
+     * Finds the first line start at or after an offset.
+     *
+     * @return offset just past the line feed that ends the line the byte before the offset is in, or the file size
+     */
+    private static long lineStart(FileChannel channel, ByteBuffer buffer, long offset) throws IOException {
+        long position = offset - 1;
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Queue of shards shared by the threads that each drive one worker process.
+     */
+    private static final class Schedule {
+        private final Path input;
+        private final long[] bounds;
+        private final byte delimiter;
+        private final RoundingMode roundingMode;
+
+        /**
+         * Result of every shard in the format written by {@link ShardWorker}, null until it is done.
+         */
+        private final byte[][] results;
+        private final LinkedBlockingQueue<Integer> pending = new LinkedBlockingQueue<>();
+        private final AtomicIntegerArray attempts;
+        private final AtomicInteger remaining;
+        private final AtomicInteger retries = new AtomicInteger();
+        private final AtomicReference<IOException> failure = new AtomicReference<>();
+        private final AtomicReference<IOException> startFailure = new AtomicReference<>();
+
+        Schedule(Path input, long[] bounds, byte delimiter, RoundingMode roundingMode) {
+            this.input = input;
+            this.bounds = bounds;
+            this.delimiter = delimiter;
+            this.roundingMode = roundingMode;
+            results = new byte[bounds.length - 1][];
+            attempts = new AtomicIntegerArray(results.length);
+            remaining = new AtomicInteger(results.length);
+            for (int i = 0; i < results.length; i++) {
+                pending.add(i);
+            }
+        }
+
+        /**
+         * Starts a worker process and hands it shards until every shard is done or the run has failed, replacing
+         * the process whenever it stops answering. Gives up after {@link #MAX_ATTEMPTS} processes in a row fail to
+         * start.
+         */
+        void work(int parallelism) {
+            try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+                int failedStarts = 0;
+                while (!isOver()) {
+                    Process process = launch(server.getLocalPort(), parallelism);
+                    Socket socket;
+                    try {
+                        socket = connect(server, process);
+                    } catch (IOException e) {
+                        process.destroyForcibly();
+                        startFailure.set(e);
+                        if (++failedStarts == MAX_ATTEMPTS) {
+                            return;
+                        }
+                        continue;
+                    }
+                    failedStarts = 0;
+
+                    try (socket) {
+                        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                        DataOutputStream out = new DataOutputStream(
+                                new BufferedOutputStream(socket.getOutputStream()));
+                        compute(in, out);
+                        out.writeInt(ShardWorker.STOP);
+                        out.flush();
+                        if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                            process.destroyForcibly();
+                        }
+                    } catch (IOException e) {
+                        //the worker crashed or hung, the shard it had was already put back
+                        process.destroyForcibly();
+                    }
+                }
+            } catch (IOException e) {
+                fail(e);
+            } catch (InterruptedException e) {
+                fail(new IOException("Sharded run was interrupted.", e));
+            }
+        }
+
+        /**
+         * Sends shards to one connected worker until there are none left.
+         *
+         * @throws IOException the worker stopped answering
+         */
+        private void compute(DataInputStream in, DataOutputStream out) throws IOException, InterruptedException {
+            while (!isOver()) {
+                Integer shard = pending.poll(50, TimeUnit.MILLISECONDS);
+                if (shard == null) {
+                    //another worker still has a shard that may yet come back
+                    continue;
+                }
+                try {
+                    out.writeInt(shard);
+                    out.writeUTF(input.toString());
+                    out.writeLong(bounds[shard]);
+                    out.writeLong(bounds[shard + 1]);
+                    out.writeByte(delimiter);
+                    out.writeUTF(roundingMode.name());
+                    out.flush();
+
+                    byte reply = in.readByte();
+                    if (in.readInt() != shard) {
+                        throw new IOException("Worker answered for the wrong shard.");
+                    }
+                    if (reply == ShardWorker.FAILED) {
+                        retry(shard, in.readUTF());
+                        continue;
+                    }
+                    byte[] result = new byte[in.readInt()];
+                    in.readFully(result);
+                    results[shard] = result;
+                    remaining.decrementAndGet();
+                } catch (IOException e) {
+                    retry(shard, e instanceof SocketTimeoutException ? "timed out" : String.valueOf(e.getMessage()));
+                    throw e;
+                }
+            }
+        }
+
+        private void retry(int shard, String reason) {
+            if (attempts.incrementAndGet(shard) >= MAX_ATTEMPTS) {
+                fail(new IOException("Shard " + shard + " failed " + MAX_ATTEMPTS + " times, last: " + reason));
+                return;
+            }
+            retries.incrementAndGet();
+            pending.add(shard);
+        }
+
+        void fail(IOException e) {
+            failure.compareAndSet(null, e);
+        }
+
+        private boolean isOver() {
+            return remaining.get() == 0 || failure.get() != null;
+        }
+
+        /**
+         * @throws IOException the first failure of the run, or every worker gave up before the shards were done
+         */
+        void finish() throws IOException {
+            if (failure.get() != null) {
+                throw failure.get();
+            }
+            if (remaining.get() > 0) {
+                throw new IOException("No worker could be started for " + remaining.get() + " shards.",
+                        startFailure.get());
+            }
+        }
+
+        /**
+         * Starts a worker JVM with the same Java and class path as this one, and the JVM options given by
+         * {@link #isForwarded(String)}, so heap size, the Vector API module and payroll.* properties apply to the
+         * workers too.
+         */
+        private static Process launch(int port, int parallelism) throws IOException {
+            List<String> command = new ArrayList<>();
+            command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+            for (String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+                if (isForwarded(argument)) {
+                    command.add(argument);
+                }
+            }
+            command.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"),
+                    BatchMain.class.getName(), "worker", Integer.toString(port), Integer.toString(parallelism)));
+            ProcessBuilder builder = new ProcessBuilder(command);
+            builder.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+            builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+            return builder.start();
+        }
+
+        /**
+         * Returns true for the {@link #FORWARDED_OPTIONS} and for system properties other than the metrics dump,
+         * which only the coordinator writes.
+         */
+        private static boolean isForwarded(String argument) {
+            if (argument.startsWith("-D")) {
+                return !argument.startsWith("-D" + BatchMain.METRICS_PROPERTY + "=");
+            }
+            for (String option : FORWARDED_OPTIONS) {
+                if (argument.startsWith(option)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Waits for a worker to connect and say hello, giving up early if its process exits.
+         */
+        private static Socket connect(ServerSocket server, Process process) throws IOException {
+            Socket socket = accept(server, process);
+            try {
+                DataInputStream in = new DataInputStream(socket.getInputStream());
+                if (in.readInt() != ShardWorker.MAGIC || in.readInt() != ShardWorker.VERSION) {
+                    throw new IOException("Worker on port " + server.getLocalPort() + " is not compatible.");
+                }
+                return socket;
+            } catch (IOException e) {
+                socket.close();
+                throw e;
+            }
+        }
+
+        private static Socket accept(ServerSocket server, Process process) throws IOException {
+            server.setSoTimeout(100);
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CONNECT_TIMEOUT_MILLIS);
+            while (true) {
+                try {
+                    Socket socket = server.accept();
+                    socket.setTcpNoDelay(true);
+                    socket.setSoTimeout(SHARD_TIMEOUT_MILLIS);
+                    return socket;
+                } catch (SocketTimeoutException e) {
+                    if (!process.isAlive()) {
+                        throw new IOException("Worker exited with status " + process.exitValue() + " before connecting.");
+                    }
+                    if (System.nanoTime() > deadline) {
+                        process.destroyForcibly();
+                        throw new IOException("Worker did not connect within " + CONNECT_TIMEOUT_MILLIS + " ms.");
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.RoundingMode;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Worker process of a {@link ShardCoordinator} run. A worker connects to the coordinator on the loopback address and
+ * computes one shard, a byte range of the timesheet, at a time with {@link ParallelPayroll}, until it is told to stop
+ * or the connection closes.
+ * <p>Every message is written with {@link DataOutputStream}, so numbers are big-endian:</p>
+ * <pre>
+ * hello    worker to coordinator: int {@link #MAGIC}, int {@link #VERSION}
+ * request  coordinator to worker: int shard ({@link #STOP} to stop), UTF path, long start, long end,
+ *          byte delimiter, UTF rounding mode
+ * reply    worker to coordinator: byte {@link #RESULT}, int shard, int length, length bytes of result
+ *          or byte {@link #FAILED}, int shard, UTF message
+ * result   long rows, int departments, UTF name per department, {@link PayrollTotals},
+ *          {@link PayrollStatistics}, {@link ValidationReport}
+ * </pre>
+ * <p>Department indexes and row numbers in a result are local to the shard; the coordinator maps them onto the whole
+ * run when it merges.</p>
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public final class ShardWorker {
+
+    /**
+     * "PAYS" in ASCII, sent first so the coordinator knows it is talking to a worker.
+     */
+    static final int MAGIC = 0x50415953;
+    static final int VERSION = 1;
+
+    /**
+     * Shard number that tells a worker to exit.
+     */
+    static final int STOP = -1;
+
+    /**
+     * Kinds of reply.
+     */
+    static final byte RESULT = 0;
+    static final byte FAILED = 1;
+
+    private ShardWorker() {
+    }
+
+    /**
+     * Connects to a coordinator and computes the shards it sends until it sends {@link #STOP}.
+     *
+     * @param port port the coordinator listens on at the loopback address
+     * @param parallelism number of threads to compute each shard with
+     * @throws IOException connection failed or was closed without {@link #STOP}
+     */
+    public static void run(int port, int parallelism) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.flush();
+
+            ByteArrayOutputStream result = new ByteArrayOutputStream();
+            while (true) {
+                int shard;
+                try {
+                    shard = in.readInt();
+                } catch (EOFException e) {
+                    throw new IOException("Coordinator closed the connection.", e);
+                }
+                if (shard == STOP) {
+                    return;
+                }
+                String input = in.readUTF();
+                long start = in.readLong();
+                long end = in.readLong();
+                byte delimiter = in.readByte();
+                String roundingMode = in.readUTF();
+
+                result.reset();
+                try (TimesheetReader reader = TimesheetReader.open(Paths.get(input), start, 0, delimiter)) {
+                    writeResult(new DataOutputStream(result), ParallelPayroll.run(reader, end, parallelism,
+                            RoundingMode.valueOf(roundingMode)));
+                } catch (IOException | RuntimeException e) {
+                    //the coordinator decides whether to retry, the worker stays up for the next shard
+                    out.writeByte(FAILED);
+                    out.writeInt(shard);
+                    out.writeUTF(String.valueOf(e.getMessage()));
+                    out.flush();
+                    continue;
+                }
+                out.writeByte(RESULT);
+                out.writeInt(shard);
+                out.writeInt(result.size());
+                result.writeTo(out);
+                out.flush();
+            }
+        }
+    }
+
+    /**
+     * Writes the aggregates of one shard in the result format.
+     */
+    private static void writeResult(DataOutputStream out, ParallelReport report) throws IOException {
+        List<String> departments = report.getDepartments();
+        out.writeLong(report.getRows());
+        out.writeInt(departments.size());
+        for (String department : departments) {
+            out.writeUTF(department);
+        }
+        report.getTotals().write(out, departments.size());
+        report.getStatistics().write(out, departments.size());
+        report.getValidation().write(out);
+        out.flush();
+    }
+}
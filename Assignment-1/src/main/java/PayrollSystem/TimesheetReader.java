@@ -0,0 +1,554 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a CSV or TSV timesheet one row at a time without materializing the file. Every row has the columns
+ * {@code employee, hoursWorked, hourlyPay} and an optional {@code department}; any further columns are ignored. The delimiter is detected from the
+ * first row (tab if present, otherwise comma) and a first row whose hours column is not a number is skipped as a
+ * header.
+ * <p>The numeric columns can be parsed either as doubles or, exactly, as fixed point hundredths of an hour and cents
+ * for {@link MoneyMath}.</p>
+ * <p>Rows are parsed straight out of a fixed size byte buffer so memory stays bounded no matter how large the file
+ * is. A row may not be longer than the buffer.</p>
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public final class TimesheetReader implements Closeable {
+
+    /**
+     * Default size of the read buffer in bytes.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Powers of ten that are exactly representable as a double, used by {@link #parseDouble(int, int)}.
+     */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final InputStream in;
+    private final byte[] buffer;
+
+    /**
+     * Position of the first unread byte and the end of valid data within {@link #buffer}.
+     */
+    private int position;
+    private int limit;
+    private boolean endOfStream;
+
+    /**
+     * Stream offset of {@link #buffer} index 0.
+     */
+    private long bufferOffset;
+
+    /**
+     * True once a line feed that isn't in the stream has been added after a last line that lacked one.
+     */
+    private boolean addedLineFeed;
+
+    /**
+     * Column delimiter, 0 until detected from the first row.
+     */
+    private byte delimiter;
+
+    /**
+     * Start and end offsets within {@link #buffer} of the current row's fields.
+     */
+    private int nameStart;
+    private int nameEnd;
+    private int hoursStart;
+    private int hoursEnd;
+    private int rateStart;
+    private int rateEnd;
+    private int departmentStart;
+    private int departmentEnd;
+
+    private long rowNumber;
+
+    /**
+     * Stream offset of the first byte of the current row.
+     */
+    private long rowOffset;
+    private double hoursWorked;
+    private double hourlyPay;
+    private long hoursWorkedHundredths;
+    private long hourlyPayCents;
+
+    /**
+     * Creates a TimesheetReader over the given stream with a {@link #DEFAULT_BUFFER_SIZE} buffer.
+     *
+     * @param in stream of CSV or TSV timesheet rows
+     */
+    public TimesheetReader(InputStream in) {
+        this(in, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a TimesheetReader over the given stream.
+     *
+     * @param in stream of CSV or TSV timesheet rows
+     * @param bufferSize size of the read buffer, also the longest row that can be read
+     */
+    public TimesheetReader(InputStream in, int bufferSize) {
+        this.in = in;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Opens a TimesheetReader on a file.
+     *
+     * @param path timesheet file
+     * @return TimesheetReader reading from the start of the file
+     * @throws IOException file cannot be opened
+     */
+    public static TimesheetReader open(Path path) throws IOException {
+        return new TimesheetReader(Files.newInputStream(path));
+    }
+
+    /**
+     * Opens a TimesheetReader on a file that continues an earlier read from the end of one of its rows, as given by
+     * {@link #getBytesRead()} and {@link #getRowNumber()}. No header row is looked for, and byte offsets and row
+     * numbers carry on from the earlier read.
+     *
+     * @param path timesheet file
+     * @param offset file offset just past a row
+     * @param rowNumber row number of that row
+     * @param delimiter delimiter detected by the earlier read
+     * @return TimesheetReader reading from the offset
+     * @throws IOException file cannot be opened
+     */
+    public static TimesheetReader open(Path path, long offset, long rowNumber, byte delimiter) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        channel.position(offset);
+        TimesheetReader reader = new TimesheetReader(Channels.newInputStream(channel));
+        reader.bufferOffset = offset;
+        reader.rowNumber = rowNumber;
+        reader.delimiter = delimiter;
+        return reader;
+    }
+
+    /**
+     * Advances to the next non blank row. The row's numeric columns are parsed lazily by {@link #parse()}.
+     *
+     * @return true if a row was read, false at the end of the stream
+     * @throws IOException stream cannot be read or a row is longer than the buffer
+     */
+    public boolean next() throws IOException {
+        while (true) {
+            int end = findLineEnd();
+            if (end < 0) {
+                return false;
+            }
+
+            int start = position;
+            position = end + 1;
+            //strips the carriage return of windows line endings
+            if (end > start && buffer[end - 1] == '\r') {
+                end--;
+            }
+            if (end == start) {
+                continue;
+            }
+            rowOffset = bufferOffset + start;
+
+            if (delimiter == 0) {
+                delimiter = detectDelimiter(start, end);
+                splitFields(start, end);
+                rowNumber++;
+                if (!parse()) {
+                    //first row whose hours column isn't a number is treated as a header
+                    rowNumber--;
+                    continue;
+                }
+                return true;
+            }
+
+            splitFields(start, end);
+            rowNumber++;
+            return true;
+        }
+    }
+
+    /**
+     * Parses the hours worked and hourly pay columns of the current row.
+     *
+     * @return true if both columns are numbers, false if the row is malformed
+     */
+    public boolean parse() {
+        try {
+            hoursWorked = parseDouble(hoursStart, hoursEnd);
+            hourlyPay = parseDouble(rateStart, rateEnd);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Parses the hours worked and hourly pay columns of the current row exactly into hundredths of an hour and
+     * cents. Digits past the second decimal place are rounded with the given mode.
+     *
+     * @param roundingMode how to round digits past the second decimal place
+     * @return true if both columns are numbers that fit in a long, false if the row is malformed
+     */
+    public boolean parseFixed(RoundingMode roundingMode) {
+        try {
+            hoursWorkedHundredths = parseFixed(hoursStart, hoursEnd, roundingMode);
+            hourlyPayCents = parseFixed(rateStart, rateEnd, roundingMode);
+            return true;
+        } catch (NumberFormatException | ArithmeticException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return 1 based index of the current data row, headers and blank lines are not counted
+     */
+    public long getRowNumber() {
+        return rowNumber;
+    }
+
+    /**
+     * @return stream offset of the first byte of the current row
+     */
+    public long getRowOffset() {
+        return rowOffset;
+    }
+
+    /**
+     * @return number of bytes of the stream consumed so far, up to and including the current row's line feed
+     */
+    public long getBytesRead() {
+        return bufferOffset + position - (addedLineFeed && position == limit ? 1 : 0);
+    }
+
+    /**
+     * @return hours worked of the current row, only valid after {@link #parse()} returned true
+     */
+    public double getHoursWorked() {
+        return hoursWorked;
+    }
+
+    /**
+     * @return hourly pay of the current row, only valid after {@link #parse()} returned true
+     */
+    public double getHourlyPay() {
+        return hourlyPay;
+    }
+
+    /**
+     * @return hours worked of the current row in hundredths of an hour, only valid after {@link #parseFixed}
+     * returned true
+     */
+    public long getHoursWorkedHundredths() {
+        return hoursWorkedHundredths;
+    }
+
+    /**
+     * @return hourly pay of the current row in cents, only valid after {@link #parseFixed} returned true
+     */
+    public long getHourlyPayCents() {
+        return hourlyPayCents;
+    }
+
+    /**
+     * @return the detected column delimiter
+     */
+    public byte getDelimiter() {
+        return delimiter;
+    }
+
+    /**
+     * Writes the raw bytes of the current row's employee column, quotes included, to an OutputStream.
+     *
+     * @param out stream to write the employee name to
+     * @throws IOException stream cannot be written to
+     */
+    public void writeEmployeeName(OutputStream out) throws IOException {
+        out.write(buffer, nameStart, nameEnd - nameStart);
+    }
+
+    /**
+     * @return the current row's employee column as a String
+     */
+    public String getEmployeeName() {
+        return new String(buffer, nameStart, nameEnd - nameStart, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the current row's department column as a String, empty if the row has no department
+     */
+    public String getDepartment() {
+        return new String(buffer, departmentStart, departmentEnd - departmentStart, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Looks up the current row's employee column in an index straight from the read buffer.
+     *
+     * @param index index of employee names
+     * @return id of the employee, added to the index if new
+     */
+    public int indexEmployee(EmployeeIndex index) {
+        return index.getOrAdd(buffer, nameStart, nameEnd - nameStart);
+    }
+
+    /**
+     * Looks up the current row's department column in an index straight from the read buffer.
+     *
+     * @param index index of department names
+     * @return id of the department, added to the index if new
+     */
+    public int indexDepartment(EmployeeIndex index) {
+        return index.getOrAdd(buffer, departmentStart, departmentEnd - departmentStart);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Finds the next line feed in the buffer, compacting and refilling the buffer as needed. The final line of a
+     * stream without a trailing line feed is terminated by appending one.
+     *
+     * @return index of the line feed ending the next line, or -1 at the end of the stream
+     * @throws IOException stream cannot be read or a row is longer than the buffer
+     */
+    private int findLineEnd() throws IOException {
+        int scan = position;
+        while (true) {
+            for (; scan < limit; scan++) {
+                if (buffer[scan] == '\n') {
+                    return scan;
+                }
+            }
+            if (endOfStream) {
+                if (position == limit) {
+                    return -1;
+                }
+                //terminates a last line that has no line feed
+                if (limit == buffer.length) {
+                    if (position == 0) {
+                        throw new IOException("Row " + (rowNumber + 1) + " is longer than " + buffer.length + " bytes.");
+                    }
+                    compact();
+                }
+                buffer[limit] = '\n';
+                addedLineFeed = true;
+                return limit++;
+            }
+
+            if (position > 0) {
+                scan -= position;
+                compact();
+            } else if (limit == buffer.length) {
+                throw new IOException("Row " + (rowNumber + 1) + " is longer than " + buffer.length + " bytes.");
+            }
+
+            int read = in.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                endOfStream = true;
+            } else {
+                limit += read;
+            }
+        }
+    }
+
+    /**
+     * Moves the unread bytes of the buffer to its start.
+     */
+    private void compact() {
+        bufferOffset += position;
+        System.arraycopy(buffer, position, buffer, 0, limit - position);
+        limit -= position;
+        position = 0;
+    }
+
+    /**
+     * Tab separated if the row contains a tab, otherwise comma separated.
+     */
+    private byte detectDelimiter(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (buffer[i] == '\t') {
+                return '\t';
+            }
+        }
+        return ',';
+    }
+
+    /**
+     * Records the boundaries of the first three fields of a row. A field starting with a double quote runs to the
+     * closing quote, so delimiters inside quotes are ignored.
+     */
+    private void splitFields(int start, int end) {
+        nameStart = start;
+        nameEnd = fieldEnd(start, end);
+        hoursStart = Math.min(nameEnd + 1, end);
+        hoursEnd = fieldEnd(hoursStart, end);
+        rateStart = Math.min(hoursEnd + 1, end);
+        rateEnd = fieldEnd(rateStart, end);
+        departmentStart = Math.min(rateEnd + 1, end);
+        departmentEnd = fieldEnd(departmentStart, end);
+    }
+
+    private int fieldEnd(int start, int end) {
+        int i = start;
+        if (i < end && buffer[i] == '"') {
+            i++;
+            while (i < end && buffer[i] != '"') {
+                i++;
+            }
+        }
+        while (i < end && buffer[i] != delimiter) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Parses a plain decimal number out of the buffer without creating a String. Anything other than an optional
+     * sign, digits and one decimal point, or a number with too many digits to be parsed exactly, falls back to
+     * {@link Double#parseDouble(String)}.
+     *
+     * @throws NumberFormatException the field is not a number
+     */
+    private double parseDouble(int start, int end) {
+        //trims surrounding spaces
+        while (start < end && buffer[start] == ' ') {
+            start++;
+        }
+        while (end > start && buffer[end - 1] == ' ') {
+            end--;
+        }
+        if (start == end) {
+            throw new NumberFormatException("empty field");
+        }
+
+        boolean negative = false;
+        int i = start;
+        if (buffer[i] == '-' || buffer[i] == '+') {
+            negative = buffer[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (; i < end; i++) {
+            byte b = buffer[i];
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                break;
+            }
+        }
+
+        //mantissa / 10^k is correctly rounded when both are exact doubles
+        if (i == end && digits > 0 && digits <= 15 && fractionDigits < POWERS_OF_TEN.length) {
+            double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(new String(buffer, start, end - start, StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Parses a plain decimal number out of the buffer as a long scaled by 100. Digits past the second decimal place
+     * are rounded with the given mode. Anything other than an optional sign, digits and one decimal point falls back
+     * to {@link BigDecimal}.
+     *
+     * @throws NumberFormatException the field is not a number
+     * @throws ArithmeticException the number does not fit in a long
+     */
+    private long parseFixed(int start, int end, RoundingMode roundingMode) {
+        while (start < end && buffer[start] == ' ') {
+            start++;
+        }
+        while (end > start && buffer[end - 1] == ' ') {
+            end--;
+        }
+        if (start == end) {
+            throw new NumberFormatException("empty field");
+        }
+
+        boolean negative = false;
+        int i = start;
+        if (buffer[i] == '-' || buffer[i] == '+') {
+            negative = buffer[i] == '-';
+            i++;
+        }
+
+        long value = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        //the first dropped digit and whether any digit after it is non zero
+        int droppedDigit = -1;
+        boolean droppedRest = false;
+        for (; i < end; i++) {
+            byte b = buffer[i];
+            if (b >= '0' && b <= '9') {
+                digits++;
+                if (fractionDigits < 2) {
+                    value = Math.addExact(Math.multiplyExact(value, 10), b - '0');
+                    if (fractionDigits >= 0) {
+                        fractionDigits++;
+                    }
+                } else if (droppedDigit < 0) {
+                    droppedDigit = b - '0';
+                } else if (b != '0') {
+                    droppedRest = true;
+                }
+            } else if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                break;
+            }
+        }
+
+        if (i != end || digits == 0) {
+            BigDecimal decimal = new BigDecimal(new String(buffer, start, end - start, StandardCharsets.US_ASCII));
+            return decimal.setScale(2, roundingMode).unscaledValue().longValueExact();
+        }
+
+        for (int scale = Math.max(fractionDigits, 0); scale < 2; scale++) {
+            value = Math.multiplyExact(value, 10);
+        }
+        if (negative) {
+            value = -value;
+        }
+        if (droppedDigit > 0 || droppedRest) {
+            int halfComparison = droppedDigit != 5 ? Integer.compare(droppedDigit, 5) : (droppedRest ? 1 : 0);
+            value = MoneyMath.round(value, negative, halfComparison, roundingMode);
+        }
+        return value;
+    }
+}
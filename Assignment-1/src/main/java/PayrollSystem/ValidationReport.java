@@ -0,0 +1,239 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Collects the rows rejected by {@link PayrollValidator}: a count of every error bit over all rejected rows, and the
+ * row number and error bits of the first {@link #KEPT_ROWS} of them in two primitive arrays of 9 bytes per row.
+ * Memory stays bounded however many rows are rejected. Valid rows only add to the row count.
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public class ValidationReport {
+
+    /**
+     * Most rejected rows whose row number and error bits are kept.
+     */
+    public static final int KEPT_ROWS = 1000;
+
+    /**
+     * Most rejected rows {@link #toString()} lists.
+     */
+    private static final int LISTED_ROWS = 10;
+
+    private long[] rowNumbers = new long[16];
+    private byte[] errors = new byte[16];
+    private int keptRows;
+    private long size;
+    private final long[] errorCounts = new long[PayrollValidator.ERROR_BITS];
+    private long rows;
+    private long elapsedNanos;
+
+    /**
+     * Records a rejected row.
+     *
+     * @param rowNumber 1 based row number
+     * @param error error bits of the row, not 0
+     */
+    void add(long rowNumber, int error) {
+        size++;
+        for (int bit = 0; bit < PayrollValidator.ERROR_BITS; bit++) {
+            errorCounts[bit] += (error >>> bit) & 1;
+        }
+        keep(rowNumber, error);
+    }
+
+    /**
+     * Keeps a rejected row's number and error bits if fewer than {@link #KEPT_ROWS} are kept.
+     */
+    private void keep(long rowNumber, int error) {
+        if (keptRows == KEPT_ROWS) {
+            return;
+        }
+        if (keptRows == rowNumbers.length) {
+            int capacity = Math.min(keptRows * 2, KEPT_ROWS);
+            rowNumbers = Arrays.copyOf(rowNumbers, capacity);
+            errors = Arrays.copyOf(errors, capacity);
+        }
+        rowNumbers[keptRows] = rowNumber;
+        errors[keptRows] = (byte) error;
+        keptRows++;
+    }
+
+    void addRows(long rows) {
+        this.rows += rows;
+    }
+
+    /**
+     * Continues the counts of an earlier run, see {@link PayrollWal}. Its rejected rows are counted but not kept.
+     *
+     * @param rows number of rows the earlier run checked
+     * @param size number of rows it rejected
+     * @param errorCounts number of rejected rows per error bit
+     */
+    void resume(long rows, long size, long[] errorCounts) {
+        this.rows = rows;
+        this.size = size;
+        System.arraycopy(errorCounts, 0, this.errorCounts, 0, PayrollValidator.ERROR_BITS);
+    }
+
+    void finish(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Appends another report's rows after this one's, so reports of consecutive ranges merge in row order.
+     *
+     * @param other report of later rows
+     */
+    void merge(ValidationReport other) {
+        for (int i = 0; i < other.keptRows; i++) {
+            keep(other.rowNumbers[i], other.errors[i]);
+        }
+        size += other.size;
+        for (int bit = 0; bit < PayrollValidator.ERROR_BITS; bit++) {
+            errorCounts[bit] += other.errorCounts[bit];
+        }
+        rows += other.rows;
+    }
+
+    /**
+     * Writes the counts and kept rows, to be read back by {@link #read} in another process.
+     *
+     * @param out stream to write to
+     * @throws IOException stream cannot be written
+     */
+    void write(DataOutput out) throws IOException {
+        out.writeLong(rows);
+        out.writeLong(size);
+        for (long count : errorCounts) {
+            out.writeLong(count);
+        }
+        out.writeInt(keptRows);
+        for (int i = 0; i < keptRows; i++) {
+            out.writeLong(rowNumbers[i]);
+            out.writeByte(errors[i]);
+        }
+    }
+
+    /**
+     * Reads a report written by {@link #write}, adding an offset to every row number.
+     *
+     * @param in stream to read from
+     * @param rowOffset number of rows before the written report's first row
+     * @return the report
+     * @throws IOException stream cannot be read
+     */
+    static ValidationReport read(DataInput in, long rowOffset) throws IOException {
+        ValidationReport report = new ValidationReport();
+        report.rows = in.readLong();
+        report.size = in.readLong();
+        for (int bit = 0; bit < PayrollValidator.ERROR_BITS; bit++) {
+            report.errorCounts[bit] = in.readLong();
+        }
+        int keptRows = in.readInt();
+        for (int i = 0; i < keptRows; i++) {
+            long rowNumber = in.readLong();
+            report.keep(rowOffset + rowNumber, in.readByte());
+        }
+        return report;
+    }
+
+    /**
+     * @return number of rejected rows
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return number of rejected rows whose row number and error bits are kept, at most {@link #KEPT_ROWS}
+     */
+    public int getKeptRows() {
+        return keptRows;
+    }
+
+    /**
+     * @param index index of a kept rejected row, 0 to {@link #getKeptRows()} - 1
+     * @return its 1 based row number
+     */
+    public long getRowNumber(int index) {
+        return rowNumbers[index];
+    }
+
+    /**
+     * @param index index of a kept rejected row, 0 to {@link #getKeptRows()} - 1
+     * @return its error bits
+     */
+    public int getErrors(int index) {
+        return errors[index];
+    }
+
+    /**
+     * @param error one error bit, such as {@link PayrollValidator#NEGATIVE_HOURS}
+     * @return number of rejected rows with that bit set
+     */
+    public long getErrorCount(int error) {
+        return errorCounts[Integer.numberOfTrailingZeros(error)];
+    }
+
+    /**
+     * @return number of rows checked, 0 if the report only collects rejected rows
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * Appends the count of each error, e.g. {@code negativeHours=3 tooManyHours=1}, or nothing if no row was rejected.
+     *
+     * @param builder StringBuilder to append to
+     * @return the given builder
+     */
+    public StringBuilder appendCounts(StringBuilder builder) {
+        boolean first = true;
+        for (int bit = 0; bit < PayrollValidator.ERROR_BITS; bit++) {
+            if (errorCounts[bit] > 0) {
+                builder.append(first ? "" : " ").append(PayrollValidator.name(bit)).append('=')
+                        .append(errorCounts[bit]);
+                first = false;
+            }
+        }
+        return builder;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("rows=").append(rows).append(" rejected=").append(size);
+        if (size > 0) {
+            appendCounts(builder.append(' '));
+        }
+        if (elapsedNanos > 0) {
+            builder.append(String.format(" elapsed=%.3fs rows/sec=%.0f", elapsedNanos / 1e9,
+                    rows / (elapsedNanos / 1e9)));
+        }
+        for (int i = 0; i < Math.min(keptRows, LISTED_ROWS); i++) {
+            builder.append(System.lineSeparator()).append("row ").append(rowNumbers[i]).append(": ")
+                    .append(PayrollValidator.message(errors[i]));
+        }
+        if (size > LISTED_ROWS) {
+            builder.append(System.lineSeparator()).append("... ").append(size - Math.min(keptRows, LISTED_ROWS))
+                    .append(" more");
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link ColumnarPayroll} kernel using the incubating Vector API. Only loaded by
+ * {@link ColumnarPayroll} when the JVM runs with {@code --add-modules jdk.incubator.vector}.
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+final class VectorPayrollKernel implements ColumnarPayroll.Kernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public void compute(double[] hoursWorked, double[] hourlyPay, double[] regularPay, double[] overtimePay,
+                        double[] grossPay, int from, int to) {
+        int i = from;
+        for (int upperBound = from + SPECIES.loopBound(to - from); i < upperBound; i += SPECIES.length()) {
+            DoubleVector hours = DoubleVector.fromArray(SPECIES, hoursWorked, i);
+            DoubleVector rate = DoubleVector.fromArray(SPECIES, hourlyPay, i);
+            DoubleVector regular = hours.min(40.0).mul(rate);
+            DoubleVector overtime = hours.sub(40.0).max(0.0).mul(rate.mul(1.5));
+            regular.intoArray(regularPay, i);
+            overtime.intoArray(overtimePay, i);
+            regular.add(overtime).intoArray(grossPay, i);
+        }
+        //remaining employees that don't fill a whole vector
+        ColumnarPayroll.computeScalar(hoursWorked, hourlyPay, regularPay, overtimePay, grossPay, i, to);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link IncrementalPayroll} against full runs over the corrected timesheet, which catches a wrong correction
+ * that {@link IncrementalPayroll#verify()} cannot since it recomputes from the same stored rows.
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public class IncrementalPayrollTest {
+
+    private static final String HEADER = "employee,hours,rate,department";
+    private static final int EMPLOYEES = 2000;
+    private static final int CORRECTIONS = 600;
+    private static final int DEPARTMENTS = 6;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void correctionsMatchFullRunOfCorrectedTimesheet() throws IOException {
+        Random random = new Random(42);
+        List<String> timesheet = new ArrayList<>();
+        //rows by employee, so a correction replaces the employee's row in place and new employees go last
+        Map<String, String> rows = new LinkedHashMap<>();
+        for (int i = 0; i < EMPLOYEES; i++) {
+            String row = row(random, "emp" + i);
+            timesheet.add(row);
+            rows.put("emp" + i, row);
+        }
+        List<String> corrections = new ArrayList<>();
+        for (int i = 0; i < CORRECTIONS; i++) {
+            //a few corrections add employees, and some employees are corrected more than once
+            String employee = "emp" + random.nextInt(EMPLOYEES + EMPLOYEES / 20);
+            String row = row(random, employee);
+            corrections.add(row);
+            rows.put(employee, row);
+        }
+
+        Path timesheetFile = write("timesheet.csv", timesheet);
+        Path correctionFile = write("corrections.csv", corrections);
+        Path corrected = write("corrected.csv", new ArrayList<>(rows.values()));
+
+        IncrementalPayroll payroll = new IncrementalPayroll(MoneyMath.DEFAULT_ROUNDING);
+        assertEquals(EMPLOYEES, payroll.apply(timesheetFile));
+        assertEquals(CORRECTIONS, payroll.apply(correctionFile));
+        assertTrue(payroll.verify());
+
+        BatchReport batch = BatchPayroll.run(corrected, folder.getRoot().toPath().resolve("out.csv"));
+        assertSameTotals(batch.getDepartments(), batch.getDepartmentTotals(), payroll);
+
+        ParallelReport parallel = ParallelPayroll.run(corrected, 2);
+        assertSameTotals(parallel.getDepartments(), parallel.getTotals(), payroll);
+    }
+
+    /**
+     * Makes a timesheet row, one in about twenty of them invalid.
+     */
+    private static String row(Random random, String employee) {
+        long hours = random.nextInt(8000);
+        long rate = 1000 + random.nextInt(9000);
+        if (random.nextInt(20) == 0) {
+            hours = -hours - 1;
+        }
+        StringBuilder row = new StringBuilder(employee).append(',');
+        MoneyFormat.append(row, hours).append(',');
+        MoneyFormat.append(row, rate).append(",D").append(random.nextInt(DEPARTMENTS));
+        return row.toString();
+    }
+
+    private Path write(String name, List<String> rows) throws IOException {
+        rows.add(0, HEADER);
+        return Files.write(folder.getRoot().toPath().resolve(name), rows);
+    }
+
+    /**
+     * Compares department totals by name, since each run numbers the departments in its own order of appearance.
+     */
+    private static void assertSameTotals(List<String> departments, PayrollTotals expected,
+                                         IncrementalPayroll payroll) {
+        List<String> actualDepartments = payroll.getDepartments();
+        PayrollTotals actual = payroll.getTotals();
+        long employees = 0;
+        for (int i = 0; i < departments.size(); i++) {
+            int j = actualDepartments.indexOf(departments.get(i));
+            String name = departments.get(i);
+            assertEquals(name, expected.getEmployees(i), j < 0 ? 0 : actual.getEmployees(j));
+            assertEquals(name, expected.getRegularPayCents(i), j < 0 ? 0 : actual.getRegularPayCents(j));
+            assertEquals(name, expected.getOvertimePayCents(i), j < 0 ? 0 : actual.getOvertimePayCents(j));
+            assertEquals(name, expected.getGrossPayCents(i), j < 0 ? 0 : actual.getGrossPayCents(j));
+            employees += expected.getEmployees(i);
+        }
+        assertEquals(employees, actual.companyTotals().getEmployees(0));
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Program Name: "Payroll System".  This program shows how to add and subtract two numbers using a simple UI with three
+ * active buttons.  Copyright (C) 2021 Jarrod Burges
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * version 3 as published by the Free Software Foundation.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ * A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package PayrollSystem;
+
+import org.junit.Test;
+
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for {@link PunchAggregator}.
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public class PunchAggregatorTest {
+
+    /**
+     * Records closed weeks as "employee weekStart hoursWorked".
+     */
+    private static final class Weeks implements PunchAggregator.WeekListener {
+        private final List<String> closed = new ArrayList<>();
+
+        @Override
+        public void weekClosed(String employee, long weekStart, long hoursWorked, long hourlyPay, long regularPay,
+                               long overtimePay) {
+            closed.add(employee + " " + weekStart + " " + hoursWorked);
+        }
+
+        @Override
+        public void punchDropped(String employee, long punchIn) {
+        }
+    }
+
+    private static long time(int day, int hour, int minute) {
+        //March 2021, the 8th was a Monday
+        return LocalDateTime.of(2021, 3, day, hour, minute).toEpochSecond(ZoneOffset.UTC);
+    }
+
+    @Test
+    public void rejectedShiftAcrossWeeksDoesNotLeakIntoNextWeek() {
+        Weeks weeks = new Weeks();
+        PunchAggregator aggregator = new PunchAggregator(OvertimePolicy.DEFAULT, RoundingMode.HALF_UP, weeks);
+        long monday = PunchAggregator.weekStart(time(8, 0, 0));
+
+        assertEquals(0, aggregator.punchIn("bob", time(7, 10, 0), 1000));
+        assertEquals(0, aggregator.punchIn("amy", time(8, 0, 30), 1000));
+        assertEquals(0, aggregator.punchOut("amy", time(8, 1, 0)));
+        assertEquals(PayrollValidator.LONG_SHIFT, aggregator.punchOut("bob", time(8, 12, 0)));
+        assertEquals(0, aggregator.punchIn("bob", time(8, 13, 0), 1000));
+        assertEquals(0, aggregator.punchOut("bob", time(8, 17, 0)));
+        aggregator.finish();
+
+        assertEquals(List.of("bob " + monday + " 400", "amy " + monday + " 50"), weeks.closed);
+    }
+
+    @Test
+    public void shiftAcrossEndOfWeekIsSplit() {
+        Weeks weeks = new Weeks();
+        PunchAggregator aggregator = new PunchAggregator(OvertimePolicy.DEFAULT, RoundingMode.HALF_UP, weeks);
+        long monday = PunchAggregator.weekStart(time(8, 0, 0));
+
+        assertEquals(0, aggregator.punchIn("bob", time(7, 22, 0), 1000));
+        assertEquals(0, aggregator.punchOut("bob", time(8, 3, 0)));
+        aggregator.finish();
+
+        assertEquals(List.of("bob " + (monday - 7) + " 200", "bob " + monday + " 300"), weeks.closed);
+    }
+}
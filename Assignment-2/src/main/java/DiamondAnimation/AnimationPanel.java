@@ -16,10 +16,8 @@ package DiamondAnimation;
 import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
-import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
-import java.util.ArrayList;
 
 /**
  * Represents the main visual display of the {@link GameField} and {@link Player}
@@ -212,7 +210,16 @@ class Player {
     private int lastPos = 0;
     private int[] xPoints;
     private int[] yPoints;
-    private final ArrayList<ArrayList<Point2D>> everyPoint2D;
+    /**
+     * Every point of the four sides of the polygon in order, packed as x, y pairs by
+     * {@link MathHelper#bresenham(int, int, int, int, int[], int)}. Only grown, so refreshing the points of a field
+     * that fits doesn't allocate.
+     */
+    private int[] path = new int[0];
+    /**
+     * Index in {@link #path} one past the last point of each side.
+     */
+    private final int[] sideEnds = new int[4];
     private int pos = 0;
     private AnimationPanel.GameField gameField;
 
@@ -230,11 +237,7 @@ class Player {
         this.xPoints = polygon.xpoints;
         this.yPoints = polygon.ypoints;
 
-        everyPoint2D = new ArrayList<>(4);
-        everyPoint2D.add(MathHelper.bresenham(xPoints[0], yPoints[0], xPoints[1], yPoints[1]));
-        everyPoint2D.add(MathHelper.bresenham(xPoints[1], yPoints[1], xPoints[2], yPoints[2]));
-        everyPoint2D.add(MathHelper.bresenham(xPoints[2], yPoints[2], xPoints[3], yPoints[3]));
-        everyPoint2D.add(MathHelper.bresenham(xPoints[3], yPoints[3], xPoints[0], yPoints[0]));
+        refreshPointArray();
 
         try {
             playerImage = ImageIO.read(getClass().getResourceAsStream("/player.png"));
@@ -273,11 +276,21 @@ class Player {
      * Refreshes the point arrays for every line segment in the player's polygon.
      */
     public void refreshPointArray() {
-        everyPoint2D.clear();
-        everyPoint2D.add(MathHelper.bresenham(xPoints[0], yPoints[0], xPoints[1], yPoints[1]));
-        everyPoint2D.add(MathHelper.bresenham(xPoints[1], yPoints[1], xPoints[2], yPoints[2]));
-        everyPoint2D.add(MathHelper.bresenham(xPoints[2], yPoints[2], xPoints[3], yPoints[3]));
-        everyPoint2D.add(MathHelper.bresenham(xPoints[3], yPoints[3], xPoints[0], yPoints[0]));
+        int points = 0;
+        for (int side = 0; side < 4; side++) {
+            int next = (side + 1) % 4;
+            points += MathHelper.bresenhamLength(xPoints[side], yPoints[side], xPoints[next], yPoints[next]);
+        }
+        if (path.length < 2 * points) {
+            path = new int[2 * points];
+        }
+
+        int end = 0;
+        for (int side = 0; side < 4; side++) {
+            int next = (side + 1) % 4;
+            end += MathHelper.bresenham(xPoints[side], yPoints[side], xPoints[next], yPoints[next], path, end);
+            sideEnds[side] = end;
+        }
     }
 
 
@@ -287,13 +300,17 @@ class Player {
     public void moveOneUnitUpdate() {
         //resets pos counter and increments lastPos if pos equals the size of the point array
         //means that the player has reached a new corner of the polygon
-        if (pos == everyPoint2D.get(lastPos%4).size()) {
+        int side = lastPos % 4;
+        int sideStart = side == 0 ? 0 : sideEnds[side - 1];
+        if (pos == sideEnds[side] - sideStart) {
             pos = 0;
             lastPos++;
+            side = lastPos % 4;
+            sideStart = side == 0 ? 0 : sideEnds[side - 1];
         }
-        //moves the player to the next x,y coordinate in the point2D array
-        this.x = (int) everyPoint2D.get(lastPos%4).get(pos).getX();
-        this.y = (int) everyPoint2D.get(lastPos%4).get(pos).getY();
+        //moves the player to the next x,y coordinate in the path
+        this.x = path[2 * (sideStart + pos)];
+        this.y = path[2 * (sideStart + pos) + 1];
 
         //System.out.println("X: " + x + "Y: " + y);
         pos++;
@@ -76,6 +76,77 @@ public final class MathHelper {
         return points;
     }
 
+    /**
+     * Number of points {@link #bresenham(int, int, int, int, int[], int)} writes for a line, both ends included.
+     *
+     * @param x1 x coordiate of point 1
+     * @param y1 y coordiate of point 1
+     * @param x2 x coordiate of point 2
+     * @param y2 y coordiate of point 2
+     * @return number of integer points between x1, y1 and x2, y2
+     */
+    public static int bresenhamLength(int x1, int y1, int x2, int y2) {
+        return Math.max(Math.abs(x2 - x1), Math.abs(y2 - y1)) + 1;
+    }
+
+    /**
+     * Same points as {@link #bresenham(int, int, int, int)}, but packed into a caller owned int array as x, y pairs
+     * instead of one Point2D object each, so a path can be rebuilt without allocating anything.
+     *
+     * @param x1 x coordiate of point 1
+     * @param y1 y coordiate of point 1
+     * @param x2 x coordiate of point 2
+     * @param y2 y coordiate of point 2
+     * @param path array the points are written to, point i at path[2 * i] and path[2 * i + 1]
+     * @param offset index of the first point to write
+     * @return number of points written, {@link #bresenhamLength}
+     */
+    public static int bresenham(int x1, int y1, int x2, int y2, int[] path, int offset) {
+        int d = 0;
+
+        int dx = Math.abs(x2 - x1);
+        int dy = Math.abs(y2 - y1);
+
+        int dx2 = 2 * dx;
+        int dy2 = 2 * dy;
+
+        int ix = x1 < x2 ? 1 : -1;
+        int iy = y1 < y2 ? 1 : -1;
+
+        int x = x1;
+        int y = y1;
+        int i = 2 * offset;
+
+        if (dx >= dy) {
+            while (true) {
+                path[i++] = x;
+                path[i++] = y;
+                if (x == x2)
+                    break;
+                x += ix;
+                d += dy2;
+                if (d > dx) {
+                    y += iy;
+                    d -= dx2;
+                }
+            }
+        } else {
+            while (true) {
+                path[i++] = x;
+                path[i++] = y;
+                if (y == y2)
+                    break;
+                y += iy;
+                d += dx2;
+                if (d > dy) {
+                    x += ix;
+                    d -= dy2;
+                }
+            }
+        }
+        return i / 2 - offset;
+    }
+
     /**
      * Generates a random rhombus with four points in the order of bottom, right, top, left.
      *
@@ -0,0 +1,141 @@
+/*
+ * Program Name: "Diamond Animation".  This program shows how to add and subtract two numbers using a simple UI with three
+ *  active buttons.  Copyright (C) 2021 Jarrod Burges
+ *  This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ *  General Public License
+ *  version 3 as published by the Free Software Foundation.
+ *  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+ *  License for more details.
+ *  A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package DiamondAnimation;
+
+import java.awt.geom.Point2D;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Micro benchmark of the two {@link MathHelper} bresenham paths, run with
+ * {@code java -cp Assignment-2.jar DiamondAnimation.PathBenchmark [segments]}. Every case is warmed up before it is
+ * timed and reports nanoseconds and bytes allocated per line segment, on random segments the size of a field.
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public final class PathBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int ITERATIONS = 20;
+
+    /**
+     * Width and height the segment ends are picked in, the height of the {@link AnimationPanel} canvas.
+     */
+    private static final int FIELD_SIZE = 750;
+
+    /**
+     * Keeps results alive so the JIT cannot remove the benchmarked work.
+     */
+    private static volatile long sink;
+
+    private PathBenchmark() {
+    }
+
+    /**
+     * Runs both cases and prints the results.
+     *
+     * @param args optional number of segments per iteration
+     */
+    public static void main(String[] args) {
+        int segments = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 14;
+        Random random = new Random(42);
+        int[] ends = new int[4 * segments];
+        int longest = 0;
+        for (int i = 0; i < segments; i++) {
+            for (int j = 0; j < 4; j++) {
+                ends[4 * i + j] = random.nextInt(FIELD_SIZE);
+            }
+            longest = Math.max(longest, MathHelper.bresenhamLength(ends[4 * i], ends[4 * i + 1], ends[4 * i + 2],
+                    ends[4 * i + 3]));
+        }
+        int[] path = new int[2 * longest];
+        check(ends, segments, path);
+
+        System.out.println("segments=" + segments);
+        time("ArrayList<Point2D>", segments, () -> {
+            long points = 0;
+            for (int i = 0; i < segments; i++) {
+                ArrayList<Point2D> line = MathHelper.bresenham(ends[4 * i], ends[4 * i + 1], ends[4 * i + 2],
+                        ends[4 * i + 3]);
+                points += line.size();
+            }
+            sink = points;
+        });
+        time("packed int[]", segments, () -> {
+            long points = 0;
+            for (int i = 0; i < segments; i++) {
+                points += MathHelper.bresenham(ends[4 * i], ends[4 * i + 1], ends[4 * i + 2], ends[4 * i + 3], path,
+                        0);
+            }
+            sink = points;
+        });
+    }
+
+    /**
+     * Checks that both paths give the same points for every segment.
+     */
+    private static void check(int[] ends, int segments, int[] path) {
+        for (int i = 0; i < segments; i++) {
+            ArrayList<Point2D> line = MathHelper.bresenham(ends[4 * i], ends[4 * i + 1], ends[4 * i + 2],
+                    ends[4 * i + 3]);
+            int points = MathHelper.bresenham(ends[4 * i], ends[4 * i + 1], ends[4 * i + 2], ends[4 * i + 3], path, 0);
+            if (points != line.size()) {
+                throw new IllegalStateException("Segment " + i + " has " + points + " packed points instead of "
+                        + line.size());
+            }
+            for (int j = 0; j < points; j++) {
+                if (path[2 * j] != line.get(j).getX() || path[2 * j + 1] != line.get(j).getY()) {
+                    throw new IllegalStateException("Segment " + i + " differs at point " + j);
+                }
+            }
+        }
+    }
+
+    /**
+     * Times a benchmark case and prints its nanoseconds and allocated bytes per segment.
+     *
+     * @param name name of the case
+     * @param segments segments computed by one run of the case
+     * @param body one iteration of the case
+     */
+    private static void time(String name, int segments, Runnable body) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            body.run();
+        }
+        long best = Long.MAX_VALUE;
+        long allocated = allocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            body.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        allocated = allocatedBytes() - allocated;
+
+        System.out.printf("%-20s %8.1f ns/segment %8.1f bytes/segment%n", name, (double) best / segments,
+                (double) allocated / ITERATIONS / segments);
+    }
+
+    /**
+     * @return bytes allocated by this thread so far, or 0 if the JVM cannot tell
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Program Name: "Triangle Computations".  This program shows how to add and subtract two numbers using a simple UI with three
+ *  active buttons.  Copyright (C) 2021 Jarrod Burges
+ *  This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ *  General Public License
+ *  version 3 as published by the Free Software Foundation.
+ *  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+ *  License for more details.
+ *  A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package TriangleComputations;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Represents the Application's headless entry point for batch triangle runs. Unlike {@link Main} it never creates a
+ * GUI so it can run on servers without a display.
+ * <pre>
+ * run &lt;input&gt; &lt;output&gt; [mode]   streams a binary or CSV file of side pairs through {@link BatchTriangles}
+ * bench [count]            runs the {@link TriangleBenchmark} kernels and {@link Hypotenuse} modes
+ * solverbench [count]      times every kind of {@link TriangleSolver} specification
+ * sumbench [count]         times {@link CompensatedReduction} against a plain loop
+ * stl &lt;mesh&gt; [threads]    sums the surface area of a binary STL mesh with {@link StlSurfaceArea}
+ * </pre>
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public class BatchMain {
+
+    /**
+     * Runs the batch command given on the command line and prints its report.
+     * @param args command followed by its arguments
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            usage();
+            return;
+        }
+
+        try {
+            switch (args[0]) {
+                case "run":
+                    requireArgs(args, 3);
+                    System.out.println(BatchTriangles.run(Paths.get(args[1]), Paths.get(args[2]),
+                            args.length > 3 ? Hypotenuse.parseMode(args[3]) : Hypotenuse.DEFAULT_MODE));
+                    break;
+                case "bench":
+                    TriangleBenchmark.run(args.length > 1 ? Integer.parseInt(args[1]) : 1 << 20);
+                    break;
+                case "solverbench":
+                    TriangleBenchmark.runSolver(args.length > 1 ? Integer.parseInt(args[1]) : 1 << 20);
+                    break;
+                case "sumbench":
+                    TriangleBenchmark.runReduction(args.length > 1 ? Integer.parseInt(args[1]) : 1 << 22);
+                    break;
+                case "stl":
+                    requireArgs(args, 2);
+                    System.out.println(StlSurfaceArea.run(Paths.get(args[1]), args.length > 2
+                            ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors()));
+                    break;
+                default:
+                    usage();
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            usage();
+            System.exit(2);
+        } catch (IOException e) {
+            System.err.println("Batch run failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Checks that a command was given enough arguments.
+     *
+     * @param args command line arguments including the command
+     * @param count minimum number of arguments including the command
+     */
+    private static void requireArgs(String[] args, int count) {
+        if (args.length < count) {
+            throw new IllegalArgumentException("Missing arguments for " + args[0] + ".");
+        }
+    }
+
+    private static void usage() {
+        System.err.println("Usage: BatchMain <command> [arguments]");
+        System.err.println("  run <input> <output> [mode]   compute the area and hypotenuse of every side pair, .csv or"
+                + " binary, with the fast, scaled or exact hypotenuse");
+        System.err.println("  bench [count]          time the triangle kernels and hypotenuse modes against MathHelper");
+        System.err.println("  solverbench [count]    time solving triangles from sss, sas, asa and aas");
+        System.err.println("  sumbench [count]       time compensated, reproducible sums against a plain loop");
+        System.err.println("  stl <mesh> [threads]   sum the surface area of a binary STL mesh across every core");
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ * Program Name: "Triangle Computations".  This program shows how to add and subtract two numbers using a simple UI with three
+ *  active buttons.  Copyright (C) 2021 Jarrod Burges
+ *  This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ *  General Public License
+ *  version 3 as published by the Free Software Foundation.
+ *  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+ *  License for more details.
+ *  A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package TriangleComputations;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams a file of side pairs through {@link TriangleBatch} a block at a time, so memory use does not grow with the
+ * file size. Two formats are read, chosen by the file extension:
+ * <ul>
+ *     <li>{@code .csv}: one {@code side1,side2} pair per line with an optional header line where neither field is
+ *     a number, written back as {@code area,hypotenuse} lines.</li>
+ *     <li>anything else: little endian binary doubles, 16 bytes per pair, written back as area and hypotenuse
+ *     pairs in the same layout.</li>
+ * </ul>
+ * Pairs where a side is not a finite number greater than 0 are rejected and written as NaN, so output row n always
+ * belongs to input row n. The hypotenuse is computed with one of the {@link Hypotenuse} modes.
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public final class BatchTriangles {
+
+    /**
+     * Triangles computed per block.
+     */
+    static final int BLOCK = 1 << 16;
+
+    private static final int PAIR_BYTES = 2 * Double.BYTES;
+
+    private BatchTriangles() {
+    }
+
+    /**
+     * Summary of one batch run.
+     */
+    public static final class Report {
+
+        private final long pairs;
+        private final long rejected;
+        private final long elapsedNanos;
+        private final int mode;
+
+        Report(long pairs, long rejected, long elapsedNanos, int mode) {
+            this.pairs = pairs;
+            this.rejected = rejected;
+            this.elapsedNanos = elapsedNanos;
+            this.mode = mode;
+        }
+
+        /**
+         * @return side pairs read, including rejected ones
+         */
+        public long getPairs() {
+            return pairs;
+        }
+
+        /**
+         * @return side pairs written as NaN
+         */
+        public long getRejected() {
+            return rejected;
+        }
+
+        /**
+         * @return triangles per second over the whole run
+         */
+        public double getPairsPerSecond() {
+            return elapsedNanos == 0 ? 0 : pairs * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("pairs=%d rejected=%d elapsed=%.3fs pairs/sec=%.0f kernel=%s hypotenuse=%s", pairs,
+                    rejected, elapsedNanos / 1e9, getPairsPerSecond(), TriangleBatch.getKernelName(),
+                    Hypotenuse.getModeName(mode));
+        }
+    }
+
+    /**
+     * Computes every pair of the input file with {@link Hypotenuse#DEFAULT_MODE} and writes the results to the
+     * output file.
+     *
+     * @param input file of side pairs, CSV if its name ends in .csv, binary otherwise
+     * @param output file the results are written to in the same format, replaced if it exists
+     * @return summary of the run
+     * @throws IOException a file cannot be read or written, or a binary file ends inside a pair
+     */
+    public static Report run(Path input, Path output) throws IOException {
+        return run(input, output, Hypotenuse.DEFAULT_MODE);
+    }
+
+    /**
+     * Computes every pair of the input file and writes the results to the output file.
+     *
+     * @param input file of side pairs, CSV if its name ends in .csv, binary otherwise
+     * @param output file the results are written to in the same format, replaced if it exists
+     * @param mode {@link Hypotenuse} mode of the hypotenuse
+     * @return summary of the run
+     * @throws IOException a file cannot be read or written, or a binary file ends inside a pair
+     */
+    public static Report run(Path input, Path output, int mode) throws IOException {
+        long start = System.nanoTime();
+        long[] counts = input.getFileName().toString().toLowerCase().endsWith(".csv")
+                ? runCsv(input, output, mode) : runBinary(input, output, mode);
+        return new Report(counts[0], counts[1], System.nanoTime() - start, mode);
+    }
+
+    /**
+     * @return pairs read and pairs rejected
+     */
+    private static long[] runBinary(Path input, Path output, int mode) throws IOException {
+        double[] side1 = new double[BLOCK];
+        double[] side2 = new double[BLOCK];
+        double[] area = new double[BLOCK];
+        double[] hypotenuse = new double[BLOCK];
+        double[] pairs = new double[2 * BLOCK];
+        ByteBuffer inBuffer = ByteBuffer.allocateDirect(BLOCK * PAIR_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer outBuffer = ByteBuffer.allocateDirect(BLOCK * PAIR_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        long read = 0;
+        long rejected = 0;
+
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            boolean eof = false;
+            while (!eof) {
+                while (inBuffer.hasRemaining() && !eof) {
+                    eof = in.read(inBuffer) < 0;
+                }
+                inBuffer.flip();
+                int count = inBuffer.remaining() / PAIR_BYTES;
+                inBuffer.asDoubleBuffer().get(pairs, 0, 2 * count);
+                inBuffer.position(count * PAIR_BYTES);
+                inBuffer.compact();
+
+                for (int i = 0; i < count; i++) {
+                    double a = pairs[2 * i];
+                    double b = pairs[2 * i + 1];
+                    if (!isValid(a) || !isValid(b)) {
+                        a = Double.NaN;
+                        b = Double.NaN;
+                        rejected++;
+                    }
+                    side1[i] = a;
+                    side2[i] = b;
+                }
+                TriangleBatch.compute(side1, side2, area, hypotenuse, 0, count, mode);
+                for (int i = 0; i < count; i++) {
+                    pairs[2 * i] = area[i];
+                    pairs[2 * i + 1] = hypotenuse[i];
+                }
+
+                outBuffer.clear();
+                outBuffer.asDoubleBuffer().put(pairs, 0, 2 * count);
+                outBuffer.limit(count * PAIR_BYTES);
+                while (outBuffer.hasRemaining()) {
+                    out.write(outBuffer);
+                }
+                read += count;
+            }
+            if (inBuffer.position() != 0) {
+                throw new IOException(input + " ends inside the side pair at byte " + read * PAIR_BYTES);
+            }
+        }
+        return new long[]{read, rejected};
+    }
+
+    /**
+     * @return pairs read and pairs rejected
+     */
+    private static long[] runCsv(Path input, Path output, int mode) throws IOException {
+        double[] side1 = new double[BLOCK];
+        double[] side2 = new double[BLOCK];
+        double[] area = new double[BLOCK];
+        double[] hypotenuse = new double[BLOCK];
+        StringBuilder line = new StringBuilder();
+        long read = 0;
+        long rejected = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8);
+             BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            writer.write("area,hypotenuse");
+            writer.newLine();
+            int count = 0;
+            boolean first = true;
+            String text;
+            while ((text = reader.readLine()) != null) {
+                if (text.isBlank()) {
+                    continue;
+                }
+                int comma = text.indexOf(',');
+                String field1 = comma < 0 ? text : text.substring(0, comma);
+                String field2 = comma < 0 ? "" : text.substring(comma + 1);
+                double a = parseSide(field1);
+                double b = parseSide(field2);
+                if (!isValid(a) || !isValid(b)) {
+                    //only a first line where neither field is a number is the header, a malformed pair is rejected
+                    if (first && !isNumber(field1) && !isNumber(field2)) {
+                        first = false;
+                        continue;
+                    }
+                    a = Double.NaN;
+                    b = Double.NaN;
+                    rejected++;
+                }
+                first = false;
+                side1[count] = a;
+                side2[count] = b;
+                if (++count == BLOCK) {
+                    writeCsv(writer, line, side1, side2, area, hypotenuse, count, mode);
+                    read += count;
+                    count = 0;
+                }
+            }
+            writeCsv(writer, line, side1, side2, area, hypotenuse, count, mode);
+            read += count;
+        }
+        return new long[]{read, rejected};
+    }
+
+    /**
+     * Computes a block of pairs and writes one line per pair.
+     */
+    private static void writeCsv(BufferedWriter writer, StringBuilder line, double[] side1, double[] side2,
+                                 double[] area, double[] hypotenuse, int count, int mode) throws IOException {
+        TriangleBatch.compute(side1, side2, area, hypotenuse, 0, count, mode);
+        for (int i = 0; i < count; i++) {
+            line.setLength(0);
+            line.append(area[i]).append(',').append(hypotenuse[i]);
+            writer.append(line);
+            writer.newLine();
+        }
+    }
+
+    /**
+     * @param field text of one side
+     * @return the side, or NaN if the field is not a number
+     */
+    private static double parseSide(String field) {
+        try {
+            return Double.parseDouble(field.trim());
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * @param field text of one side
+     * @return whether the field is a number, valid as a side or not
+     */
+    private static boolean isNumber(String field) {
+        try {
+            Double.parseDouble(field.trim());
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @param side length read for a side
+     * @return whether the side is a finite number greater than 0
+     */
+    static boolean isValid(double side) {
+        return side > 0 && side < Double.POSITIVE_INFINITY;
+    }
+}
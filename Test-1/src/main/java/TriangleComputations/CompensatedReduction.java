@@ -0,0 +1,179 @@
+/*
+ * Program Name: "Triangle Computations".  This program shows how to add and subtract two numbers using a simple UI with three
+ *  active buttons.  Copyright (C) 2021 Jarrod Burges
+ *  This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ *  General Public License
+ *  version 3 as published by the Free Software Foundation.
+ *  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+ *  License for more details.
+ *  A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package TriangleComputations;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Accurate and reproducible sums of many doubles, such as the areas of millions of triangles.
+ * <p>Values are summed a chunk at a time with Neumaier's compensated summation, which carries the rounding error of
+ * every addition along instead of losing it, so the error stays near one rounding however many values are added.
+ * Chunk sums are merged in a fixed tree: a range of chunks is always split at its midpoint and its halves merged
+ * left to right. The tree depends only on the number of chunks, so a sum is bit for bit the same whether it runs
+ * on one thread or many, or without a pool at all.</p>
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public final class CompensatedReduction {
+
+    /**
+     * Values per chunk of {@link #sum(double[], int, int, ForkJoinPool)}.
+     */
+    public static final int CHUNK_SIZE = 1 << 14;
+
+    private CompensatedReduction() {
+    }
+
+    /**
+     * Adds the values of one chunk to a sum.
+     */
+    public interface Chunk {
+        void sum(int chunk, Sum sum);
+    }
+
+    /**
+     * Neumaier compensated sum of doubles.
+     */
+    public static final class Sum {
+        private double sum;
+        private double compensation;
+        private long count;
+
+        /**
+         * @param value number to add
+         */
+        public void add(double value) {
+            double total = sum + value;
+            //whichever operand is smaller lost its low bits to the rounding of total
+            if (Math.abs(sum) >= Math.abs(value)) {
+                compensation += (sum - total) + value;
+            } else {
+                compensation += (value - total) + sum;
+            }
+            sum = total;
+            count++;
+        }
+
+        /**
+         * Adds another sum to this one.
+         *
+         * @param other sum of the values after this one's
+         */
+        public void merge(Sum other) {
+            long added = count + other.count;
+            add(other.sum);
+            add(other.compensation);
+            count = added;
+        }
+
+        /**
+         * @return the sum corrected by the rounding errors carried along
+         */
+        public double getValue() {
+            return sum + compensation;
+        }
+
+        /**
+         * @return number of values added
+         */
+        public long getCount() {
+            return count;
+        }
+    }
+
+    /**
+     * Sums values[from, to) a {@link #CHUNK_SIZE} chunk at a time.
+     *
+     * @param values numbers to sum
+     * @param from first value to sum
+     * @param to one past the last value to sum
+     * @param pool pool the chunks are summed in, null to sum them in the calling thread
+     * @return compensated sum, the same for any pool
+     */
+    public static double sum(double[] values, int from, int to, ForkJoinPool pool) {
+        int chunks = (to - from + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        return reduce(chunks, (chunk, sum) -> {
+            int start = from + chunk * CHUNK_SIZE;
+            int end = Math.min(to, start + CHUNK_SIZE);
+            for (int i = start; i < end; i++) {
+                sum.add(values[i]);
+            }
+        }, pool).getValue();
+    }
+
+    /**
+     * Sums chunks numbered [0, chunks) and merges their sums in the fixed tree.
+     *
+     * @param chunks number of chunks
+     * @param chunk adds the values of one chunk, called from the pool's threads
+     * @param pool pool the chunks are summed in, null to sum them in the calling thread
+     * @return merged sum of every chunk, the same for any pool
+     */
+    public static Sum reduce(int chunks, Chunk chunk, ForkJoinPool pool) {
+        if (chunks == 0) {
+            return new Sum();
+        }
+        return pool == null ? reduce(chunk, 0, chunks) : pool.invoke(new ChunkTask(chunk, 0, chunks));
+    }
+
+    /**
+     * The merge tree of {@link ChunkTask} in the calling thread.
+     */
+    private static Sum reduce(Chunk chunk, int fromChunk, int toChunk) {
+        if (toChunk - fromChunk == 1) {
+            Sum sum = new Sum();
+            chunk.sum(fromChunk, sum);
+            return sum;
+        }
+
+        int middle = (fromChunk + toChunk) >>> 1;
+        Sum left = reduce(chunk, fromChunk, middle);
+        left.merge(reduce(chunk, middle, toChunk));
+        return left;
+    }
+
+    /**
+     * Sums a range of chunks, splitting it at its midpoint until one chunk is left.
+     */
+    private static final class ChunkTask extends RecursiveTask<Sum> {
+        private final Chunk chunk;
+        private final int fromChunk;
+        private final int toChunk;
+
+        ChunkTask(Chunk chunk, int fromChunk, int toChunk) {
+            this.chunk = chunk;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        @Override
+        protected Sum compute() {
+            if (toChunk - fromChunk == 1) {
+                Sum sum = new Sum();
+                chunk.sum(fromChunk, sum);
+                return sum;
+            }
+
+            int middle = (fromChunk + toChunk) >>> 1;
+            ChunkTask left = new ChunkTask(chunk, fromChunk, middle);
+            ChunkTask right = new ChunkTask(chunk, middle, toChunk);
+            left.fork();
+            Sum rightSum = right.compute();
+            Sum leftSum = left.join();
+            leftSum.merge(rightSum);
+            return leftSum;
+        }
+    }
+}
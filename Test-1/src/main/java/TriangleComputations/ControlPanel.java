@@ -14,12 +14,17 @@
 package TriangleComputations;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
 import java.awt.event.ActionListener;
 import java.text.DecimalFormat;
+import java.text.ParseException;
+import java.util.concurrent.ExecutionException;
 
 /**
- * Represents a Control Panel for a larger frame application
+ * Represents a Control Panel for a larger frame application. With Live checked, the output follows the input
+ * fields as they are typed in, recomputed in the background once typing pauses for {@link #DEBOUNCE_MILLIS}.
  * @author Jarrod Burges
  * @email jburges@csu.fullerton.edu
  */
@@ -29,9 +34,34 @@ public class ControlPanel extends JPanel {
     private final OutputPanel outputPanel;
     private final ApplicationFrame applicationFrame;
 
+    /**
+     * Pause in typing after which a live recompute starts.
+     */
+    static final int DEBOUNCE_MILLIS = 200;
+
+    /**
+     * Formats area and hypotenuse for the OutputPanel, only used on the Event Dispatch Thread.
+     */
+    private final DecimalFormat format = new DecimalFormat("#0.00");
+
+    /**
+     * Restarted by every edit while Live is checked and fires once typing pauses.
+     */
+    private final Timer liveTimer = new Timer(DEBOUNCE_MILLIS, actionEvent -> liveCompute());
+
+    /**
+     * Represents the box that turns recompute as you type on and off.
+     */
+    private JCheckBox liveCheckBox;
+
+    /**
+     * Represents the latest computation running in the background, only its result is shown.
+     */
+    private SwingWorker<double[], Void> computeWorker;
+
     public ControlPanel(InputPanel inputPanel, OutputPanel outputPanel, ApplicationFrame applicationFrame) {
         //Calls super() and sets size constraints, color, and border
-        super(new GridLayout(1, 3));
+        super(new GridLayout(1, 4));
         this.setBackground(new Color(255, 105, 97));
         this.setPreferredSize(new Dimension(100, 50));
         this.setBorder(BorderFactory.createEmptyBorder(5,5,5,5));
@@ -43,27 +73,41 @@ public class ControlPanel extends JPanel {
         this.applicationFrame = applicationFrame;
 
         createAndAddButtons();
+
+        liveTimer.setRepeats(false);
+        DocumentListener editListener = liveEditListener();
+        inputPanel.getInputSide1().getDocument().addDocumentListener(editListener);
+        inputPanel.getInputSide2().getDocument().addDocumentListener(editListener);
     }
 
     private void createAndAddButtons() {
         JButton clearButton = new JButton("Clear");
         JButton computeButton = new JButton("Compute");
         JButton quitButton = new JButton("Quit");
+        liveCheckBox = new JCheckBox("Live");
 
         clearButton.setPreferredSize(new Dimension(25, 25));
         computeButton.setPreferredSize(new Dimension(25, 25));
         quitButton.setPreferredSize(new Dimension(25, 25));
+        liveCheckBox.setPreferredSize(new Dimension(25, 25));
+        liveCheckBox.setHorizontalAlignment(SwingConstants.CENTER);
+        liveCheckBox.setOpaque(false);
 
         clearButton.addActionListener(clearButtonListener());
         computeButton.addActionListener(computeButtonListener());
         quitButton.addActionListener(quitButtonListener());
+        liveCheckBox.addActionListener(liveCheckBoxListener());
 
         this.add(clearButton, BorderLayout.WEST);
         this.add(computeButton, BorderLayout.CENTER);
+        this.add(liveCheckBox, BorderLayout.CENTER);
         this.add(quitButton, BorderLayout.EAST);
     }
 
     private void clearPanels() {
+        //a computation still running would otherwise show its result over the cleared panels
+        cancelCompute();
+
         //Resets every InputPanel JTextField or JFormattedTextField to either black text or 0.0d
         inputPanel.getInputSide1().setValue(0.0d);
         inputPanel.getInputSide2().setValue(0.0d);
@@ -98,17 +142,122 @@ public class ControlPanel extends JPanel {
                 clearPanels();
                 return;
             }
-            DecimalFormat dec = new DecimalFormat("#0.00");
+            compute(side1, side2);
+        };
+    }
+
+    private ActionListener liveCheckBoxListener() {
+        return actionEvent -> {
+            if (liveCheckBox.isSelected()) {
+                liveTimer.restart();
+            } else {
+                liveTimer.stop();
+            }
+        };
+    }
 
-            String area = dec.format(MathHelper.getArea(side1, side2));
-            outputPanel.getAreaLabel().setText(area);
+    /**
+     * Returns a DocumentListener that restarts the debounce timer on every edit of an input field while Live is
+     * checked, so only the last edit of a burst of typing is computed.
+     */
+    private DocumentListener liveEditListener() {
+        return new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                edited();
+            }
 
-            String hypotenuse = dec.format(MathHelper.getHypotenuse(side1, side2));
-            outputPanel.getHypotenuseLabel().setText(hypotenuse);
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                edited();
+            }
 
-            inputPanel.repaint();
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                edited();
+            }
+
+            private void edited() {
+                if (liveCheckBox.isSelected()) {
+                    liveTimer.restart();
+                }
+            }
+        };
+    }
+
+    /**
+     * Computes whatever is typed in the input fields, committed or not. Sides that are not positive numbers yet
+     * blank the output instead of showing a dialog, since the user is most likely still typing.
+     */
+    private void liveCompute() {
+        double side1 = parseSide(inputPanel.getInputSide1());
+        double side2 = parseSide(inputPanel.getInputSide2());
+        if (side1 > 0 && side2 > 0) {
+            compute(side1, side2);
+        } else {
+            cancelCompute();
+            outputPanel.getHypotenuseLabel().setText("");
+            outputPanel.getAreaLabel().setText("");
             outputPanel.repaint();
+        }
+    }
+
+    /**
+     * @param field input field
+     * @return the number typed in the field, or NaN if it does not hold one
+     */
+    private static double parseSide(JFormattedTextField field) {
+        try {
+            Object value = field.getFormatter().stringToValue(field.getText());
+            return value instanceof Number ? ((Number) value).doubleValue() : Double.NaN;
+        } catch (ParseException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Computes the area and hypotenuse on a background SwingWorker and shows them in the OutputPanel. A newer
+     * computation cancels one that hasn't finished yet, and only the latest one's result is shown.
+     *
+     * @param side1 first side of the triangle
+     * @param side2 second side of the triangle
+     */
+    private void compute(double side1, double side2) {
+        cancelCompute();
+        computeWorker = new SwingWorker<double[], Void>() {
+            @Override
+            protected double[] doInBackground() {
+                return new double[] {MathHelper.getArea(side1, side2), MathHelper.getHypotenuse(side1, side2)};
+            }
+
+            @Override
+            protected void done() {
+                //a worker that finished just before a newer one started is stale too
+                if (isCancelled() || computeWorker != this) {
+                    return;
+                }
+                try {
+                    double[] result = get();
+                    outputPanel.getAreaLabel().setText(format.format(result[0]));
+                    outputPanel.getHypotenuseLabel().setText(format.format(result[1]));
+                    inputPanel.repaint();
+                    outputPanel.repaint();
+                } catch (ExecutionException e) {
+                    JOptionPane.showMessageDialog(applicationFrame, "Triangle cannot be computed: "
+                            + e.getCause().getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
         };
+        computeWorker.execute();
+    }
+
+    private void cancelCompute() {
+        if (computeWorker != null) {
+            computeWorker.cancel(false);
+            computeWorker = null;
+        }
     }
 
     private ActionListener quitButtonListener() {
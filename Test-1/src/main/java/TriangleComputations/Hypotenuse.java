@@ -0,0 +1,148 @@
+/*
+ * Program Name: "Triangle Computations".  This program shows how to add and subtract two numbers using a simple UI with three
+ *  active buttons.  Copyright (C) 2021 Jarrod Burges
+ *  This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ *  General Public License
+ *  version 3 as published by the Free Software Foundation.
+ *  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+ *  License for more details.
+ *  A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package TriangleComputations;
+
+/**
+ * Ways of computing the hypotenuse of a right triangle, trading speed against range:
+ * <ul>
+ *     <li>{@link #FAST}: {@code sqrt(a * a + b * b)}, the formula {@link MathHelper} has always used without the
+ *     calls to {@code Math.pow}. The quickest, but a * a overflows to infinity once a side passes about 1.3e154, and
+ *     precision is lost to underflow when both sides are below about 1.5e-154.</li>
+ *     <li>{@link #SCALED}: the same formula, with both sides scaled by a power of two when the larger one is
+ *     outside [2^-500, 2^500], so no finite pair overflows or underflows. The scaling is exact, so accuracy matches
+ *     {@link #FAST}, at the cost of a range check for every pair, about twice the time of {@link #FAST}.</li>
+ *     <li>{@link #EXACT}: {@link Math#hypot}, the reference. Never overflows, but is several times slower.</li>
+ * </ul>
+ * {@link #FAST} and {@link #SCALED} round four times (both squares, the sum and the square root), which bounds their
+ * error below 2 ulp; in practice it stays just above 1 ulp. {@link Math#hypot} is specified to stay below 1 ulp.
+ * {@link TriangleBenchmark} measures the time per triangle of each mode, and HypotenuseTest checks each mode's
+ * largest error against a 40 digit reference.
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public final class Hypotenuse {
+
+    /**
+     * Modes, in the order of {@link #MODES}.
+     */
+    public static final int FAST = 0;
+    public static final int SCALED = 1;
+    public static final int EXACT = 2;
+    private static final String[] MODES = {"fast", "scaled", "exact"};
+
+    /**
+     * Mode used by {@link TriangleBatch} and {@link BatchTriangles} unless told otherwise, the same formula as
+     * {@link MathHelper#getHypotenuse(double, double)}.
+     */
+    public static final int DEFAULT_MODE = FAST;
+
+    /**
+     * Larger sides are scaled down before squaring, smaller ones up.
+     */
+    static final double SCALE_ABOVE = 0x1p500;
+    static final double SCALE_BELOW = 0x1p-500;
+
+    /**
+     * Power of two the sides are scaled by, chosen so the scaled larger side squares to a normal double.
+     */
+    static final double SCALE = 0x1p600;
+    static final double UNSCALE = 0x1p-600;
+
+    private Hypotenuse() {
+    }
+
+    /**
+     * Computes the hypotenuse with the given mode.
+     *
+     * @param mode {@link #FAST}, {@link #SCALED} or {@link #EXACT}
+     * @param side1 first side of the triangle
+     * @param side2 second side of the triangle
+     * @return hypotenuse of the triangle
+     */
+    public static double get(int mode, double side1, double side2) {
+        switch (mode) {
+            case FAST:
+                return fast(side1, side2);
+            case SCALED:
+                return scaled(side1, side2);
+            case EXACT:
+                return exact(side1, side2);
+            default:
+                throw new IllegalArgumentException("Unknown hypotenuse mode " + mode + ".");
+        }
+    }
+
+    /**
+     * @param side1 first side of the triangle
+     * @param side2 second side of the triangle
+     * @return hypotenuse of the triangle, infinite if a side is above about 1.3e154
+     */
+    public static double fast(double side1, double side2) {
+        return Math.sqrt(side1 * side1 + side2 * side2);
+    }
+
+    /**
+     * @param side1 first side of the triangle
+     * @param side2 second side of the triangle
+     * @return hypotenuse of the triangle, only infinite if a side is or the result does not fit a double
+     */
+    public static double scaled(double side1, double side2) {
+        double a = Math.abs(side1);
+        double b = Math.abs(side2);
+        double larger = Math.max(a, b);
+        if (larger >= SCALE_BELOW && larger <= SCALE_ABOVE) {
+            return Math.sqrt(a * a + b * b);
+        }
+        if (a == Double.POSITIVE_INFINITY || b == Double.POSITIVE_INFINITY) {
+            //like Math.hypot, infinite even if the other side is NaN
+            return Double.POSITIVE_INFINITY;
+        }
+        //scaling by a power of two is exact, and the smaller side only loses bits it could not have added anyway
+        double scale = larger > SCALE_ABOVE ? UNSCALE : SCALE;
+        a *= scale;
+        b *= scale;
+        return Math.sqrt(a * a + b * b) / scale;
+    }
+
+    /**
+     * @param side1 first side of the triangle
+     * @param side2 second side of the triangle
+     * @return hypotenuse of the triangle from {@link Math#hypot}
+     */
+    public static double exact(double side1, double side2) {
+        return Math.hypot(side1, side2);
+    }
+
+    /**
+     * @param mode {@link #FAST}, {@link #SCALED} or {@link #EXACT}
+     * @return lower case name of the mode
+     */
+    public static String getModeName(int mode) {
+        return MODES[mode];
+    }
+
+    /**
+     * @param name name of a mode, any case
+     * @return the mode with that name
+     * @throws IllegalArgumentException there is no mode with that name
+     */
+    public static int parseMode(String name) {
+        for (int mode = 0; mode < MODES.length; mode++) {
+            if (MODES[mode].equalsIgnoreCase(name)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Unknown hypotenuse mode " + name + ", expected fast, scaled or exact.");
+    }
+}
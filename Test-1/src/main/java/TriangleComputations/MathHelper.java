@@ -31,6 +31,35 @@ public final class MathHelper {
         return (side1*side2)/2.0;
     }
 
+    /**
+     * Calculates the area of a triangle in space from its corners, half the length of the cross product of two of
+     * its edges. For a right triangle with its legs along two axes this is {@link #getArea(double, double)}.
+     *
+     * @param x1 x coordinate of the first corner
+     * @param y1 y coordinate of the first corner
+     * @param z1 z coordinate of the first corner
+     * @param x2 x coordinate of the second corner
+     * @param y2 y coordinate of the second corner
+     * @param z2 z coordinate of the second corner
+     * @param x3 x coordinate of the third corner
+     * @param y3 y coordinate of the third corner
+     * @param z3 z coordinate of the third corner
+     * @return area of the triangle
+     */
+    public static double getArea(double x1, double y1, double z1, double x2, double y2, double z2,
+                                 double x3, double y3, double z3) {
+        double ux = x2 - x1;
+        double uy = y2 - y1;
+        double uz = z2 - z1;
+        double vx = x3 - x1;
+        double vy = y3 - y1;
+        double vz = z3 - z1;
+        double cx = uy * vz - uz * vy;
+        double cy = uz * vx - ux * vz;
+        double cz = ux * vy - uy * vx;
+        return Math.sqrt(cx * cx + cy * cy + cz * cz) / 2.0;
+    }
+
     /**
      * Calculates the hypotenuse of a triangle with given sides.
      *
@@ -39,6 +68,18 @@ public final class MathHelper {
      * @return hypotenuse of the triangle
      */
     public static double getHypotenuse(double side1, double side2) {
-        return Math.sqrt(Math.pow(side1, 2) + Math.pow(side2, 2));
+        return Hypotenuse.fast(side1, side2);
+    }
+
+    /**
+     * Calculates the hypotenuse of a triangle with given sides.
+     *
+     * @param side1 first side of a triangle
+     * @param side2 second side of the triangle
+     * @param mode {@link Hypotenuse#FAST}, {@link Hypotenuse#SCALED} or {@link Hypotenuse#EXACT}
+     * @return hypotenuse of the triangle
+     */
+    public static double getHypotenuse(double side1, double side2, int mode) {
+        return Hypotenuse.get(mode, side1, side2);
     }
 }
@@ -0,0 +1,199 @@
+/*
+ * Program Name: "Triangle Computations".  This program shows how to add and subtract two numbers using a simple UI with three
+ *  active buttons.  Copyright (C) 2021 Jarrod Burges
+ *  This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ *  General Public License
+ *  version 3 as published by the Free Software Foundation.
+ *  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+ *  License for more details.
+ *  A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package TriangleComputations;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Computes the surface area of a binary STL mesh, the sum of {@link MathHelper#getArea} over its facets. The file is
+ * memory mapped rather than read, so facets go straight from the page cache to the math without being copied into
+ * the heap, and chunks of facets are summed across every core with a {@link ForkJoinPool}.
+ * <p>Chunks are summed and merged by {@link CompensatedReduction}, so the area stays accurate over tens of millions
+ * of facets and depends only on the file, not on the number of threads.</p>
+ * <p>A binary STL file is an 80 byte header, a little endian facet count, and then 50 bytes per facet: a normal
+ * and three corners of three floats each, and a two byte attribute. Only the corners are read.</p>
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public final class StlSurfaceArea {
+
+    static final int HEADER_BYTES = 84;
+    static final int FACET_BYTES = 50;
+
+    /**
+     * Offset of the first corner within a facet, after the normal.
+     */
+    private static final int CORNERS_OFFSET = 12;
+
+    /**
+     * Facets summed by one task.
+     */
+    static final int CHUNK_FACETS = 1 << 16;
+
+    /**
+     * Facets per mapped region, a multiple of {@link #CHUNK_FACETS} small enough that a region stays below the 2 GiB
+     * limit of one mapping.
+     */
+    static final int REGION_FACETS = 1 << 24;
+
+    private StlSurfaceArea() {
+    }
+
+    /**
+     * Summary of one surface area run.
+     */
+    public static final class Report {
+
+        private final long facets;
+        private final long skipped;
+        private final double area;
+        private final long elapsedNanos;
+        private final int parallelism;
+
+        Report(long facets, long skipped, double area, long elapsedNanos, int parallelism) {
+            this.facets = facets;
+            this.skipped = skipped;
+            this.area = area;
+            this.elapsedNanos = elapsedNanos;
+            this.parallelism = parallelism;
+        }
+
+        /**
+         * @return facets in the file
+         */
+        public long getFacets() {
+            return facets;
+        }
+
+        /**
+         * @return facets left out of the area because a corner was not a finite number
+         */
+        public long getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * @return surface area of the mesh, in the square of the file's units
+         */
+        public double getArea() {
+            return area;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("facets=%d skipped=%d area=%s elapsed=%.3fs facets/sec=%.0f threads=%d", facets,
+                    skipped, area, elapsedNanos / 1e9, elapsedNanos == 0 ? 0 : facets * 1e9 / elapsedNanos,
+                    parallelism);
+        }
+    }
+
+    /**
+     * Computes the surface area of a binary STL file.
+     *
+     * @param path binary STL file
+     * @param parallelism number of worker threads
+     * @return summary of the run with the area
+     * @throws IOException the file cannot be read or is shorter than its facet count says
+     */
+    public static Report run(Path path, int parallelism) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (isAscii(channel)) {
+                throw new IOException(path + " is an ASCII STL file, only binary STL is read");
+            }
+            if (size < HEADER_BYTES) {
+                throw new IOException(path + " is too short to be a binary STL file");
+            }
+            long facets = readFacetCount(channel);
+            if (size < HEADER_BYTES + facets * FACET_BYTES) {
+                throw new IOException(path + " is shorter than the " + facets + " facets its header counts");
+            }
+
+            MappedByteBuffer[] regions = new MappedByteBuffer[(int) ((facets + REGION_FACETS - 1) / REGION_FACETS)];
+            for (int i = 0; i < regions.length; i++) {
+                long first = (long) i * REGION_FACETS;
+                long count = Math.min(REGION_FACETS, facets - first);
+                regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + first * FACET_BYTES,
+                        count * FACET_BYTES);
+                regions[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+
+            CompensatedReduction.Sum sum;
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                int chunks = (int) ((facets + CHUNK_FACETS - 1) / CHUNK_FACETS);
+                sum = CompensatedReduction.reduce(chunks,
+                        (chunk, chunkSum) -> sumChunk(regions, facets, chunk, chunkSum), pool);
+            } finally {
+                pool.shutdown();
+            }
+            return new Report(facets, facets - sum.getCount(), sum.getValue(), System.nanoTime() - start,
+                    parallelism);
+        }
+    }
+
+    /**
+     * @return facet count of the header, an unsigned 32 bit number
+     */
+    private static long readFacetCount(FileChannel channel) throws IOException {
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+        return Integer.toUnsignedLong(header.order(ByteOrder.LITTLE_ENDIAN).getInt(HEADER_BYTES - Integer.BYTES));
+    }
+
+    /**
+     * Binary files may also start with "solid", but an ASCII file never has the length its facet count implies.
+     *
+     * @return whether the file starts like an ASCII STL file and is not a binary one
+     */
+    private static boolean isAscii(FileChannel channel) throws IOException {
+        long size = channel.size();
+        byte[] start = new byte[(int) Math.min(5, size)];
+        channel.map(FileChannel.MapMode.READ_ONLY, 0, start.length).get(start);
+        return new String(start, StandardCharsets.US_ASCII).equals("solid")
+                && (size < HEADER_BYTES || size != HEADER_BYTES + readFacetCount(channel) * FACET_BYTES);
+    }
+
+    /**
+     * Adds the area of every facet of one chunk with finite corners to a sum.
+     *
+     * @param regions mapped regions of the file's facets
+     * @param facets facets in the file
+     * @param chunk number of the chunk
+     * @param sum sum to add to
+     */
+    private static void sumChunk(MappedByteBuffer[] regions, long facets, int chunk, CompensatedReduction.Sum sum) {
+        long first = (long) chunk * CHUNK_FACETS;
+        int count = (int) Math.min(CHUNK_FACETS, facets - first);
+        //chunks never straddle regions, since a region is a whole number of chunks
+        MappedByteBuffer region = regions[(int) (first / REGION_FACETS)];
+        int offset = (int) (first % REGION_FACETS) * FACET_BYTES + CORNERS_OFFSET;
+        for (int i = 0; i < count; i++, offset += FACET_BYTES) {
+            double area = MathHelper.getArea(
+                    region.getFloat(offset), region.getFloat(offset + 4), region.getFloat(offset + 8),
+                    region.getFloat(offset + 12), region.getFloat(offset + 16), region.getFloat(offset + 20),
+                    region.getFloat(offset + 24), region.getFloat(offset + 28), region.getFloat(offset + 32));
+            if (area < Double.POSITIVE_INFINITY) {
+                sum.add(area);
+            }
+        }
+    }
+}
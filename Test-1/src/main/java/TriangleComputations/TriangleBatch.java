@@ -0,0 +1,131 @@
+/*
+ * Program Name: "Triangle Computations".  This program shows how to add and subtract two numbers using a simple UI with three
+ *  active buttons.  Copyright (C) 2021 Jarrod Burges
+ *  This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ *  General Public License
+ *  version 3 as published by the Free Software Foundation.
+ *  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+ *  License for more details.
+ *  A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package TriangleComputations;
+
+/**
+ * Array version of the {@link MathHelper} right triangle math that computes whole arrays of triangles in one pass.
+ * The hypotenuse is computed with one of the {@link Hypotenuse} modes, {@link Hypotenuse#DEFAULT_MODE} unless given.
+ * <p>When the JVM is started with {@code --add-modules jdk.incubator.vector} the kernel uses the Vector API,
+ * otherwise a scalar loop. The choice is made once when the class loads and can be forced to the scalar loop with
+ * {@code -Dtriangle.vector=false}. Both kernels give bit for bit the same results as {@link MathHelper} in every mode.</p>
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public final class TriangleBatch {
+
+    /**
+     * Computes area and hypotenuse for the range [from, to) of the given columns with a {@link Hypotenuse} mode.
+     */
+    interface Kernel {
+        void compute(double[] side1, double[] side2, double[] area, double[] hypotenuse, int from, int to, int mode);
+    }
+
+    /**
+     * Plain loop kernel that is always available.
+     */
+    static final Kernel SCALAR_KERNEL = TriangleBatch::computeScalar;
+
+    /**
+     * Kernel selected when the class was loaded.
+     */
+    private static final Kernel KERNEL = selectKernel();
+
+    private TriangleBatch() {
+    }
+
+    /**
+     * Computes the area and hypotenuse of every triangle. All arrays must be at least as long as side1.
+     *
+     * @param side1 first side of each triangle
+     * @param side2 second side of each triangle
+     * @param area filled with the area of each triangle
+     * @param hypotenuse filled with the hypotenuse of each triangle
+     */
+    public static void compute(double[] side1, double[] side2, double[] area, double[] hypotenuse) {
+        compute(side1, side2, area, hypotenuse, 0, side1.length, Hypotenuse.DEFAULT_MODE);
+    }
+
+    /**
+     * Computes the area and hypotenuse of the triangles in [from, to).
+     *
+     * @param side1 first side of each triangle
+     * @param side2 second side of each triangle
+     * @param area filled with the area of each triangle
+     * @param hypotenuse filled with the hypotenuse of each triangle
+     * @param from first triangle to compute
+     * @param to one past the last triangle to compute
+     * @param mode {@link Hypotenuse#FAST}, {@link Hypotenuse#SCALED} or {@link Hypotenuse#EXACT}
+     */
+    public static void compute(double[] side1, double[] side2, double[] area, double[] hypotenuse, int from, int to,
+                               int mode) {
+        KERNEL.compute(side1, side2, area, hypotenuse, from, to, mode);
+    }
+
+    /**
+     * @return name of the kernel in use, for reports
+     */
+    public static String getKernelName() {
+        return KERNEL == SCALAR_KERNEL ? "scalar" : "vector";
+    }
+
+    static void computeScalar(double[] side1, double[] side2, double[] area, double[] hypotenuse, int from, int to,
+                              int mode) {
+        //one loop per mode keeps the mode check out of the loop body, and each side is loaded once for both results
+        switch (mode) {
+            case Hypotenuse.FAST:
+                for (int i = from; i < to; i++) {
+                    double a = side1[i];
+                    double b = side2[i];
+                    area[i] = (a * b) / 2.0;
+                    hypotenuse[i] = Hypotenuse.fast(a, b);
+                }
+                break;
+            case Hypotenuse.SCALED:
+                for (int i = from; i < to; i++) {
+                    double a = side1[i];
+                    double b = side2[i];
+                    area[i] = (a * b) / 2.0;
+                    hypotenuse[i] = Hypotenuse.scaled(a, b);
+                }
+                break;
+            case Hypotenuse.EXACT:
+                for (int i = from; i < to; i++) {
+                    double a = side1[i];
+                    double b = side2[i];
+                    area[i] = (a * b) / 2.0;
+                    hypotenuse[i] = Hypotenuse.exact(a, b);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown hypotenuse mode " + mode + ".");
+        }
+    }
+
+    /**
+     * Uses {@link VectorTriangleKernel} if the Vector API module is in the boot layer and not disabled, otherwise
+     * {@link #SCALAR_KERNEL}.
+     */
+    private static Kernel selectKernel() {
+        if (!Boolean.parseBoolean(System.getProperty("triangle.vector", "true"))
+                || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return SCALAR_KERNEL;
+        }
+        try {
+            return (Kernel) Class.forName("TriangleComputations.VectorTriangleKernel").getDeclaredConstructor()
+                    .newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return SCALAR_KERNEL;
+        }
+    }
+}
@@ -0,0 +1,334 @@
+/*
+ * Program Name: "Triangle Computations".  This program shows how to add and subtract two numbers using a simple UI with three
+ *  active buttons.  Copyright (C) 2021 Jarrod Burges
+ *  This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ *  General Public License
+ *  version 3 as published by the Free Software Foundation.
+ *  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+ *  License for more details.
+ *  A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package TriangleComputations;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Micro benchmarks for the triangle kernels, run with {@code BatchMain bench [count]}. Every case is warmed up
+ * before it is timed and reports nanoseconds per triangle.
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public final class TriangleBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int ITERATIONS = 20;
+
+    /**
+     * Keeps results alive so the JIT cannot remove the benchmarked work.
+     */
+    private static volatile double sink;
+
+    private TriangleBenchmark() {
+    }
+
+    /**
+     * Runs every benchmark case and prints the results.
+     *
+     * @param count number of triangles per iteration
+     */
+    public static void run(int count) {
+        Random random = new Random(42);
+        double[] side1 = new double[count];
+        double[] side2 = new double[count];
+        for (int i = 0; i < count; i++) {
+            side1[i] = 0.01 + random.nextDouble() * 1000;
+            side2[i] = 0.01 + random.nextDouble() * 1000;
+        }
+        double[] area = new double[count];
+        double[] hypotenuse = new double[count];
+
+        System.out.println("triangles=" + count + " kernel=" + TriangleBatch.getKernelName());
+
+        //every case writes the same columns, since a column that lies a few cache lines after a side column in
+        //memory slows its loop down through false store to load dependencies
+        double baseline = time("MathHelper loop", count, () -> {
+            for (int i = 0; i < count; i++) {
+                area[i] = MathHelper.getArea(side1[i], side2[i]);
+                hypotenuse[i] = MathHelper.getHypotenuse(side1[i], side2[i]);
+            }
+            sink = hypotenuse[count - 1];
+        }, 0);
+        double[] expectedArea = area.clone();
+        double[] expectedHypotenuse = hypotenuse.clone();
+        clear(area, hypotenuse);
+
+        time("batch scalar", count, () -> {
+            TriangleBatch.SCALAR_KERNEL.compute(side1, side2, area, hypotenuse, 0, count, Hypotenuse.DEFAULT_MODE);
+            sink = hypotenuse[count - 1];
+        }, baseline);
+        check("batch scalar", expectedArea, expectedHypotenuse, area, hypotenuse);
+        clear(area, hypotenuse);
+
+        if (!TriangleBatch.getKernelName().equals("scalar")) {
+            time("batch " + TriangleBatch.getKernelName(), count, () -> {
+                TriangleBatch.compute(side1, side2, area, hypotenuse);
+                sink = hypotenuse[count - 1];
+            }, baseline);
+            check("batch " + TriangleBatch.getKernelName(), expectedArea, expectedHypotenuse, area, hypotenuse);
+        }
+
+        hypotenuseBenchmark(side1, side2, area, hypotenuse);
+    }
+
+    /**
+     * Times each {@link TriangleSolver} kind on the same random triangles, prints triangles per second and checks
+     * that every kind solves them consistently and to the same sides.
+     *
+     * @param count number of triangles per iteration
+     */
+    public static void runSolver(int count) {
+        Random random = new Random(42);
+        double[][] sss = new double[3][count];
+        for (int i = 0; i < count; i++) {
+            double a = 1 + random.nextDouble() * 99;
+            double b = 1 + random.nextDouble() * 99;
+            //keep c a little away from the triangle inequality so the default tolerance holds
+            double low = Math.abs(a - b);
+            double high = a + b;
+            double margin = 1e-3 * high;
+            sss[0][i] = a;
+            sss[1][i] = b;
+            sss[2][i] = low + margin + random.nextDouble() * (high - low - 2 * margin);
+        }
+        TriangleSolver.Solutions reference = new TriangleSolver.Solutions(count);
+        TriangleSolver.solveSSS(sss[0], sss[1], sss[2], reference, 0, count);
+
+        //the same triangles as the other kinds of specification
+        double[][][] inputs = new double[4][][];
+        inputs[TriangleSolver.SSS] = sss;
+        inputs[TriangleSolver.SAS] = new double[][]{sss[1], reference.angleA.clone(), sss[2]};
+        inputs[TriangleSolver.ASA] = new double[][]{reference.angleB.clone(), sss[0], reference.angleC.clone()};
+        inputs[TriangleSolver.AAS] = new double[][]{reference.angleA.clone(), reference.angleB.clone(), sss[0]};
+
+        System.out.println("triangles=" + count);
+        TriangleSolver.Solutions solutions = new TriangleSolver.Solutions(count);
+        for (int kind = TriangleSolver.SSS; kind <= TriangleSolver.AAS; kind++) {
+            int solveKind = kind;
+            double[][] input = inputs[kind];
+            long nanos = measure(() -> {
+                TriangleSolver.solve(solveKind, input[0], input[1], input[2], solutions, 0, count);
+                sink = solutions.area[count - 1];
+            });
+
+            int differing = 0;
+            for (int i = 0; i < count; i++) {
+                if (!isClose(solutions.sideA[i], sss[0][i]) || !isClose(solutions.sideB[i], sss[1][i])
+                        || !isClose(solutions.sideC[i], sss[2][i])) {
+                    differing++;
+                }
+            }
+            int inconsistent = TriangleSolver.countInconsistent(solutions, 0, count,
+                    TriangleSolver.DEFAULT_TOLERANCE);
+            System.out.printf("%-24s %8.3f ns/triangle %7.2fM triangles/sec  %d inconsistent  %d differ%n",
+                    "solve " + TriangleSolver.getKindName(kind), (double) nanos / count, count * 1e3 / nanos,
+                    inconsistent, differing);
+            if (inconsistent > 0 || differing > 0) {
+                throw new IllegalStateException("Solving " + TriangleSolver.getKindName(kind)
+                        + " gave inconsistent triangles");
+            }
+        }
+    }
+
+    private static boolean isClose(double actual, double expected) {
+        return Math.abs(actual - expected) <= TriangleSolver.DEFAULT_TOLERANCE * expected;
+    }
+
+    /**
+     * Compares {@link CompensatedReduction} with a plain loop over the areas of right triangles of very different
+     * sizes: time per value, error against the exact sum, and that every thread count gives the same bits.
+     *
+     * @param count number of areas per iteration
+     */
+    public static void runReduction(int count) {
+        Random random = new Random(42);
+        double[] areas = new double[count];
+        BigDecimal exact = BigDecimal.ZERO;
+        for (int i = 0; i < count; i++) {
+            double scale = Math.pow(10, random.nextInt(7) - 3);
+            areas[i] = MathHelper.getArea(random.nextDouble() * scale, random.nextDouble() * scale);
+            exact = exact.add(new BigDecimal(areas[i]));
+        }
+        double expected = exact.doubleValue();
+        System.out.println("areas=" + count + " exact sum=" + expected);
+
+        double[] result = new double[1];
+        double baseline = time("naive loop", count, () -> {
+            double sum = 0;
+            for (double area : areas) {
+                sum += area;
+            }
+            result[0] = sum;
+            sink = sum;
+        }, 0);
+        printError("naive loop", result[0], expected);
+
+        time("compensated, no pool", count, () -> {
+            result[0] = CompensatedReduction.sum(areas, 0, count, null);
+            sink = result[0];
+        }, baseline);
+        printError("compensated, no pool", result[0], expected);
+        double reference = result[0];
+
+        for (int threads = 1; threads <= 8; threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            String name = "compensated, " + threads + (threads == 1 ? " thread" : " threads");
+            try {
+                time(name, count, () -> {
+                    result[0] = CompensatedReduction.sum(areas, 0, count, pool);
+                    sink = result[0];
+                }, baseline);
+            } finally {
+                pool.shutdown();
+            }
+            if (Double.doubleToLongBits(result[0]) != Double.doubleToLongBits(reference)) {
+                throw new IllegalStateException(name + " gave " + result[0] + " instead of " + reference);
+            }
+        }
+        System.out.println("compensated sums are bit for bit the same for every thread count");
+    }
+
+    private static void printError(String name, double actual, double expected) {
+        System.out.printf("%-24s sum=%s error %.3g ulp%n", name, actual, Math.abs(actual - expected)
+                / Math.ulp(expected));
+    }
+
+    /**
+     * Times each {@link Hypotenuse} mode one pair at a time and through {@link TriangleBatch}, against the old
+     * {@code sqrt(pow + pow)} formula, and checks that the batch kernel matches the single pair methods.
+     *
+     * @param side1 first sides
+     * @param side2 second sides
+     * @param area scratch column for areas
+     * @param hypotenuse scratch column for hypotenuses
+     */
+    private static void hypotenuseBenchmark(double[] side1, double[] side2, double[] area, double[] hypotenuse) {
+        int count = side1.length;
+        double[] expected = new double[count];
+        double baseline = time("sqrt(pow + pow)", count, () -> {
+            for (int i = 0; i < count; i++) {
+                hypotenuse[i] = Math.sqrt(Math.pow(side1[i], 2) + Math.pow(side2[i], 2));
+            }
+            sink = hypotenuse[count - 1];
+        }, 0);
+        time("hypotenuse fast", count, () -> {
+            for (int i = 0; i < count; i++) {
+                hypotenuse[i] = Hypotenuse.fast(side1[i], side2[i]);
+            }
+            sink = hypotenuse[count - 1];
+        }, baseline);
+        time("hypotenuse scaled", count, () -> {
+            for (int i = 0; i < count; i++) {
+                hypotenuse[i] = Hypotenuse.scaled(side1[i], side2[i]);
+            }
+            sink = hypotenuse[count - 1];
+        }, baseline);
+        time("hypotenuse exact", count, () -> {
+            for (int i = 0; i < count; i++) {
+                hypotenuse[i] = Hypotenuse.exact(side1[i], side2[i]);
+            }
+            sink = hypotenuse[count - 1];
+        }, baseline);
+
+        for (int mode = Hypotenuse.FAST; mode <= Hypotenuse.EXACT; mode++) {
+            int batchMode = mode;
+            String name = "batch " + TriangleBatch.getKernelName() + " " + Hypotenuse.getModeName(mode);
+            clear(area, hypotenuse);
+            time(name, count, () -> {
+                TriangleBatch.compute(side1, side2, area, hypotenuse, 0, count, batchMode);
+                sink = hypotenuse[count - 1];
+            }, baseline);
+            for (int i = 0; i < count; i++) {
+                expected[i] = Hypotenuse.get(mode, side1[i], side2[i]);
+            }
+            checkColumn(name, expected, hypotenuse);
+        }
+    }
+
+    /**
+     * Fills result columns with NaN, so a kernel that skips triangles fails its check instead of passing on the
+     * results of the case before it.
+     */
+    private static void clear(double[] area, double[] hypotenuse) {
+        Arrays.fill(area, Double.NaN);
+        Arrays.fill(hypotenuse, Double.NaN);
+    }
+
+    /**
+     * Checks that a kernel gave exactly the same hypotenuses as the single pair method of its mode.
+     */
+    private static void checkColumn(String name, double[] expected, double[] actual) {
+        for (int i = 0; i < expected.length; i++) {
+            if (Double.doubleToLongBits(actual[i]) != Double.doubleToLongBits(expected[i])) {
+                throw new IllegalStateException(name + " differs from Hypotenuse at triangle " + i);
+            }
+        }
+    }
+
+    /**
+     * Checks that a kernel gave exactly the same results as {@link MathHelper}.
+     */
+    private static void check(String name, double[] expectedArea, double[] expectedHypotenuse, double[] area,
+                              double[] hypotenuse) {
+        for (int i = 0; i < area.length; i++) {
+            if (Double.doubleToLongBits(area[i]) != Double.doubleToLongBits(expectedArea[i])
+                    || Double.doubleToLongBits(hypotenuse[i]) != Double.doubleToLongBits(expectedHypotenuse[i])) {
+                throw new IllegalStateException(name + " differs from MathHelper at triangle " + i);
+            }
+        }
+    }
+
+    /**
+     * Times a benchmark case and prints its nanoseconds per triangle.
+     *
+     * @param name name of the case
+     * @param count triangles computed by one run of the case
+     * @param body one iteration of the case
+     * @param baseline nanoseconds per triangle to print a speedup against, 0 for none
+     * @return nanoseconds per triangle of the fastest iteration
+     */
+    static double time(String name, int count, Runnable body, double baseline) {
+        double nanosPerTriangle = (double) measure(body) / count;
+        if (baseline > 0) {
+            System.out.printf("%-24s %8.3f ns/triangle  %5.2fx%n", name, nanosPerTriangle,
+                    baseline / nanosPerTriangle);
+        } else {
+            System.out.printf("%-24s %8.3f ns/triangle%n", name, nanosPerTriangle);
+        }
+        return nanosPerTriangle;
+    }
+
+    /**
+     * Warms up a benchmark case and times it.
+     *
+     * @param body one iteration of the case
+     * @return nanoseconds of the fastest iteration
+     */
+    static long measure(Runnable body) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            body.run();
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            body.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+}
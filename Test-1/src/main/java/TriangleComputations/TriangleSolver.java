@@ -0,0 +1,380 @@
+/*
+ * Program Name: "Triangle Computations".  This program shows how to add and subtract two numbers using a simple UI with three
+ *  active buttons.  Copyright (C) 2021 Jarrod Burges
+ *  This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ *  General Public License
+ *  version 3 as published by the Free Software Foundation.
+ *  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+ *  License for more details.
+ *  A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package TriangleComputations;
+
+/**
+ * Solves whole arrays of triangles given by three of their sides and angles, the general case of the right triangles
+ * in {@link MathHelper}. Side a is opposite angle A, b opposite B and c opposite C, and angles are in radians.
+ * <ul>
+ *     <li>{@link #SSS}: sides a, b and c.</li>
+ *     <li>{@link #SAS}: sides b and c and the angle A between them.</li>
+ *     <li>{@link #ASA}: angles B and C and the side a between them.</li>
+ *     <li>{@link #AAS}: angles A and B and the side a opposite A.</li>
+ * </ul>
+ * Each kind resolves into every side and angle, the area, perimeter, inradius and circumradius, written to a
+ * {@link Solutions}. The loops have no branches on the data besides the rare invalid triangle, which is solved to NaN
+ * everywhere. Triangles whose area does not fit a double count as invalid. The two sides and an angle not between
+ * them (SSA) can describe two triangles and are not supported.
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public final class TriangleSolver {
+
+    /**
+     * Kinds of specification, in the order of {@link #KINDS}.
+     */
+    public static final int SSS = 0;
+    public static final int SAS = 1;
+    public static final int ASA = 2;
+    public static final int AAS = 3;
+    private static final String[] KINDS = {"sss", "sas", "asa", "aas"};
+
+    /**
+     * Relative error {@link #countInconsistent} allows by default.
+     */
+    public static final double DEFAULT_TOLERANCE = 1e-9;
+
+    private TriangleSolver() {
+    }
+
+    /**
+     * Columns of solved triangles, one index per triangle.
+     */
+    public static final class Solutions {
+
+        final double[] sideA;
+        final double[] sideB;
+        final double[] sideC;
+        final double[] angleA;
+        final double[] angleB;
+        final double[] angleC;
+        final double[] area;
+        final double[] perimeter;
+        final double[] inradius;
+        final double[] circumradius;
+
+        /**
+         * @param capacity number of triangles the columns hold
+         */
+        public Solutions(int capacity) {
+            sideA = new double[capacity];
+            sideB = new double[capacity];
+            sideC = new double[capacity];
+            angleA = new double[capacity];
+            angleB = new double[capacity];
+            angleC = new double[capacity];
+            area = new double[capacity];
+            perimeter = new double[capacity];
+            inradius = new double[capacity];
+            circumradius = new double[capacity];
+        }
+
+        public int getCapacity() {
+            return sideA.length;
+        }
+
+        /**
+         * @param i index of the triangle
+         * @return whether the triangle was a valid one, every other getter returns NaN for it otherwise
+         */
+        public boolean isValid(int i) {
+            return area[i] > 0;
+        }
+
+        public double getSideA(int i) {
+            return sideA[i];
+        }
+
+        public double getSideB(int i) {
+            return sideB[i];
+        }
+
+        public double getSideC(int i) {
+            return sideC[i];
+        }
+
+        public double getAngleA(int i) {
+            return angleA[i];
+        }
+
+        public double getAngleB(int i) {
+            return angleB[i];
+        }
+
+        public double getAngleC(int i) {
+            return angleC[i];
+        }
+
+        public double getArea(int i) {
+            return area[i];
+        }
+
+        public double getPerimeter(int i) {
+            return perimeter[i];
+        }
+
+        public double getInradius(int i) {
+            return inradius[i];
+        }
+
+        public double getCircumradius(int i) {
+            return circumradius[i];
+        }
+
+        /**
+         * @param i index of the triangle
+         * @return every value of the triangle on one line
+         */
+        public String format(int i) {
+            return String.format("a=%s b=%s c=%s A=%s B=%s C=%s area=%s perimeter=%s inradius=%s circumradius=%s",
+                    sideA[i], sideB[i], sideC[i], angleA[i], angleB[i], angleC[i], area[i], perimeter[i],
+                    inradius[i], circumradius[i]);
+        }
+    }
+
+    /**
+     * Solves the triangles in [from, to) of the given kind.
+     *
+     * @param kind {@link #SSS}, {@link #SAS}, {@link #ASA} or {@link #AAS}
+     * @param first first value of each specification, in the order the kind is named
+     * @param second second value of each specification
+     * @param third third value of each specification
+     * @param solutions filled with the solved triangles at the same indexes
+     * @param from first triangle to solve
+     * @param to one past the last triangle to solve
+     */
+    public static void solve(int kind, double[] first, double[] second, double[] third, Solutions solutions,
+                             int from, int to) {
+        switch (kind) {
+            case SSS:
+                solveSSS(first, second, third, solutions, from, to);
+                break;
+            case SAS:
+                solveSAS(first, second, third, solutions, from, to);
+                break;
+            case ASA:
+                solveASA(first, second, third, solutions, from, to);
+                break;
+            case AAS:
+                solveAAS(first, second, third, solutions, from, to);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown triangle kind " + kind + ".");
+        }
+    }
+
+    /**
+     * Solves triangles from their three sides. The area uses Kahan's rearrangement of Heron's formula, which stays
+     * accurate for needle shaped triangles, and the angles the half angle formula tan(A / 2) = r / (s - a).
+     *
+     * @param a side a of each triangle
+     * @param b side b of each triangle
+     * @param c side c of each triangle
+     * @param solutions filled with the solved triangles at the same indexes
+     * @param from first triangle to solve
+     * @param to one past the last triangle to solve
+     */
+    public static void solveSSS(double[] a, double[] b, double[] c, Solutions solutions, int from, int to) {
+        for (int i = from; i < to; i++) {
+            double sideA = a[i];
+            double sideB = b[i];
+            double sideC = c[i];
+            double area = area(sideA, sideB, sideC);
+            double semiperimeter = 0.5 * (sideA + sideB + sideC);
+            double inradius = area / semiperimeter;
+            boolean valid = Math.min(sideA, Math.min(sideB, sideC)) > 0 && semiperimeter < Double.POSITIVE_INFINITY;
+            store(solutions, i, valid && area > 0, sideA, sideB, sideC,
+                    2 * Math.atan2(inradius, semiperimeter - sideA), 2 * Math.atan2(inradius, semiperimeter - sideB),
+                    2 * Math.atan2(inradius, semiperimeter - sideC), area);
+        }
+    }
+
+    /**
+     * Solves triangles from two sides and the angle between them. The third side uses
+     * a^2 = (b - c)^2 + 4bc sin^2(A / 2), which unlike the law of cosines does not cancel for small angles.
+     *
+     * @param b side b of each triangle
+     * @param angleA angle A between sides b and c
+     * @param c side c of each triangle
+     * @param solutions filled with the solved triangles at the same indexes
+     * @param from first triangle to solve
+     * @param to one past the last triangle to solve
+     */
+    public static void solveSAS(double[] b, double[] angleA, double[] c, Solutions solutions, int from, int to) {
+        for (int i = from; i < to; i++) {
+            double sideB = b[i];
+            double sideC = c[i];
+            double angle = angleA[i];
+            double sinA = Math.sin(angle);
+            double cosA = Math.cos(angle);
+            double halfSine = Math.sin(0.5 * angle);
+            double difference = sideB - sideC;
+            double sideA = Math.sqrt(Math.fma(difference, difference, 4 * sideB * sideC * halfSine * halfSine));
+            double angleB = Math.atan2(sideB * sinA, sideC - sideB * cosA);
+            boolean valid = Math.min(sideB, sideC) > 0 && Math.max(sideB, sideC) < Double.POSITIVE_INFINITY
+                    && angle > 0 && angle < Math.PI;
+            store(solutions, i, valid, sideA, sideB, sideC, angle, angleB, Math.PI - angle - angleB,
+                    0.5 * sideB * sideC * sinA);
+        }
+    }
+
+    /**
+     * Solves triangles from two angles and the side between them.
+     *
+     * @param angleB angle B of each triangle
+     * @param a side a between angles B and C
+     * @param angleC angle C of each triangle
+     * @param solutions filled with the solved triangles at the same indexes
+     * @param from first triangle to solve
+     * @param to one past the last triangle to solve
+     */
+    public static void solveASA(double[] angleB, double[] a, double[] angleC, Solutions solutions, int from, int to) {
+        for (int i = from; i < to; i++) {
+            double b = angleB[i];
+            double c = angleC[i];
+            solveAngles(solutions, i, Math.PI - b - c, b, c, a[i]);
+        }
+    }
+
+    /**
+     * Solves triangles from two angles and the side opposite the first one.
+     *
+     * @param angleA angle A of each triangle
+     * @param angleB angle B of each triangle
+     * @param a side a opposite angle A
+     * @param solutions filled with the solved triangles at the same indexes
+     * @param from first triangle to solve
+     * @param to one past the last triangle to solve
+     */
+    public static void solveAAS(double[] angleA, double[] angleB, double[] a, Solutions solutions, int from, int to) {
+        for (int i = from; i < to; i++) {
+            double angle = angleA[i];
+            double b = angleB[i];
+            solveAngles(solutions, i, angle, b, Math.PI - angle - b, a[i]);
+        }
+    }
+
+    /**
+     * Counts the valid triangles in [from, to) that break the law of sines, the angle sum or the inradius and area
+     * relations by more than a relative tolerance.
+     *
+     * @param solutions solved triangles
+     * @param from first triangle to check
+     * @param to one past the last triangle to check
+     * @param tolerance largest relative error allowed, {@link #DEFAULT_TOLERANCE} for well shaped triangles
+     * @return number of inconsistent triangles
+     */
+    public static int countInconsistent(Solutions solutions, int from, int to, double tolerance) {
+        int inconsistent = 0;
+        for (int i = from; i < to; i++) {
+            if (solutions.isValid(i) && !isConsistent(solutions, i, tolerance)) {
+                inconsistent++;
+            }
+        }
+        return inconsistent;
+    }
+
+    /**
+     * @param kind {@link #SSS}, {@link #SAS}, {@link #ASA} or {@link #AAS}
+     * @return lower case name of the kind
+     */
+    public static String getKindName(int kind) {
+        return KINDS[kind];
+    }
+
+    /**
+     * @param name name of a kind, any case
+     * @return the kind with that name
+     * @throws IllegalArgumentException there is no kind with that name
+     */
+    public static int parseKind(String name) {
+        for (int kind = 0; kind < KINDS.length; kind++) {
+            if (KINDS[kind].equalsIgnoreCase(name)) {
+                return kind;
+            }
+        }
+        throw new IllegalArgumentException("Unknown triangle kind " + name + ", expected sss, sas, asa or aas.");
+    }
+
+    /**
+     * Area of a triangle from its sides by Kahan's formula, with the sides sorted by min and max rather than
+     * branches. NaN if the sides break the triangle inequality.
+     */
+    static double area(double a, double b, double c) {
+        double largest = Math.max(a, Math.max(b, c));
+        double smallest = Math.min(a, Math.min(b, c));
+        double middle = Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+        double spread = largest - middle;
+        //two square roots of two factors each, so sides up to the square root of the largest double don't overflow
+        return 0.25 * Math.sqrt((largest + (middle + smallest)) * (smallest - spread))
+                * Math.sqrt((smallest + spread) * (largest + (middle - smallest)));
+    }
+
+    /**
+     * Solves a triangle from its three angles and side a by the law of sines.
+     */
+    private static void solveAngles(Solutions solutions, int i, double angleA, double angleB, double angleC,
+                                    double sideA) {
+        double sinA = Math.sin(angleA);
+        double sinB = Math.sin(angleB);
+        double sinC = Math.sin(angleC);
+        double diameter = sideA / sinA;
+        boolean valid = sideA > 0 && sideA < Double.POSITIVE_INFINITY && angleA > 0 && angleB > 0 && angleC > 0;
+        store(solutions, i, valid, sideA, diameter * sinB, diameter * sinC, angleA, angleB, angleC,
+                0.5 * sideA * diameter * sinB * sinC);
+    }
+
+    /**
+     * Writes one solved triangle, deriving the perimeter and radii, or NaN everywhere if it is not valid.
+     */
+    private static void store(Solutions solutions, int i, boolean valid, double sideA, double sideB, double sideC,
+                              double angleA, double angleB, double angleC, double area) {
+        if (!valid || !(area > 0) || area == Double.POSITIVE_INFINITY) {
+            sideA = sideB = sideC = angleA = angleB = angleC = area = Double.NaN;
+        }
+        double perimeter = sideA + sideB + sideC;
+        solutions.sideA[i] = sideA;
+        solutions.sideB[i] = sideB;
+        solutions.sideC[i] = sideC;
+        solutions.angleA[i] = angleA;
+        solutions.angleB[i] = angleB;
+        solutions.angleC[i] = angleC;
+        solutions.area[i] = area;
+        solutions.perimeter[i] = perimeter;
+        solutions.inradius[i] = 2 * area / perimeter;
+        solutions.circumradius[i] = sideA * sideB * sideC / (4 * area);
+    }
+
+    /**
+     * @return whether a valid triangle satisfies the law of sines, the angle sum and the inradius and area relations
+     */
+    private static boolean isConsistent(Solutions solutions, int i, double tolerance) {
+        double a = solutions.sideA[i];
+        double b = solutions.sideB[i];
+        double c = solutions.sideC[i];
+        double angleSum = solutions.angleA[i] + solutions.angleB[i] + solutions.angleC[i];
+        double diameter = 2 * solutions.circumradius[i];
+        double area = solutions.area[i];
+        return isClose(angleSum, Math.PI, tolerance)
+                && isClose(a / Math.sin(solutions.angleA[i]), diameter, tolerance)
+                && isClose(b / Math.sin(solutions.angleB[i]), diameter, tolerance)
+                && isClose(c / Math.sin(solutions.angleC[i]), diameter, tolerance)
+                && isClose(area(a, b, c), area, tolerance)
+                && isClose(0.5 * solutions.inradius[i] * solutions.perimeter[i], area, tolerance);
+    }
+
+    private static boolean isClose(double actual, double expected, double tolerance) {
+        return Math.abs(actual - expected) <= tolerance * Math.abs(expected);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Program Name: "Triangle Computations".  This program shows how to add and subtract two numbers using a simple UI with three
+ *  active buttons.  Copyright (C) 2021 Jarrod Burges
+ *  This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ *  General Public License
+ *  version 3 as published by the Free Software Foundation.
+ *  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+ *  License for more details.
+ *  A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package TriangleComputations;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link TriangleBatch} kernel using the incubating Vector API. Only loaded by {@link TriangleBatch} when the JVM
+ * runs with {@code --add-modules jdk.incubator.vector}.
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+final class VectorTriangleKernel implements TriangleBatch.Kernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public void compute(double[] side1, double[] side2, double[] area, double[] hypotenuse, int from, int to,
+                        int mode) {
+        if (mode == Hypotenuse.EXACT) {
+            //Math.hypot has no vector form
+            TriangleBatch.computeScalar(side1, side2, area, hypotenuse, from, to, mode);
+            return;
+        }
+        boolean scaled = mode == Hypotenuse.SCALED;
+        if (!scaled && mode != Hypotenuse.FAST) {
+            throw new IllegalArgumentException("Unknown hypotenuse mode " + mode + ".");
+        }
+
+        int i = from;
+        for (int upperBound = from + SPECIES.loopBound(to - from); i < upperBound; i += SPECIES.length()) {
+            DoubleVector a = DoubleVector.fromArray(SPECIES, side1, i);
+            DoubleVector b = DoubleVector.fromArray(SPECIES, side2, i);
+            a.mul(b).div(2.0).intoArray(area, i);
+            if (scaled) {
+                scaled(a.abs(), b.abs()).intoArray(hypotenuse, i);
+            } else {
+                a.mul(a).add(b.mul(b)).sqrt().intoArray(hypotenuse, i);
+            }
+        }
+        //remaining triangles that don't fill a whole vector
+        TriangleBatch.computeScalar(side1, side2, area, hypotenuse, i, to, mode);
+    }
+
+    /**
+     * Lane by lane {@link Hypotenuse#scaled}, with blends instead of its branches.
+     *
+     * @param a absolute first sides
+     * @param b absolute second sides
+     * @return hypotenuses
+     */
+    private static DoubleVector scaled(DoubleVector a, DoubleVector b) {
+        DoubleVector larger = a.max(b);
+        VectorMask<Double> above = larger.compare(VectorOperators.GT, Hypotenuse.SCALE_ABOVE);
+        VectorMask<Double> below = larger.compare(VectorOperators.LT, Hypotenuse.SCALE_BELOW);
+        //NaN lanes are neither above nor below, but one may pair an infinite side with NaN
+        if (!above.or(below).or(larger.test(VectorOperators.IS_NAN)).anyTrue()) {
+            return a.mul(a).add(b.mul(b)).sqrt();
+        }
+        DoubleVector one = DoubleVector.broadcast(SPECIES, 1.0);
+        DoubleVector scale = one.blend(Hypotenuse.UNSCALE, above).blend(Hypotenuse.SCALE, below);
+        DoubleVector unscale = one.blend(Hypotenuse.SCALE, above).blend(Hypotenuse.UNSCALE, below);
+        a = a.mul(scale);
+        b = b.mul(scale);
+        VectorMask<Double> infinite = a.compare(VectorOperators.EQ, Double.POSITIVE_INFINITY)
+                .or(b.compare(VectorOperators.EQ, Double.POSITIVE_INFINITY));
+        return a.mul(a).add(b.mul(b)).sqrt().mul(unscale).blend(Double.POSITIVE_INFINITY, infinite);
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Program Name: "Triangle Computations".  This program shows how to add and subtract two numbers using a simple UI with three
+ *  active buttons.  Copyright (C) 2021 Jarrod Burges
+ *  This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ *  General Public License
+ *  version 3 as published by the Free Software Foundation.
+ *  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+ *  License for more details.
+ *  A copy of the GNU General Public License v3 is available here:  <https://www.gnu.org/licenses/>.
+ */
+
+package TriangleComputations;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the error of every {@link Hypotenuse} mode against a 40 digit reference, for ordinary sides between 0.001
+ * and 1000 and for sides spread over every finite double, where overflow and underflow show up as errors far above
+ * 1 ulp.
+ * @author Jarrod Burges
+ * @email jburges@csu.fullerton.edu
+ */
+public class HypotenuseTest {
+
+    /**
+     * Pairs checked against the reference per range, kept small since the reference uses BigDecimal.
+     */
+    private static final int PAIRS = 20_000;
+
+    private static final MathContext REFERENCE = new MathContext(40);
+
+    private static double[][] ordinary;
+    private static double[][] wide;
+    private static BigDecimal[] ordinaryReference;
+    private static BigDecimal[] wideReference;
+
+    @BeforeClass
+    public static void createSides() {
+        Random random = new Random(7);
+        ordinary = new double[2][PAIRS];
+        wide = new double[2][PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            for (int side = 0; side < 2; side++) {
+                ordinary[side][i] = 0.001 + random.nextDouble() * 1000;
+                //uniform over the exponents of every finite double, subnormals included
+                wide[side][i] = Math.scalb(1 + random.nextDouble(), random.nextInt(2098) - 1074);
+            }
+        }
+        ordinaryReference = reference(ordinary);
+        wideReference = reference(wide);
+    }
+
+    @Test
+    public void fastIsWithinTwoUlpForOrdinarySides() {
+        assertBelow(2, maxUlps(Hypotenuse.FAST, ordinary, ordinaryReference));
+    }
+
+    @Test
+    public void fastMatchesTheOriginalFormula() {
+        for (int i = 0; i < PAIRS; i++) {
+            double a = ordinary[0][i];
+            double b = ordinary[1][i];
+            assertEquals(Math.sqrt(Math.pow(a, 2) + Math.pow(b, 2)), Hypotenuse.fast(a, b), 0);
+            assertEquals(Hypotenuse.fast(a, b), MathHelper.getHypotenuse(a, b), 0);
+        }
+    }
+
+    @Test
+    public void scaledIsWithinTwoUlpForAnyFiniteSides() {
+        assertBelow(2, maxUlps(Hypotenuse.SCALED, ordinary, ordinaryReference));
+        assertBelow(2, maxUlps(Hypotenuse.SCALED, wide, wideReference));
+    }
+
+    @Test
+    public void exactIsWithinOneUlpForAnyFiniteSides() {
+        assertBelow(1, maxUlps(Hypotenuse.EXACT, ordinary, ordinaryReference));
+        assertBelow(1, maxUlps(Hypotenuse.EXACT, wide, wideReference));
+    }
+
+    @Test
+    public void infiniteSideGivesInfinityEvenWithNaN() {
+        for (int mode = Hypotenuse.SCALED; mode <= Hypotenuse.EXACT; mode++) {
+            assertEquals(Double.POSITIVE_INFINITY, Hypotenuse.get(mode, Double.NEGATIVE_INFINITY, Double.NaN), 0);
+            assertEquals(Double.POSITIVE_INFINITY, Hypotenuse.get(mode, Double.NaN, Double.POSITIVE_INFINITY), 0);
+        }
+    }
+
+    private static void assertBelow(double bound, double ulps) {
+        assertTrue(ulps + " ulp is not below " + bound, ulps < bound);
+    }
+
+    /**
+     * @param sides first and second sides
+     * @return exact hypotenuse of each pair rounded to 40 digits
+     */
+    private static BigDecimal[] reference(double[][] sides) {
+        BigDecimal[] reference = new BigDecimal[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            BigDecimal a = new BigDecimal(sides[0][i]);
+            BigDecimal b = new BigDecimal(sides[1][i]);
+            reference[i] = a.multiply(a, REFERENCE).add(b.multiply(b, REFERENCE), REFERENCE).sqrt(REFERENCE);
+        }
+        return reference;
+    }
+
+    /**
+     * @param mode {@link Hypotenuse} mode to check
+     * @param sides first and second sides
+     * @param reference exact hypotenuse of each pair
+     * @return largest error of the mode in units in the last place of the reference, skipping pairs whose
+     * hypotenuse does not fit a double
+     */
+    private static double maxUlps(int mode, double[][] sides, BigDecimal[] reference) {
+        double max = 0;
+        for (int i = 0; i < PAIRS; i++) {
+            double expected = reference[i].doubleValue();
+            if (Double.isInfinite(expected)) {
+                continue;
+            }
+            double actual = Hypotenuse.get(mode, sides[0][i], sides[1][i]);
+            if (Double.isInfinite(actual)) {
+                return Double.POSITIVE_INFINITY;
+            }
+            BigDecimal error = new BigDecimal(actual).subtract(reference[i]).abs();
+            max = Math.max(max, error.divide(new BigDecimal(Math.ulp(expected)), REFERENCE).doubleValue());
+        }
+        return max;
+    }
+}